@@ -0,0 +1,237 @@
+package com.ecommerce.app.assets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Concatenates the stylesheets and scripts listed in assets/bundles.properties
+ * into one file per bundle, named after a hash of its content, and writes a
+ * gzipped copy next to it. Everything is built once at startup into the
+ * bundles directory below app.assets.output-dir, which WebConfig serves as
+ * /assets/ with immutable caching; templates look the current names up through
+ * url(), and the same map is written to manifest.json beside that directory,
+ * where its unversioned name is not served. Bundles sit one directory deep
+ * like /css/ and /js/, so relative ../ references in the sources keep resolving.
+ */
+@Component
+public class AssetBundles {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssetBundles.class);
+
+    public static final String URL_PREFIX = "/assets/";
+
+    // @import url("x.css") media; @import url(x.css) media; or @import "x.css" media;
+    private static final Pattern CSS_IMPORT = Pattern.compile("@import\\s+(?:url\\(\\s*(?:\"([^\"]*)\"|'([^']*)'|([^)\\s]*))"
+            + "\\s*\\)|\"([^\"]*)\"|'([^']*)')\\s*([^;]*);");
+
+    private final ResourceLoader resourceLoader;
+    private final Path outputDirectory;
+    private final Path bundleDirectory;
+    private final Map<String, String> urls;
+
+    @Autowired
+    public AssetBundles(ResourceLoader resourceLoader,
+                        @Value("${app.assets.bundles:classpath:assets/bundles.properties}") String definitions,
+                        @Value("${app.assets.output-dir:${java.io.tmpdir}/ecommerce-assets}") String outputDirectory)
+            throws IOException {
+        this.resourceLoader = resourceLoader;
+        this.outputDirectory = Paths.get(outputDirectory).toAbsolutePath().normalize();
+        this.bundleDirectory = this.outputDirectory.resolve("bundles");
+        Properties bundles = PropertiesLoaderUtils.loadProperties(resourceLoader.getResource(definitions));
+        Map<String, String> built = new TreeMap<>();
+        for (String name : bundles.stringPropertyNames()) {
+            List<String> sources = List.of(StringUtils.tokenizeToStringArray(bundles.getProperty(name), ","));
+            built.put(name, URL_PREFIX + write(name, build(name, sources)));
+        }
+        this.urls = Collections.unmodifiableMap(built);
+        writeManifest();
+        logger.info("Built {} asset bundles into {}", urls.size(), bundleDirectory);
+    }
+
+    /**
+     * The current url of a bundle, e.g. /assets/layout-0123456789abcdef.css
+     */
+    public String url(String bundle) {
+        String url = urls.get(bundle);
+        if (url == null) {
+            throw new IllegalArgumentException("Unknown asset bundle: " + bundle);
+        }
+        return url;
+    }
+
+    public Map<String, String> getUrls() {
+        return urls;
+    }
+
+    /**
+     * Holds only the fingerprinted bundles, the directory served as /assets/
+     */
+    public Path getBundleDirectory() {
+        return bundleDirectory;
+    }
+
+    byte[] build(String name, List<String> sources) throws IOException {
+        if (name.endsWith(".css")) {
+            return buildCss(sources);
+        }
+        if (name.endsWith(".js")) {
+            StringBuilder bundle = new StringBuilder();
+            for (String source : sources) {
+                // A file without a trailing semicolon must not run into the next one
+                bundle.append("/* ").append(source).append(" */\n").append(read(source)).append("\n;\n");
+            }
+            return bundle.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        throw new IllegalStateException("Asset bundle " + name + " is neither .css nor .js");
+    }
+
+    /**
+     * Browsers ignore @import anywhere but at the top of a stylesheet, so
+     * imports of other sources are inlined once, at their first import, and all
+     * remaining ones move to the start of the bundle
+     */
+    private byte[] buildCss(List<String> sources) throws IOException {
+        Set<String> imports = new LinkedHashSet<>();
+        Set<String> included = new HashSet<>();
+        StringBuilder body = new StringBuilder();
+        for (String source : sources) {
+            appendCss(source, imports, included, body);
+        }
+        StringBuilder bundle = new StringBuilder();
+        imports.forEach(statement -> bundle.append(statement).append('\n'));
+        return bundle.append(body).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void appendCss(String source, Set<String> imports, Set<String> included, StringBuilder body)
+            throws IOException {
+        if (!included.add(source)) {
+            return;
+        }
+        String css = read(source);
+        Matcher matcher = CSS_IMPORT.matcher(css);
+        StringBuilder rest = new StringBuilder();
+        while (matcher.find()) {
+            String target = importTarget(matcher);
+            matcher.appendReplacement(rest, "");
+            if (target.contains("://") || target.startsWith("//")) {
+                imports.add(matcher.group().trim());
+                continue;
+            }
+            String resolved = Paths.get(source).resolveSibling(target).normalize().toString().replace('\\', '/');
+            if (!matcher.group(6).isBlank()) {
+                imports.add("@import url(\"/" + resolved + "\") " + matcher.group(6).trim() + ";");
+            } else {
+                // Sources already included are skipped, the rules of one listed later move up to here
+                appendCss(resolved, imports, included, body);
+            }
+        }
+        matcher.appendTail(rest);
+        body.append("/* ").append(source).append(" */\n").append(rest).append('\n');
+    }
+
+    private static String importTarget(Matcher matcher) {
+        for (int group = 1; group <= 5; group++) {
+            if (matcher.group(group) != null) {
+                return matcher.group(group);
+            }
+        }
+        return "";
+    }
+
+    private String read(String source) throws IOException {
+        Resource resource = resourceLoader.getResource("classpath:static/" + source);
+        if (!resource.exists()) {
+            throw new IllegalStateException("Asset bundle source static/" + source + " does not exist");
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Writes {base}-{hash}.{extension} and its .gz unless they are there already, returns the file name
+    private String write(String name, byte[] content) throws IOException {
+        int dot = name.lastIndexOf('.');
+        String fileName = name.substring(0, dot) + "-" + hash(content) + name.substring(dot);
+        Path target = bundleDirectory.resolve(fileName);
+        if (!Files.exists(target)) {
+            byte[] gzipped = gzip(content);
+            // Tiny bundles can come out larger compressed
+            if (gzipped.length < content.length) {
+                writeAtomically(bundleDirectory.resolve(fileName + ".gz"), gzipped);
+            }
+            writeAtomically(target, content);
+        }
+        return fileName;
+    }
+
+    private void writeManifest() throws IOException {
+        writeAtomically(outputDirectory.resolve("manifest.json"),
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsBytes(urls));
+    }
+
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".asset", ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.app.auth;
+
+import com.ecommerce.app.model.ERole;
+import com.ecommerce.app.model.Role;
+import com.ecommerce.app.model.User;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * What handlers need to know about the signed-in user, copied off the entity
+ * so it can be cached and shared between requests. Immutable; a change to the
+ * user replaces it (see CurrentUserCache).
+ */
+public final class CurrentUser {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final Set<ERole> roles;
+
+    public CurrentUser(Long id, String username, String email, String firstName, String lastName, Set<ERole> roles) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.roles = Set.copyOf(roles);
+    }
+
+    public static CurrentUser of(User user) {
+        Set<ERole> roles = EnumSet.noneOf(ERole.class);
+        for (Role role : user.getRoles()) {
+            roles.add(role.getName());
+        }
+        return new CurrentUser(user.getId(), user.getUsername(), user.getEmail(),
+                user.getFirstName(), user.getLastName(), roles);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public Set<ERole> getRoles() {
+        return roles;
+    }
+
+    public boolean hasRole(ERole role) {
+        return roles.contains(role);
+    }
+
+    public boolean isAdmin() {
+        return roles.contains(ERole.ROLE_ADMIN);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.app.auth;
+
+import com.ecommerce.app.annotation.SessionUser;
+import com.ecommerce.app.model.User;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves CurrentUser parameters to the view of the signed-in user and
+ * {@code @SessionUser User} parameters to a reference to its entity, both null
+ * when nobody is signed in. Handlers check for null where they used to check
+ * the username in the session.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final CurrentUserHolder currentUserHolder;
+
+    public CurrentUserArgumentResolver(CurrentUserHolder currentUserHolder) {
+        this.currentUserHolder = currentUserHolder;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        return type == CurrentUser.class
+                || (type == User.class && parameter.hasParameterAnnotation(SessionUser.class));
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return parameter.getParameterType() == CurrentUser.class ? currentUserHolder.get() : currentUserHolder.getUser();
+    }
+}
@@ -0,0 +1,52 @@
+package com.ecommerce.app.auth;
+
+import com.ecommerce.app.catalog.CacheStats;
+import com.ecommerce.app.catalog.CatalogCache;
+import com.ecommerce.app.event.UserChangedEvent;
+import com.ecommerce.app.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Views of signed-in users by the user id their session holds, so resolving
+ * the current user does not load the entity and its roles on every request.
+ * UserServiceImpl evicts on every write and the entry is evicted again once
+ * the writing transaction commits, like the catalog caches; the time to live
+ * only bounds how long an idle session keeps its entry.
+ */
+@Component
+public class CurrentUserCache {
+
+    private final UserRepository userRepository;
+    private final CatalogCache<Long, CurrentUser> users;
+
+    public CurrentUserCache(UserRepository userRepository,
+                            @Value("${app.auth.current-user-cache.max-size:10000}") int maxSize,
+                            @Value("${app.auth.current-user-cache.ttl:30m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.users = new CatalogCache<>("current-users", maxSize, ttl);
+    }
+
+    /**
+     * The view of the user, null if there is no such user any more
+     */
+    public CurrentUser get(Long userId) {
+        return users.get(userId, id -> userRepository.findById(id).map(CurrentUser::of).orElse(null));
+    }
+
+    public void invalidate(Long userId) {
+        users.invalidate(userId);
+    }
+
+    public CacheStats stats() {
+        return users.stats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        users.invalidate(event.getUserId());
+    }
+}
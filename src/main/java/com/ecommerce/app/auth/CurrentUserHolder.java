@@ -0,0 +1,59 @@
+package com.ecommerce.app.auth;
+
+import com.ecommerce.app.model.User;
+import com.ecommerce.app.repository.UserRepository;
+import com.ecommerce.app.util.SessionHelper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * The signed-in user of the current request, looked up at most once per
+ * request from the user id in the session. getUser() hands services an
+ * uninitialized reference to the entity: carts, orders and the like only
+ * need its id, so no query runs unless a handler reads other fields, which
+ * then load through the request's open entity manager (open-in-view).
+ */
+@Component
+@RequestScope
+public class CurrentUserHolder {
+
+    private final HttpServletRequest request;
+    private final CurrentUserCache currentUserCache;
+    private final UserRepository userRepository;
+
+    private boolean resolved;
+    private CurrentUser currentUser;
+    private User user;
+
+    public CurrentUserHolder(HttpServletRequest request, CurrentUserCache currentUserCache,
+                             UserRepository userRepository) {
+        this.request = request;
+        this.currentUserCache = currentUserCache;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * The signed-in user, null if nobody is signed in or the user was removed since
+     */
+    public CurrentUser get() {
+        if (!resolved) {
+            HttpSession session = request.getSession(false);
+            Long userId = session != null ? SessionHelper.getCurrentUserId(session) : null;
+            currentUser = userId != null ? currentUserCache.get(userId) : null;
+            resolved = true;
+        }
+        return currentUser;
+    }
+
+    /**
+     * A reference to the signed-in user's entity, null if nobody is signed in
+     */
+    public User getUser() {
+        if (user == null && get() != null) {
+            user = userRepository.getReferenceById(currentUser.getId());
+        }
+        return user;
+    }
+}
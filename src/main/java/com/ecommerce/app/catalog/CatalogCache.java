@@ -0,0 +1,132 @@
+package com.ecommerce.app.catalog;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Small read-through cache with a size bound and a time to live.
+ * Entries are kept in access order and the least recently used one is
+ * dropped once maxSize is exceeded; expired entries are treated as misses.
+ * Loads run outside the lock, and a load that overlaps an invalidation of
+ * its key (or of everything) is returned to the caller but not stored, so a
+ * write is never hidden by a read that started before it. Invalidations are
+ * tracked per key only while a load of that key is running.
+ */
+public class CatalogCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final Map<K, Loads> loading = new HashMap<>();
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CatalogCache(String name, int maxSize, Duration ttl) {
+        this(name, maxSize, ttl, System::nanoTime);
+    }
+
+    CatalogCache(String name, int maxSize, Duration ttl, LongSupplier clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Cached value for the key, calling the loader on a miss.
+     * Null results are passed through and not cached.
+     */
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        long keyGeneration;
+        Loads loads;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && clock.getAsLong() - entry.loadedAt < ttlNanos) {
+                hits++;
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            loadGeneration = generation;
+            loads = loading.computeIfAbsent(key, k -> new Loads());
+            loads.running++;
+            keyGeneration = loads.generation;
+        }
+
+        V value = null;
+        try {
+            value = loader.apply(key);
+        } finally {
+            synchronized (this) {
+                if (--loads.running == 0) {
+                    loading.remove(key);
+                }
+                if (value != null && generation == loadGeneration && loads.generation == keyGeneration) {
+                    entries.put(key, new Entry<>(value, clock.getAsLong()));
+                    evictOverflow();
+                }
+            }
+        }
+        return value;
+    }
+
+    public synchronized void invalidate(K key) {
+        Loads loads = loading.get(key);
+        if (loads != null) {
+            loads.generation++;
+        }
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(name, entries.size(), maxSize, hits, misses, evictions);
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    // Loads of one key in progress, and how often the key was invalidated since the first of them started
+    private static final class Loads {
+        private int running;
+        private long generation;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.dto.ProductComparisonDTO;
+import com.ecommerce.app.event.CategoryChangedEvent;
+import com.ecommerce.app.event.ProductChangedEvent;
+import com.ecommerce.app.event.ProductsChangedEvent;
+import com.ecommerce.app.event.ProductsImportedEvent;
+import com.ecommerce.app.model.Category;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read-through caches in front of ProductService and CategoryService.
+ * Cached entities are detached with the associations the storefront reads
+ * already initialized. The services evict on every write; product and
+ * category entries are evicted again once the writing transaction commits,
+ * so a reader that raced the write cannot leave the old state behind.
+ * Product comparisons are dropped on any product or category change.
+ * Rendered page fragments are keyed by the ETag of what they show, so a
+ * change moves readers to new keys and the old entries age out; that includes
+ * category edits, which move the ETags of their products. Imports drop all
+ * fragments.
+ */
+@Component
+public class CatalogCaches {
+
+    public static final String ALL = "all";
+
+    private final CatalogCache<Long, Product> products;
+    private final CatalogCache<String, List<Category>> categories;
+    private final CatalogCache<String, List<Tag>> tags;
+    private final CatalogCache<String, String> fragments;
+    private final CatalogCache<String, ProductComparisonDTO> comparisons;
+
+    public CatalogCaches(@Value("${app.catalog.cache.products.max-size:1000}") int productsMaxSize,
+                         @Value("${app.catalog.cache.products.ttl:10m}") Duration productsTtl,
+                         @Value("${app.catalog.cache.lists.ttl:30m}") Duration listsTtl,
+                         @Value("${app.catalog.cache.fragments.max-size:500}") int fragmentsMaxSize,
+                         @Value("${app.catalog.cache.comparisons.max-size:200}") int comparisonsMaxSize) {
+        this.products = new CatalogCache<>("products", productsMaxSize, productsTtl);
+        this.categories = new CatalogCache<>("categories", 1, listsTtl);
+        this.tags = new CatalogCache<>("tags", 1, listsTtl);
+        this.fragments = new CatalogCache<>("fragments", fragmentsMaxSize, listsTtl);
+        this.comparisons = new CatalogCache<>("comparisons", comparisonsMaxSize, listsTtl);
+    }
+
+    public CatalogCache<Long, Product> products() {
+        return products;
+    }
+
+    public CatalogCache<String, List<Category>> categories() {
+        return categories;
+    }
+
+    public CatalogCache<String, List<Tag>> tags() {
+        return tags;
+    }
+
+    /**
+     * Rendered HTML fragments, see CatalogFragments
+     */
+    public CatalogCache<String, String> fragments() {
+        return fragments;
+    }
+
+    /**
+     * Product comparisons keyed by the sorted ids, see ProductService#compareProducts
+     */
+    public CatalogCache<String, ProductComparisonDTO> comparisons() {
+        return comparisons;
+    }
+
+    public List<CacheStats> stats() {
+        return List.of(products.stats(), categories.stats(), tags.stats(), fragments.stats(), comparisons.stats());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        products.invalidate(event.getProductId());
+        comparisons.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        event.getProductIds().forEach(products::invalidate);
+        comparisons.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // Counters are read from the category tree, not from cached entities or comparisons
+        if (event.isCountersOnly()) {
+            return;
+        }
+        // Cached products carry their category, so they go too
+        categories.invalidateAll();
+        products.invalidateAll();
+        comparisons.invalidateAll();
+    }
+
+    // Imports can add tags and touch any product, which leaves every fragment key outdated
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        products.invalidateAll();
+        tags.invalidateAll();
+        fragments.invalidateAll();
+        comparisons.invalidateAll();
+    }
+}
@@ -0,0 +1,42 @@
+package com.ecommerce.app.catalog;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Renders user-independent parts of the storefront pages once and serves them
+ * from the fragments cache afterwards. Keys must carry a CatalogVersion ETag:
+ * entries are not evicted on catalog writes, a write moves the ETag and so
+ * the key, and the outdated entry is never read again.
+ * Fragments are rendered outside the request, so they must not use link
+ * expressions or anything tied to the session.
+ */
+@Component
+public class CatalogFragments {
+
+    // Key prefix of the product data embedded in detail pages
+    public static final String PRODUCT_DATA = "product-data:";
+
+    @Autowired
+    private SpringTemplateEngine templateEngine;
+
+    @Autowired
+    private CatalogCaches catalogCaches;
+
+    /**
+     * Cached HTML of one th:fragment, the variables are only computed on a miss
+     */
+    public String render(String key, String template, String fragment, Supplier<Map<String, Object>> variables) {
+        Locale locale = LocaleContextHolder.getLocale();
+        return catalogCaches.fragments().get(key + "|" + locale, k ->
+                templateEngine.process(template, Set.of(fragment), new Context(locale, variables.get())));
+    }
+}
@@ -0,0 +1,54 @@
+package com.ecommerce.app.catalog;
+
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Cache validators for one catalog response: a strong ETag and its Last-Modified time.
+ * The ETag is built from the timestamps (and counts, for listings) it was derived from,
+ * so equal values always describe the same stored state.
+ */
+public final class CatalogVersion {
+
+    private final String eTag;
+    private final long lastModified;
+
+    private CatalogVersion(String eTag, long lastModified) {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    static CatalogVersion of(String prefix, LocalDateTime first, LocalDateTime second, long... parts) {
+        long firstMillis = toMillis(first);
+        long secondMillis = toMillis(second);
+        StringBuilder tag = new StringBuilder("\"").append(prefix)
+                .append('-').append(Long.toString(firstMillis, 36))
+                .append('-').append(Long.toString(secondMillis, 36));
+        for (long part : parts) {
+            tag.append('-').append(Long.toString(part, 36));
+        }
+        return new CatalogVersion(tag.append('"').toString(), Math.max(firstMillis, secondMillis));
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Checks If-None-Match / If-Modified-Since and marks the response 304 when they match.
+     * Otherwise the validators are added to the response, so callers simply go on rendering.
+     */
+    public boolean isNotModified(WebRequest request) {
+        return request.checkNotModified(eTag, lastModified);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+    }
+}
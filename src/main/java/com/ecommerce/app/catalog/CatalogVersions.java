@@ -0,0 +1,72 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.repository.CategoryRepository;
+import com.ecommerce.app.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Looks up the validators for catalog responses with one narrow query each, so a
+ * conditional GET can be answered with 304 before any entity is loaded or mapped.
+ * Products and categories carry an updatedAt that every write moves, category product
+ * counters a countsUpdatedAt of their own; listings add the row count so deletions
+ * change the ETag as well.
+ */
+@Component
+public class CatalogVersions {
+
+    // Rendered pages also change with the templates, which only change on a restart
+    private final long startedAt = System.currentTimeMillis();
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    /**
+     * Validators for a single product as served by the API, empty if the product does not exist
+     */
+    public Optional<CatalogVersion> product(Long id) {
+        return productVersion("product-" + id, id);
+    }
+
+    /**
+     * Validators for the rendered product detail page
+     */
+    public Optional<CatalogVersion> productPage(Long id) {
+        return productVersion("product-page-" + id, id, startedAt);
+    }
+
+    /**
+     * Validators for product listings, which also show category names
+     */
+    public CatalogVersion products() {
+        Object[] products = productRepository.findListingVersion().get(0);
+        Object[] categories = categoryRepository.findListingVersion().get(0);
+        return CatalogVersion.of("products", (LocalDateTime) products[0], (LocalDateTime) categories[0],
+                (Long) products[1], (Long) categories[1]);
+    }
+
+    /**
+     * Validators for the category listing, which also shows the product counters
+     */
+    public CatalogVersion categories() {
+        Object[] categories = categoryRepository.findListingVersion().get(0);
+        return CatalogVersion.of("categories", (LocalDateTime) categories[0], (LocalDateTime) categories[2],
+                (Long) categories[1]);
+    }
+
+    private Optional<CatalogVersion> productVersion(String prefix, Long id, long... parts) {
+        List<Object[]> rows = productRepository.findVersionById(id);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+        return Optional.of(CatalogVersion.of(prefix, (LocalDateTime) row[0], (LocalDateTime) row[1], parts));
+    }
+}
@@ -0,0 +1,249 @@
+package com.ecommerce.app.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the category hierarchy.
+ * Each node carries its materialized path ("/1/4/9/"), the same value
+ * stored in categories.path, so a subtree is a single prefix match.
+ * Readers share one instance; changes build a new snapshot instead of
+ * mutating this one.
+ */
+public final class CategoryTree {
+
+    public static final CategoryTree EMPTY = new CategoryTree(Collections.emptyList());
+
+    private final Map<Long, Node> byId;
+    private final List<Node> roots;
+    private final List<Node> nodes;
+
+    private CategoryTree(List<Row> rows) {
+        Map<Long, Row> rowsById = new LinkedHashMap<>();
+        for (Row row : rows) {
+            rowsById.put(row.id, row);
+        }
+
+        Map<Long, List<Row>> childRows = new HashMap<>();
+        List<Row> rootRows = new ArrayList<>();
+        for (Row row : rowsById.values()) {
+            // Missing parents and cycles in bad data are treated as roots rather than dropped
+            if (row.parentId == null || !rowsById.containsKey(row.parentId) || inCycle(row, rowsById)) {
+                rootRows.add(row);
+            } else {
+                childRows.computeIfAbsent(row.parentId, id -> new ArrayList<>()).add(row);
+            }
+        }
+
+        Map<Long, Node> index = new HashMap<>();
+        List<Node> preorder = new ArrayList<>();
+        List<Node> rootNodes = new ArrayList<>();
+        for (Row row : rootRows) {
+            rootNodes.add(build(row, null, 0, "/", childRows, index, preorder));
+        }
+
+        this.byId = Collections.unmodifiableMap(index);
+        this.roots = Collections.unmodifiableList(rootNodes);
+        this.nodes = Collections.unmodifiableList(preorder);
+    }
+
+    /**
+     * Snapshot of the given categories
+     * @param rows one row per category, in the order siblings should be listed
+     */
+    public static CategoryTree of(List<Row> rows) {
+        return rows.isEmpty() ? EMPTY : new CategoryTree(rows);
+    }
+
+    private static Node build(Row row, Long parentId, int depth, String parentPath,
+                              Map<Long, List<Row>> childRows, Map<Long, Node> index, List<Node> preorder) {
+        String path = parentPath + row.id + "/";
+        // Children are built first for the subtree count, the slot keeps the parent ahead of them
+        int position = preorder.size();
+        preorder.add(null);
+
+        List<Node> children = new ArrayList<>();
+        int subtreeActive = row.activeProductCount;
+        for (Row child : childRows.getOrDefault(row.id, Collections.emptyList())) {
+            Node childNode = build(child, row.id, depth + 1, path, childRows, index, preorder);
+            children.add(childNode);
+            subtreeActive += childNode.subtreeActiveProductCount;
+        }
+
+        Node node = new Node(row.id, row.name, parentId, depth, path, Collections.unmodifiableList(children),
+                row.productCount, row.activeProductCount, subtreeActive);
+        index.put(node.id, node);
+        preorder.set(position, node);
+        return node;
+    }
+
+    private static boolean inCycle(Row row, Map<Long, Row> rowsById) {
+        Set<Long> seen = new HashSet<>();
+        Row current = row;
+        while (current != null && current.parentId != null) {
+            if (!seen.add(current.id)) {
+                return true;
+            }
+            current = rowsById.get(current.parentId);
+        }
+        return false;
+    }
+
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    /**
+     * All nodes in depth-first order, parents before their children
+     */
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public Optional<Node> find(Long id) {
+        return Optional.ofNullable(id != null ? byId.get(id) : null);
+    }
+
+    /**
+     * The category and everything below it, empty for an unknown id
+     */
+    public List<Long> descendantIds(Long id) {
+        List<Long> ids = new ArrayList<>();
+        find(id).ifPresent(node -> collect(node, ids));
+        return ids;
+    }
+
+    /**
+     * Breadcrumb from the root down to and including the category
+     */
+    public List<Node> ancestors(Long id) {
+        List<Node> path = new ArrayList<>();
+        Node node = byId.get(id);
+        while (node != null) {
+            path.add(0, node);
+            node = node.parentId != null ? byId.get(node.parentId) : null;
+        }
+        return path;
+    }
+
+    /**
+     * Whether candidate is ancestor itself or lies below it
+     */
+    public boolean isInSubtree(Long ancestorId, Long candidateId) {
+        Node ancestor = byId.get(ancestorId);
+        Node candidate = byId.get(candidateId);
+        return ancestor != null && candidate != null && candidate.path.startsWith(ancestor.path);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    private static void collect(Node node, List<Long> ids) {
+        ids.add(node.id);
+        for (Node child : node.children) {
+            collect(child, ids);
+        }
+    }
+
+    /**
+     * Input row: a category id, its name, its parent id (null for a root) and its product counters
+     */
+    public static final class Row {
+        private final Long id;
+        private final String name;
+        private final Long parentId;
+        private final int productCount;
+        private final int activeProductCount;
+
+        public Row(Long id, String name, Long parentId) {
+            this(id, name, parentId, null, null);
+        }
+
+        public Row(Long id, String name, Long parentId, Integer productCount, Integer activeProductCount) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+            this.productCount = productCount != null ? productCount : 0;
+            this.activeProductCount = activeProductCount != null ? activeProductCount : 0;
+        }
+    }
+
+    public static final class Node {
+        private final Long id;
+        private final String name;
+        private final Long parentId;
+        private final int depth;
+        private final String path;
+        private final List<Node> children;
+        private final int productCount;
+        private final int activeProductCount;
+        private final int subtreeActiveProductCount;
+
+        private Node(Long id, String name, Long parentId, int depth, String path, List<Node> children,
+                     int productCount, int activeProductCount, int subtreeActiveProductCount) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+            this.depth = depth;
+            this.path = path;
+            this.children = children;
+            this.productCount = productCount;
+            this.activeProductCount = activeProductCount;
+            this.subtreeActiveProductCount = subtreeActiveProductCount;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Long getParentId() {
+            return parentId;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        /**
+         * Products assigned directly to this category, active or not
+         */
+        public int getProductCount() {
+            return productCount;
+        }
+
+        public int getActiveProductCount() {
+            return activeProductCount;
+        }
+
+        /**
+         * Active products in this category and all of its descendants, as listed on its page
+         */
+        public int getSubtreeActiveProductCount() {
+            return subtreeActiveProductCount;
+        }
+
+        public boolean isLeaf() {
+            return children.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.event.CategoryChangedEvent;
+import com.ecommerce.app.event.ProductsImportedEvent;
+import com.ecommerce.app.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the current CategoryTree snapshot, including the per-category product counters.
+ * The whole tree is rebuilt from one query on every category or counter change and
+ * swapped in with a single volatile write, so readers always see either
+ * the old or the new hierarchy, never a half-updated one.
+ */
+@Component
+public class CategoryTreeIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeIndex.class);
+
+    private final CategoryRepository categoryRepository;
+
+    private volatile CategoryTree tree = CategoryTree.EMPTY;
+
+    public CategoryTreeIndex(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    public CategoryTree getTree() {
+        return tree;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void rebuild() {
+        List<CategoryTree.Row> rows = categoryRepository.findTreeRows().stream()
+                .map(row -> new CategoryTree.Row((Long) row[0], (String) row[1], (Long) row[2],
+                        (Integer) row[4], (Integer) row[5]))
+                .collect(Collectors.toList());
+        tree = CategoryTree.of(rows);
+        logger.debug("Category tree rebuilt with {} categories", rows.size());
+    }
+
+    // Ahead of the listeners that read the tree for the same change
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        rebuild();
+    }
+}
@@ -0,0 +1,442 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.event.OrderPlacedEvent;
+import com.ecommerce.app.repository.OrderItemRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Frequently bought together" counters: for every product, in how many orders
+ * it appeared with each other product. The matrix is sparse and bounded, each
+ * product keeps a row of at most 2 x size partner ordinals and counts in int
+ * arrays. A full row replaces its smallest counter and adds to it (the
+ * Space-Saving scheme), so the partners that matter stay and their counts are
+ * overestimated by at most what was evicted.
+ * New orders are folded in as they commit. The rows they changed are written
+ * to co_purchases together with the last order they include, every few orders
+ * and on shutdown, so a snapshot costs what changed since the previous one;
+ * a restart loads the snapshot and only replays newer orders.
+ */
+@Component
+public class CoPurchaseIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoPurchaseIndex.class);
+
+    // Orders with more distinct products than this are bulk purchases and say little about affinity
+    static final int MAX_ORDER_PRODUCTS = 50;
+
+    // Orders replayed per query on startup
+    private static final long ORDER_ID_WINDOW = 1000;
+
+    private static final long CHECKPOINT_ID = 1L;
+
+    private final OrderItemRepository orderItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    private final int size;
+    private final int snapshotEvery;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Matrix matrix;
+    private int ordersSinceSnapshot;
+
+    // Orders placed while the snapshot is being loaded, applied once it is swapped in
+    private boolean loading;
+    private final List<OrderPlacedEvent> placedWhileLoading = new ArrayList<>();
+
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+
+    public CoPurchaseIndex(OrderItemRepository orderItemRepository, JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager, TaskExecutor taskExecutor,
+                           @Value("${app.catalog.co-purchase.size:8}") int size,
+                           @Value("${app.catalog.co-purchase.snapshot-every:200}") int snapshotEvery) {
+        this.orderItemRepository = orderItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+        this.taskExecutor = taskExecutor;
+        this.size = size;
+        this.snapshotEvery = snapshotEvery;
+        this.matrix = new Matrix(2 * size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleLoad() {
+        taskExecutor.execute(this::load);
+    }
+
+    /**
+     * Loads the last snapshot and replays the orders placed after it
+     */
+    public void load() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            loading = true;
+            placedWhileLoading.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Matrix loaded = new Matrix(2 * size);
+        long replayed = 0;
+        boolean complete = false;
+        try {
+            long checkpoint = readSnapshot(loaded);
+            Long maxOrderId = orderItemRepository.findMaxOrderId();
+            long upTo = maxOrderId != null ? maxOrderId : 0;
+            replayed = replay(loaded, checkpoint, upTo);
+            complete = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // On failure the current counters are kept and the queued orders still applied
+                if (complete) {
+                    matrix = loaded;
+                }
+                for (OrderPlacedEvent event : placedWhileLoading) {
+                    if (!complete || event.getOrderId() > loaded.replayedUpTo) {
+                        matrix.addOrder(event.getOrderId(), event.getProductIds());
+                        ordersSinceSnapshot++;
+                    }
+                }
+                loading = false;
+                placedWhileLoading.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        if (!complete) {
+            return;
+        }
+        logger.info("Co-purchase counters loaded for {} products, {} orders replayed, in {} ms",
+                loaded.ordinalById.size(), replayed, System.currentTimeMillis() - start);
+        if (replayed > 0) {
+            snapshot();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        boolean due;
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                placedWhileLoading.add(event);
+                return;
+            }
+            matrix.addOrder(event.getOrderId(), event.getProductIds());
+            due = ++ordersSinceSnapshot >= snapshotEvery;
+            if (due) {
+                ordersSinceSnapshot = 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (due) {
+            taskExecutor.execute(this::snapshot);
+        }
+    }
+
+    /**
+     * Products most often bought together with the given ones, excluding them, most frequent first
+     */
+    public List<Long> boughtTogether(Collection<Long> productIds, int limit) {
+        lock.readLock().lock();
+        try {
+            return matrix.top(productIds, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        boolean changed;
+        lock.readLock().lock();
+        try {
+            // Also covers a snapshot that was due but is still waiting in the executor
+            changed = matrix.hasChanges();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (changed) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Writes the rows changed since the last snapshot over their stored copies
+     */
+    public void snapshot() {
+        if (!snapshotRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Matrix source = null;
+        BitSet taken = null;
+        try {
+            List<Object[]> productIds;
+            List<Object[]> rows;
+            long lastOrderId;
+            lock.writeLock().lock();
+            try {
+                source = matrix;
+                taken = matrix.takeChanges();
+                productIds = matrix.productIds(taken);
+                rows = matrix.rows(taken);
+                lastOrderId = matrix.lastOrderId;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            transactionTemplate.executeWithoutResult(status -> {
+                // A full row may have replaced partners, so a changed row is rewritten as a whole
+                jdbcTemplate.batchUpdate("DELETE FROM co_purchases WHERE product_id = ?", productIds);
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO co_purchases (product_id, partner_id, order_count) VALUES (?, ?, ?)", rows);
+                int updated = jdbcTemplate.update(
+                        "UPDATE co_purchase_checkpoints SET last_order_id = ?, saved_at = ? WHERE id = ?",
+                        lastOrderId, now, CHECKPOINT_ID);
+                if (updated == 0) {
+                    jdbcTemplate.update(
+                            "INSERT INTO co_purchase_checkpoints (id, last_order_id, saved_at) VALUES (?, ?, ?)",
+                            CHECKPOINT_ID, lastOrderId, now);
+                }
+            });
+            logger.debug("Co-purchase snapshot saved with {} changed products up to order {}",
+                    productIds.size(), lastOrderId);
+        } catch (RuntimeException e) {
+            logger.warn("Could not save the co-purchase snapshot", e);
+            if (taken != null) {
+                lock.writeLock().lock();
+                try {
+                    // Left for the next snapshot, unless a reload replaced the counters meanwhile
+                    if (matrix == source) {
+                        source.markChanged(taken);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            snapshotRunning.set(false);
+        }
+    }
+
+    // Returns the last order id the snapshot includes, 0 without a snapshot
+    private long readSnapshot(Matrix target) {
+        List<Long> checkpoint = jdbcTemplate.queryForList(
+                "SELECT last_order_id FROM co_purchase_checkpoints WHERE id = ?", Long.class, CHECKPOINT_ID);
+        if (checkpoint.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.query("SELECT product_id, partner_id, order_count FROM co_purchases", rs -> {
+            target.add(rs.getLong(1), rs.getLong(2), rs.getInt(3));
+        });
+        target.lastOrderId = checkpoint.get(0);
+        return checkpoint.get(0);
+    }
+
+    // Streams the order items after the checkpoint through the matrix, one window of order ids at a time
+    private long replay(Matrix target, long afterOrderId, long upToOrderId) {
+        long replayed = 0;
+        for (long from = afterOrderId; from < upToOrderId; from += ORDER_ID_WINDOW) {
+            long to = Math.min(from + ORDER_ID_WINDOW, upToOrderId);
+            Long orderId = null;
+            List<Long> products = new ArrayList<>();
+            for (Object[] row : orderItemRepository.findOrderProductsBetween(from, to)) {
+                if (orderId != null && !orderId.equals(row[0])) {
+                    target.addOrder(orderId, products);
+                    products.clear();
+                    replayed++;
+                }
+                orderId = (Long) row[0];
+                products.add((Long) row[1]);
+            }
+            if (orderId != null) {
+                target.addOrder(orderId, products);
+                replayed++;
+            }
+        }
+        target.replayedUpTo = Math.max(target.replayedUpTo, upToOrderId);
+        target.lastOrderId = Math.max(target.lastOrderId, upToOrderId);
+        return replayed;
+    }
+
+    /**
+     * The counters themselves. Ordinals are never retired, products only gain partners.
+     */
+    static final class Matrix {
+
+        private final int capacity;
+        private final Map<Long, Integer> ordinalById = new HashMap<>();
+        private long[] idByOrdinal = new long[16];
+        private int[][] partners = new int[16][];
+        private int[][] counts = new int[16][];
+        private int[] rowSizes = new int[16];
+        private int ordinals;
+
+        // Rows changed by orders since the last snapshot took them, rows loaded from it are not
+        private final BitSet changed = new BitSet();
+
+        private long lastOrderId;
+        // Orders up to this id were read from order_items, their events must not count again
+        private long replayedUpTo;
+
+        Matrix(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void addOrder(Long orderId, List<Long> productIds) {
+            lastOrderId = Math.max(lastOrderId, orderId);
+            Set<Long> distinct = new LinkedHashSet<>(productIds);
+            if (distinct.size() < 2 || distinct.size() > MAX_ORDER_PRODUCTS) {
+                return;
+            }
+            int[] ordinals = distinct.stream().mapToInt(this::ordinalFor).toArray();
+            for (int row : ordinals) {
+                changed.set(row);
+                for (int partner : ordinals) {
+                    if (row != partner) {
+                        increment(row, partner, 1);
+                    }
+                }
+            }
+        }
+
+        void add(long productId, long partnerId, int count) {
+            increment(ordinalFor(productId), ordinalFor(partnerId), count);
+        }
+
+        private void increment(int row, int partner, int by) {
+            int[] rowPartners = partners[row];
+            int[] rowCounts = counts[row];
+            int used = rowSizes[row];
+            for (int i = 0; i < used; i++) {
+                if (rowPartners[i] == partner) {
+                    rowCounts[i] += by;
+                    return;
+                }
+            }
+            if (used < capacity) {
+                rowPartners[used] = partner;
+                rowCounts[used] = by;
+                rowSizes[row] = used + 1;
+                return;
+            }
+            int smallest = 0;
+            for (int i = 1; i < used; i++) {
+                if (rowCounts[i] < rowCounts[smallest]) {
+                    smallest = i;
+                }
+            }
+            rowPartners[smallest] = partner;
+            rowCounts[smallest] += by;
+        }
+
+        private int ordinalFor(Long productId) {
+            Integer ordinal = ordinalById.get(productId);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            if (ordinals == idByOrdinal.length) {
+                int grown = ordinals * 2;
+                idByOrdinal = Arrays.copyOf(idByOrdinal, grown);
+                partners = Arrays.copyOf(partners, grown);
+                counts = Arrays.copyOf(counts, grown);
+                rowSizes = Arrays.copyOf(rowSizes, grown);
+            }
+            ordinal = ordinals++;
+            ordinalById.put(productId, ordinal);
+            idByOrdinal[ordinal] = productId;
+            partners[ordinal] = new int[capacity];
+            counts[ordinal] = new int[capacity];
+            return ordinal;
+        }
+
+        // Counts summed over the rows of all given products
+        List<Long> top(Collection<Long> productIds, int limit) {
+            Set<Integer> own = new LinkedHashSet<>();
+            for (Long productId : productIds) {
+                Integer ordinal = ordinalById.get(productId);
+                if (ordinal != null) {
+                    own.add(ordinal);
+                }
+            }
+            Map<Integer, Integer> totals = new HashMap<>();
+            for (int row : own) {
+                for (int i = 0; i < rowSizes[row]; i++) {
+                    if (!own.contains(partners[row][i])) {
+                        totals.merge(partners[row][i], counts[row][i], Integer::sum);
+                    }
+                }
+            }
+            List<Long> ids = new ArrayList<>(Math.min(limit, totals.size()));
+            totals.entrySet().stream()
+                    .sorted((a, b) -> a.getValue().equals(b.getValue())
+                            ? Integer.compare(a.getKey(), b.getKey())
+                            : Integer.compare(b.getValue(), a.getValue()))
+                    .limit(limit)
+                    .forEach(entry -> ids.add(idByOrdinal[entry.getKey()]));
+            return ids;
+        }
+
+        boolean hasChanges() {
+            return !changed.isEmpty();
+        }
+
+        // The changed row ordinals, which count as unchanged from here on
+        BitSet takeChanges() {
+            BitSet taken = (BitSet) changed.clone();
+            changed.clear();
+            return taken;
+        }
+
+        void markChanged(BitSet rows) {
+            changed.or(rows);
+        }
+
+        // Rows of [productId] for the given row ordinals
+        List<Object[]> productIds(BitSet rowOrdinals) {
+            List<Object[]> ids = new ArrayList<>(rowOrdinals.cardinality());
+            rowOrdinals.stream().forEach(row -> ids.add(new Object[]{idByOrdinal[row]}));
+            return ids;
+        }
+
+        // Rows of [productId, partnerId, orders] of the given row ordinals, for the snapshot
+        List<Object[]> rows(BitSet rowOrdinals) {
+            List<Object[]> rows = new ArrayList<>();
+            rowOrdinals.stream().forEach(row -> {
+                for (int i = 0; i < rowSizes[row]; i++) {
+                    rows.add(new Object[]{idByOrdinal[row], idByOrdinal[partners[row][i]], counts[row][i]});
+                }
+            });
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.app.catalog;
+
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-value product counts for the catalog sidebar.
+ * Each facet is counted against the selection of all other facets, so
+ * picking a category does not hide the remaining categories.
+ */
+@Data
+public class FacetCounts {
+    private int total;
+    private Map<Long, Integer> categories = new LinkedHashMap<>();
+    private Map<Long, String> categoryNames = new LinkedHashMap<>();
+    private Map<Long, Integer> tags = new LinkedHashMap<>();
+    private Map<Long, String> tagNames = new LinkedHashMap<>();
+    private Map<PriceBand, Integer> priceBands = new EnumMap<>(PriceBand.class);
+    private Map<Integer, Integer> ratings = new LinkedHashMap<>();
+    private int inStock;
+}
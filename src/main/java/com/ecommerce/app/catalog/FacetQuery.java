@@ -0,0 +1,35 @@
+package com.ecommerce.app.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Facet selection for catalog browsing.
+ * Values inside one facet are OR-ed, different facets are AND-ed.
+ * Tags can be switched to AND semantics with matchAllTags.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetQuery {
+    @Builder.Default
+    private List<Long> categoryIds = new ArrayList<>();
+    @Builder.Default
+    private List<Long> tagIds = new ArrayList<>();
+    private boolean matchAllTags;
+    @Builder.Default
+    private List<PriceBand> priceBands = new ArrayList<>();
+    // 1-4, products rated at least this many stars
+    private Integer minRating;
+    private boolean inStockOnly;
+
+    public static FacetQuery all() {
+        return FacetQuery.builder().build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.app.catalog;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed price ranges used for faceted browsing. Upper bounds are exclusive.
+ */
+public enum PriceBand {
+    UNDER_100("under-100", "Under $100", null, 100),
+    FROM_100_TO_250("100-250", "$100 - $250", 100, 250),
+    FROM_250_TO_500("250-500", "$250 - $500", 250, 500),
+    FROM_500_TO_1000("500-1000", "$500 - $1,000", 500, 1000),
+    OVER_1000("over-1000", "Over $1,000", 1000, null);
+
+    private final String key;
+    private final String label;
+    private final BigDecimal min;
+    private final BigDecimal max;
+
+    PriceBand(String key, String label, Integer min, Integer max) {
+        this.key = key;
+        this.label = label;
+        this.min = min != null ? BigDecimal.valueOf(min) : null;
+        this.max = max != null ? BigDecimal.valueOf(max) : null;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean contains(BigDecimal price) {
+        if (price == null) {
+            return false;
+        }
+        return (min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) < 0);
+    }
+
+    public static PriceBand of(BigDecimal price) {
+        for (PriceBand band : values()) {
+            if (band.contains(price)) {
+                return band;
+            }
+        }
+        return null;
+    }
+
+    // Unknown keys are ignored rather than rejected
+    public static List<PriceBand> fromKeys(List<String> keys) {
+        List<PriceBand> bands = new ArrayList<>();
+        if (keys == null) {
+            return bands;
+        }
+        for (String key : keys) {
+            for (PriceBand band : values()) {
+                if (band.key.equalsIgnoreCase(key)) {
+                    bands.add(band);
+                }
+            }
+        }
+        return bands;
+    }
+}
@@ -0,0 +1,371 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.event.ProductChangedEvent;
+import com.ecommerce.app.event.ProductsChangedEvent;
+import com.ecommerce.app.event.ProductsImportedEvent;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.Tag;
+import com.ecommerce.app.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap facet index over the active catalog.
+ * Every product gets a dense ordinal and each facet value keeps a BitSet of
+ * ordinals, so any combination of filters and the sidebar counts reduce to
+ * AND/OR/cardinality operations instead of SQL.
+ */
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    static final int MAX_RATING_BAND = 4;
+
+    private final ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinalById = new HashMap<>();
+    private final List<Long> idByOrdinal = new ArrayList<>();
+    private final List<BigDecimal> priceByOrdinal = new ArrayList<>();
+    private final List<String> nameByOrdinal = new ArrayList<>();
+
+    private final BitSet live = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<Long, BitSet> byCategory = new TreeMap<>();
+    private final Map<Long, BitSet> byTag = new TreeMap<>();
+    private final Map<PriceBand, BitSet> byPriceBand = new EnumMap<>(PriceBand.class);
+    // byMinRating[n] holds products averaging at least n stars
+    private final BitSet[] byMinRating = new BitSet[MAX_RATING_BAND + 1];
+
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    private final Map<Long, String> tagNames = new HashMap<>();
+
+    public ProductFacetIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+        for (PriceBand band : PriceBand.values()) {
+            byPriceBand.put(band, new BitSet());
+        }
+        for (int i = 1; i <= MAX_RATING_BAND; i++) {
+            byMinRating[i] = new BitSet();
+        }
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Product> products = productRepository.findAllWithCategoryAndTags();
+
+        lock.writeLock().lock();
+        try {
+            clear();
+            products.sort(Comparator.comparing(Product::getId));
+            for (Product product : products) {
+                index(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Facet index built for {} active products in {} ms",
+                live.cardinality(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Product product = event.isDeleted() ? null
+                : productRepository.findWithCategoryAndTagsById(event.getProductId()).orElse(null);
+
+        lock.writeLock().lock();
+        try {
+            if (product == null) {
+                remove(event.getProductId());
+            } else {
+                index(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        for (List<Long> batch : event.batches()) {
+            List<Product> products = productRepository.findWithCategoryAndTagsByIdIn(batch);
+            lock.writeLock().lock();
+            try {
+                products.forEach(this::index);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Product ids matching the query, ordered by the requested sort.
+     * Supported sort properties are price, name and id; anything else falls back to id.
+     */
+    public List<Long> filter(FacetQuery query, Sort sort) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = combine(categorySelection(query), tagSelection(query), priceSelection(query),
+                    ratingSelection(query), stockSelection(query));
+
+            List<Integer> ordinals = new ArrayList<>(matches.cardinality());
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                ordinals.add(i);
+            }
+            ordinals.sort(comparator(sort));
+
+            List<Long> ids = new ArrayList<>(ordinals.size());
+            for (Integer ordinal : ordinals) {
+                ids.add(idByOrdinal.get(ordinal));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts for every facet value given the current selection
+     */
+    public FacetCounts counts(FacetQuery query) {
+        lock.readLock().lock();
+        try {
+            BitSet category = categorySelection(query);
+            BitSet tag = tagSelection(query);
+            BitSet price = priceSelection(query);
+            BitSet rating = ratingSelection(query);
+            BitSet stock = stockSelection(query);
+
+            FacetCounts counts = new FacetCounts();
+            counts.setTotal(combine(category, tag, price, rating, stock).cardinality());
+
+            BitSet base = combine(tag, price, rating, stock);
+            for (Map.Entry<Long, BitSet> entry : byCategory.entrySet()) {
+                counts.getCategories().put(entry.getKey(), intersectionSize(entry.getValue(), base));
+                counts.getCategoryNames().put(entry.getKey(), categoryNames.get(entry.getKey()));
+            }
+
+            base = combine(category, price, rating, stock);
+            for (Map.Entry<Long, BitSet> entry : byTag.entrySet()) {
+                counts.getTags().put(entry.getKey(), intersectionSize(entry.getValue(), base));
+                counts.getTagNames().put(entry.getKey(), tagNames.get(entry.getKey()));
+            }
+
+            base = combine(category, tag, rating, stock);
+            for (Map.Entry<PriceBand, BitSet> entry : byPriceBand.entrySet()) {
+                counts.getPriceBands().put(entry.getKey(), intersectionSize(entry.getValue(), base));
+            }
+
+            base = combine(category, tag, price, stock);
+            for (int i = MAX_RATING_BAND; i >= 1; i--) {
+                counts.getRatings().put(i, intersectionSize(byMinRating[i], base));
+            }
+
+            counts.setInStock(intersectionSize(inStock, combine(category, tag, price, rating)));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller must hold the write lock. A re-indexed product keeps its ordinal.
+    void index(Product product) {
+        Integer ordinal = ordinalById.get(product.getId());
+        if (ordinal != null) {
+            clearBits(ordinal);
+        }
+        if (!product.isActive()) {
+            return;
+        }
+
+        BigDecimal price = product.getSalePrice() != null ? product.getSalePrice() : product.getPrice();
+        String name = product.getName() != null ? product.getName().toLowerCase() : "";
+        if (ordinal == null) {
+            ordinal = idByOrdinal.size();
+            ordinalById.put(product.getId(), ordinal);
+            idByOrdinal.add(product.getId());
+            priceByOrdinal.add(price);
+            nameByOrdinal.add(name);
+        } else {
+            priceByOrdinal.set(ordinal, price);
+            nameByOrdinal.set(ordinal, name);
+        }
+
+        live.set(ordinal);
+        if (product.getStockQuantity() != null && product.getStockQuantity() > 0) {
+            inStock.set(ordinal);
+        }
+        if (product.getCategory() != null && product.getCategory().getId() != null) {
+            Long categoryId = product.getCategory().getId();
+            byCategory.computeIfAbsent(categoryId, id -> new BitSet()).set(ordinal);
+            categoryNames.put(categoryId, product.getCategory().getName());
+        }
+        if (product.getTags() != null) {
+            for (Tag tag : product.getTags()) {
+                byTag.computeIfAbsent(tag.getId(), id -> new BitSet()).set(ordinal);
+                tagNames.put(tag.getId(), tag.getName());
+            }
+        }
+        PriceBand band = PriceBand.of(price);
+        if (band != null) {
+            byPriceBand.get(band).set(ordinal);
+        }
+        double averageRating = product.getAverageRating();
+        for (int i = 1; i <= MAX_RATING_BAND && averageRating >= i; i++) {
+            byMinRating[i].set(ordinal);
+        }
+    }
+
+    // Caller must hold the write lock. The ordinal is retired, not reused, until the next rebuild.
+    void remove(Long productId) {
+        Integer ordinal = ordinalById.remove(productId);
+        if (ordinal != null) {
+            clearBits(ordinal);
+        }
+    }
+
+    private void clearBits(int ordinal) {
+        live.clear(ordinal);
+        inStock.clear(ordinal);
+        byCategory.values().forEach(bits -> bits.clear(ordinal));
+        byTag.values().forEach(bits -> bits.clear(ordinal));
+        byPriceBand.values().forEach(bits -> bits.clear(ordinal));
+        for (int i = 1; i <= MAX_RATING_BAND; i++) {
+            byMinRating[i].clear(ordinal);
+        }
+        byCategory.values().removeIf(BitSet::isEmpty);
+        byTag.values().removeIf(BitSet::isEmpty);
+    }
+
+    private void clear() {
+        ordinalById.clear();
+        idByOrdinal.clear();
+        priceByOrdinal.clear();
+        nameByOrdinal.clear();
+        live.clear();
+        inStock.clear();
+        byCategory.clear();
+        byTag.clear();
+        byPriceBand.values().forEach(BitSet::clear);
+        for (int i = 1; i <= MAX_RATING_BAND; i++) {
+            byMinRating[i].clear();
+        }
+        categoryNames.clear();
+        tagNames.clear();
+    }
+
+    // A null selection means the facet is not constrained
+    private BitSet categorySelection(FacetQuery query) {
+        return union(byCategory, query.getCategoryIds());
+    }
+
+    private BitSet tagSelection(FacetQuery query) {
+        List<Long> tagIds = query.getTagIds();
+        if (tagIds == null || tagIds.isEmpty() || !query.isMatchAllTags()) {
+            return union(byTag, tagIds);
+        }
+        BitSet result = null;
+        for (Long tagId : tagIds) {
+            BitSet bits = byTag.get(tagId);
+            if (bits == null) {
+                return new BitSet();
+            }
+            if (result == null) {
+                result = (BitSet) bits.clone();
+            } else {
+                result.and(bits);
+            }
+        }
+        return result;
+    }
+
+    private BitSet priceSelection(FacetQuery query) {
+        return union(byPriceBand, query.getPriceBands());
+    }
+
+    private BitSet ratingSelection(FacetQuery query) {
+        Integer minRating = query.getMinRating();
+        if (minRating == null || minRating < 1) {
+            return null;
+        }
+        return byMinRating[Math.min(minRating, MAX_RATING_BAND)];
+    }
+
+    private BitSet stockSelection(FacetQuery query) {
+        return query.isInStockOnly() ? inStock : null;
+    }
+
+    private static <K> BitSet union(Map<K, BitSet> facet, Collection<K> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        for (K key : keys) {
+            BitSet bits = facet.get(key);
+            if (bits != null) {
+                result.or(bits);
+            }
+        }
+        return result;
+    }
+
+    private BitSet combine(BitSet... selections) {
+        BitSet result = (BitSet) live.clone();
+        for (BitSet selection : selections) {
+            if (selection != null) {
+                result.and(selection);
+            }
+        }
+        return result;
+    }
+
+    private static int intersectionSize(BitSet bits, BitSet base) {
+        BitSet copy = (BitSet) bits.clone();
+        copy.and(base);
+        return copy.cardinality();
+    }
+
+    private Comparator<Integer> comparator(Sort sort) {
+        Comparator<Integer> byOrdinal = Comparator.comparing(idByOrdinal::get);
+        if (sort == null || sort.isUnsorted()) {
+            return byOrdinal;
+        }
+        Sort.Order order = sort.iterator().next();
+        Comparator<Integer> comparator;
+        switch (order.getProperty()) {
+            case "price":
+                comparator = Comparator.comparing(priceByOrdinal::get,
+                        Comparator.nullsLast(Comparator.naturalOrder()));
+                break;
+            case "name":
+                comparator = Comparator.comparing(nameByOrdinal::get);
+                break;
+            default:
+                comparator = byOrdinal;
+        }
+        if (order.isDescending()) {
+            comparator = comparator.reversed();
+        }
+        return comparator.thenComparing(byOrdinal);
+    }
+}
@@ -0,0 +1,144 @@
+package com.ecommerce.app.catalog;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and outcome of one bulk product import. Counters are updated by the
+ * import thread and read by status requests while it runs; only the first
+ * MAX_ERRORS row errors are kept, the failed counter covers all of them.
+ */
+public class ProductImportJob {
+
+    public static final int MAX_ERRORS = 500;
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * A rejected row: its line in the file, its SKU when known, and why
+     */
+    public static final class RowError {
+        private final long line;
+        private final String sku;
+        private final String message;
+
+        RowError(long line, String sku, String message) {
+            this.line = line;
+            this.sku = sku;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private final String id;
+    private final String fileName;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<RowError> errors = new ArrayList<>();
+
+    private volatile Status status = Status.RUNNING;
+    private volatile String message;
+    private volatile LocalDateTime finishedAt;
+
+    public ProductImportJob(String id, String fileName) {
+        this.id = id;
+        this.fileName = fileName;
+    }
+
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    void written(long insertedRows, long updatedRows) {
+        inserted.addAndGet(insertedRows);
+        updated.addAndGet(updatedRows);
+    }
+
+    void rowFailed(long line, String sku, String reason) {
+        failed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(new RowError(line, sku, reason));
+            }
+        }
+    }
+
+    void complete() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(String reason) {
+        message = reason;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    public long getUpdated() {
+        return updated.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    public boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+}
@@ -0,0 +1,273 @@
+package com.ecommerce.app.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams records out of an import file one at a time, so memory use does not
+ * depend on the file size. CSV files need a header row and follow RFC 4180
+ * (quoted fields may contain commas, quotes and line breaks); NDJSON files hold
+ * one JSON object per line. Field names are normalized to lower case without
+ * underscores, so sale_price, salePrice and SalePrice are the same field.
+ * Values are strings, or lists of strings for NDJSON arrays.
+ */
+public abstract class ProductImportReader implements Iterator<ProductImportReader.Record>, Closeable {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * Picks the format from the file extension, then the content type
+         */
+        public static Format detect(String fileName, String contentType) {
+            String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+            String type = contentType != null ? contentType.toLowerCase(Locale.ROOT) : "";
+            if (name.endsWith(".csv") || type.startsWith("text/csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")
+                    || type.contains("ndjson") || type.contains("json")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Unsupported import file, expected .csv or .ndjson");
+        }
+    }
+
+    /**
+     * One record and the line it starts on; a record that could not be parsed carries an error instead of values
+     */
+    public static final class Record {
+        private final long line;
+        private final Map<String, Object> values;
+        private final String error;
+
+        private Record(long line, Map<String, Object> values, String error) {
+            this.line = line;
+            this.values = values;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public Map<String, Object> getValues() {
+            return values;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    protected final BufferedReader reader;
+    private Record next;
+
+    private ProductImportReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    public static ProductImportReader open(InputStream in, Format format, ObjectMapper objectMapper) {
+        return format == Format.CSV ? new Csv(in) : new Ndjson(in, objectMapper);
+    }
+
+    static String normalize(String field) {
+        return field.trim().replace("_", "").replace("-", "").toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Record next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Record record = next;
+        next = null;
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Next record, or null at the end of the input
+    protected abstract Record read() throws IOException;
+
+    private static final class Csv extends ProductImportReader {
+
+        private List<String> header;
+        private long line = 1;
+        private boolean firstChar = true;
+
+        private Csv(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        protected Record read() throws IOException {
+            if (header == null) {
+                List<String> names = readFields();
+                if (names == null) {
+                    return null;
+                }
+                header = new ArrayList<>(names.size());
+                for (String name : names) {
+                    header.add(normalize(name));
+                }
+            }
+
+            List<String> fields;
+            long start;
+            do {
+                start = line;
+                fields = readFields();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isEmpty());
+
+            if (fields.size() > header.size()) {
+                return new Record(start, null, "Expected " + header.size() + " columns but found " + fields.size());
+            }
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                values.put(header.get(i), fields.get(i));
+            }
+            return new Record(start, values, null);
+        }
+
+        // Fields of the next record, which may span several lines when quoted fields contain breaks
+        private List<String> readFields() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (firstChar) {
+                    firstChar = false;
+                    if (c == '\uFEFF') {
+                        continue;
+                    }
+                }
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int peek = reader.read();
+                        if (peek == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (peek != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    line++;
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+
+            if (!any) {
+                return null;
+            }
+            if (quoted) {
+                throw new IOException("Unterminated quoted field in the record starting before line " + line);
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private static final class Ndjson extends ProductImportReader {
+
+        private final ObjectMapper objectMapper;
+        private long line;
+
+        private Ndjson(InputStream in, ObjectMapper objectMapper) {
+            super(in);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        protected Record read() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+            } while (text.isBlank());
+
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                return new Record(line, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+            if (node == null || !node.isObject()) {
+                return new Record(line, null, "Expected a JSON object");
+            }
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            node.fields().forEachRemaining(entry -> {
+                JsonNode value = entry.getValue();
+                if (value.isNull()) {
+                    return;
+                }
+                if (value.isArray()) {
+                    List<String> items = new ArrayList<>();
+                    value.forEach(item -> items.add(item.asText()));
+                    values.put(normalize(entry.getKey()), items);
+                } else {
+                    values.put(normalize(entry.getKey()), value.asText());
+                }
+            });
+            return new Record(line, values, null);
+        }
+    }
+}
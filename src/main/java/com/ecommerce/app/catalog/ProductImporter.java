@@ -0,0 +1,558 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.event.ProductsImportedEvent;
+import com.ecommerce.app.media.MediaDeletionJournal;
+import com.ecommerce.app.repository.CategoryRepository;
+import com.ecommerce.app.repository.ProductImageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import from CSV or NDJSON, upserting by SKU.
+ * The upload is spooled to a temporary file and processed on a background thread:
+ * records are streamed, validated against in-memory category and tag lookups,
+ * and written with JDBC batches, one transaction per chunk. A failing chunk is
+ * rolled back and its rows reported, the following chunks still go in.
+ * Fields left empty keep their stored value on update; tags and images replace
+ * the stored ones when given. Category counters are recounted and the in-memory
+ * indexes rebuilt once at the end (see ProductsImportedEvent), also when the
+ * input breaks off after some chunks went in.
+ */
+@Component
+public class ProductImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImporter.class);
+
+    private static final int MAX_JOBS = 20;
+    private static final int LOG_EVERY_CHUNKS = 20;
+
+    private static final String INSERT_PRODUCT = "INSERT INTO products (sku, name, description, price, sale_price, " +
+            "stock_quantity, is_subscription, category_id, active, rating_count, rating_sum, rating_1_count, " +
+            "rating_2_count, rating_3_count, rating_4_count, rating_5_count, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, FALSE, ?, ?, 0, 0, 0, 0, 0, 0, 0, ?, ?)";
+
+    private static final String UPDATE_PRODUCT = "UPDATE products SET name = COALESCE(?, name), " +
+            "description = COALESCE(?, description), price = COALESCE(?, price), " +
+            "sale_price = COALESCE(?, sale_price), stock_quantity = COALESCE(?, stock_quantity), " +
+            "category_id = COALESCE(?, category_id), active = COALESCE(?, active), updated_at = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryTreeIndex categoryTreeIndex;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private MediaDeletionJournal mediaDeletionJournal;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TaskExecutor taskExecutor;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    private final AtomicReference<ProductImportJob> running = new AtomicReference<>();
+    private final Map<String, ProductImportJob> jobs = new LinkedHashMap<>();
+
+    public ProductImporter(PlatformTransactionManager transactionManager,
+                           @Value("${app.catalog.import.chunk-size:1000}") int chunkSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Spools the upload to disk and starts importing it in the background.
+     * Only one import runs at a time, a second one is rejected with IllegalStateException.
+     */
+    public ProductImportJob start(String fileName, String contentType, InputStream body) throws IOException {
+        ProductImportReader.Format format = ProductImportReader.Format.detect(fileName, contentType);
+        ProductImportJob job = new ProductImportJob(UUID.randomUUID().toString(), fileName);
+        if (!running.compareAndSet(null, job)) {
+            throw new IllegalStateException("Another import is still running");
+        }
+
+        Path file;
+        try {
+            file = Files.createTempFile("product-import-", "." + format.name().toLowerCase(Locale.ROOT));
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            running.set(null);
+            throw e;
+        }
+
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            if (jobs.size() > MAX_JOBS) {
+                jobs.remove(jobs.keySet().iterator().next());
+            }
+        }
+
+        try {
+            taskExecutor.execute(() -> {
+                try (InputStream in = Files.newInputStream(file)) {
+                    run(job, in, format);
+                } catch (Exception e) {
+                    logger.error("Product import {} failed", job.getId(), e);
+                    job.fail(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                } finally {
+                    running.set(null);
+                    deleteQuietly(file);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Nothing will run the job, so nothing else would release the slot or the file
+            job.fail("No worker available to run the import");
+            running.set(null);
+            deleteQuietly(file);
+            throw new IllegalStateException("The import could not be started, try again later", e);
+        }
+        return job;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete import file {}", file, e);
+        }
+    }
+
+    public Optional<ProductImportJob> getJob(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    /**
+     * Imports the whole stream on the calling thread
+     */
+    public void run(ProductImportJob job, InputStream in, ProductImportReader.Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        Lookups lookups = new Lookups(categoryTreeIndex.getTree(), loadTags());
+
+        boolean finished = false;
+        try (ProductImportReader reader = ProductImportReader.open(in, format, objectMapper)) {
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            Set<String> chunkSkus = new HashSet<>();
+            int chunks = 0;
+
+            while (reader.hasNext()) {
+                ProductImportReader.Record record = reader.next();
+                job.rowRead();
+                if (record.getError() != null) {
+                    job.rowFailed(record.getLine(), null, record.getError());
+                    continue;
+                }
+
+                Row row;
+                try {
+                    row = Row.parse(record, lookups);
+                } catch (IllegalArgumentException e) {
+                    job.rowFailed(record.getLine(), asText(record.getValues().get("sku")), e.getMessage());
+                    continue;
+                }
+
+                // A SKU repeated within one chunk would be inserted twice, the later row goes in the next chunk
+                if (!chunkSkus.add(row.sku) || chunk.size() == chunkSize) {
+                    writeChunk(job, chunk, lookups);
+                    chunk.clear();
+                    chunkSkus.clear();
+                    chunkSkus.add(row.sku);
+                    if (++chunks % LOG_EVERY_CHUNKS == 0) {
+                        logger.info("Product import {}: {} rows read, {} inserted, {} updated, {} failed",
+                                job.getId(), job.getRowsRead(), job.getInserted(), job.getUpdated(), job.getFailed());
+                    }
+                }
+                chunk.add(row);
+            }
+            writeChunk(job, chunk, lookups);
+            finished = true;
+        } finally {
+            // Chunks committed before a read error stay in, counters and indexes have to catch up with them
+            if (finished || job.getInserted() + job.getUpdated() > 0) {
+                categoryRepository.recountProducts(LocalDateTime.now());
+                eventPublisher.publishEvent(new ProductsImportedEvent(job.getInserted(), job.getUpdated()));
+            }
+        }
+        job.complete();
+        logger.info("Product import {} finished in {} ms: {} rows read, {} inserted, {} updated, {} failed",
+                job.getId(), System.currentTimeMillis() - start,
+                job.getRowsRead(), job.getInserted(), job.getUpdated(), job.getFailed());
+    }
+
+    private void writeChunk(ProductImportJob job, List<Row> rows, Lookups lookups) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<String, Long> newTags = new HashMap<>();
+        List<Row> rejected = new ArrayList<>();
+        try {
+            int[] counts = transactionTemplate.execute(status -> write(rows, lookups, newTags, rejected));
+            // Only tags from committed chunks may be reused by later ones
+            lookups.tagIds.putAll(newTags);
+            job.written(counts[0], counts[1]);
+            for (Row row : rejected) {
+                job.rowFailed(row.line, row.sku, "New products need a name and a price");
+            }
+        } catch (RuntimeException e) {
+            String reason = "Chunk rolled back: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            logger.warn("Product import {}: {}", job.getId(), reason);
+            for (Row row : rows) {
+                job.rowFailed(row.line, row.sku, reason);
+            }
+        }
+    }
+
+    // Returns [inserted, updated]
+    private int[] write(List<Row> rows, Lookups lookups, Map<String, Long> newTags, List<Row> rejected) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<String, Long> ids = findIdsBySku(rows.stream().map(row -> row.sku).collect(Collectors.toList()));
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Row> written = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            Long id = ids.get(row.sku);
+            if (id != null) {
+                updates.add(new Object[]{row.name, row.description, row.price, row.salePrice, row.stockQuantity,
+                        row.categoryId, row.active, now, id});
+            } else if (row.name == null || row.price == null) {
+                rejected.add(row);
+                continue;
+            } else {
+                inserts.add(new Object[]{row.sku, row.name, row.description, row.price, row.salePrice,
+                        row.stockQuantity != null ? row.stockQuantity : 0, row.categoryId,
+                        row.active != null ? row.active : Boolean.TRUE, now, now});
+            }
+            written.add(row);
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_PRODUCT, inserts);
+            ids.putAll(findIdsBySku(written.stream()
+                    .filter(row -> !ids.containsKey(row.sku))
+                    .map(row -> row.sku)
+                    .collect(Collectors.toList())));
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_PRODUCT, updates);
+        }
+
+        writeTags(written, ids, lookups, newTags);
+        writeImages(written, ids);
+        return new int[]{inserts.size(), updates.size()};
+    }
+
+    private void writeTags(List<Row> rows, Map<String, Long> ids, Lookups lookups, Map<String, Long> newTags) {
+        List<Row> tagged = rows.stream().filter(row -> row.tags != null).collect(Collectors.toList());
+        if (tagged.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (Row row : tagged) {
+            for (String tag : row.tags) {
+                String key = tag.toLowerCase(Locale.ROOT);
+                if (!lookups.tagIds.containsKey(key)) {
+                    missing.putIfAbsent(key, tag);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO tags (name) VALUES (?)",
+                    missing.values().stream().map(name -> new Object[]{name}).collect(Collectors.toList()));
+            newTags.putAll(findTagIds(missing.values()));
+        }
+
+        jdbcTemplate.batchUpdate("DELETE FROM product_tags WHERE product_id = ?",
+                tagged.stream().map(row -> new Object[]{ids.get(row.sku)}).collect(Collectors.toList()));
+        List<Object[]> links = new ArrayList<>();
+        for (Row row : tagged) {
+            for (String tag : row.tags) {
+                String key = tag.toLowerCase(Locale.ROOT);
+                Long tagId = lookups.tagIds.containsKey(key) ? lookups.tagIds.get(key) : newTags.get(key);
+                links.add(new Object[]{ids.get(row.sku), tagId});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO product_tags (product_id, tag_id) VALUES (?, ?)", links);
+    }
+
+    private void writeImages(List<Row> rows, Map<String, Long> ids) {
+        List<Row> withImages = rows.stream().filter(row -> row.images != null).collect(Collectors.toList());
+        if (withImages.isEmpty()) {
+            return;
+        }
+
+        // The replaced files go once nothing refers to them any more, committed or rolled back with the chunk
+        List<Long> productIds = withImages.stream().map(row -> ids.get(row.sku)).collect(Collectors.toList());
+        mediaDeletionJournal.enqueue(productImageRepository.findByProductIdIn(productIds));
+        jdbcTemplate.batchUpdate("DELETE FROM product_images WHERE product_id = ?",
+                productIds.stream().map(id -> new Object[]{id}).collect(Collectors.toList()));
+        List<Object[]> images = new ArrayList<>();
+        for (Row row : withImages) {
+            for (int i = 0; i < row.images.size(); i++) {
+                images.add(new Object[]{ids.get(row.sku), row.images.get(i), i == 0, i});
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO product_images (product_id, image_url, is_primary, display_order) VALUES (?, ?, ?, ?)",
+                images);
+    }
+
+    private Map<String, Long> findIdsBySku(Collection<String> skus) {
+        Map<String, Long> ids = new HashMap<>();
+        if (skus.isEmpty()) {
+            return ids;
+        }
+        jdbcTemplate.query("SELECT id, sku FROM products WHERE sku IN (" + placeholders(skus.size()) + ")",
+                rs -> {
+                    ids.put(rs.getString("sku"), rs.getLong("id"));
+                },
+                skus.toArray());
+        return ids;
+    }
+
+    // Lower-cased names to ids, tag names are unique regardless of case
+    private Map<String, Long> findTagIds(Collection<String> names) {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM tags WHERE name IN (" + placeholders(names.size()) + ")",
+                rs -> {
+                    ids.put(rs.getString("name").toLowerCase(Locale.ROOT), rs.getLong("id"));
+                },
+                names.toArray());
+        return ids;
+    }
+
+    private Map<String, Long> loadTags() {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM tags", rs -> {
+            ids.putIfAbsent(rs.getString("name").toLowerCase(Locale.ROOT), rs.getLong("id"));
+        });
+        return ids;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static String asText(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    /**
+     * Category and tag ids by lower-cased name, loaded once per import
+     */
+    private static final class Lookups {
+        private final Map<String, Long> categoryIds = new HashMap<>();
+        private final Set<Long> knownCategoryIds = new HashSet<>();
+        private final Map<String, Long> tagIds;
+
+        private Lookups(CategoryTree tree, Map<String, Long> tagIds) {
+            for (CategoryTree.Node node : tree.getNodes()) {
+                categoryIds.putIfAbsent(node.getName().trim().toLowerCase(Locale.ROOT), node.getId());
+                knownCategoryIds.add(node.getId());
+            }
+            this.tagIds = tagIds;
+        }
+    }
+
+    /**
+     * A validated import row, null fields were not given
+     */
+    private static final class Row {
+        private long line;
+        private String sku;
+        private String name;
+        private String description;
+        private BigDecimal price;
+        private BigDecimal salePrice;
+        private Integer stockQuantity;
+        private Long categoryId;
+        private Boolean active;
+        private List<String> tags;
+        private List<String> images;
+
+        static Row parse(ProductImportReader.Record record, Lookups lookups) {
+            Map<String, Object> values = record.getValues();
+            Row row = new Row();
+            row.line = record.getLine();
+
+            row.sku = text(values, "sku");
+            if (row.sku == null) {
+                throw new IllegalArgumentException("sku is required");
+            }
+            if (row.sku.length() > 64) {
+                throw new IllegalArgumentException("sku is longer than 64 characters");
+            }
+
+            row.name = text(values, "name");
+            if (row.name != null && row.name.length() > 255) {
+                throw new IllegalArgumentException("name is longer than 255 characters");
+            }
+            row.description = text(values, "description");
+
+            row.price = decimal(values, "price");
+            if (row.price != null && row.price.signum() <= 0) {
+                throw new IllegalArgumentException("price must be positive");
+            }
+            row.salePrice = decimal(values, "saleprice");
+            if (row.salePrice != null && row.salePrice.signum() < 0) {
+                throw new IllegalArgumentException("salePrice must not be negative");
+            }
+
+            String stock = text(values, "stockquantity");
+            if (stock != null) {
+                try {
+                    row.stockQuantity = Integer.parseInt(stock);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("stockQuantity is not a whole number: " + stock);
+                }
+                if (row.stockQuantity < 0) {
+                    throw new IllegalArgumentException("stockQuantity must not be negative");
+                }
+            }
+
+            row.categoryId = category(values, lookups);
+            row.active = bool(values, "active");
+            row.tags = list(values, "tags", 50);
+            row.images = list(values, "images", 255);
+            return row;
+        }
+
+        private static Long category(Map<String, Object> values, Lookups lookups) {
+            String id = text(values, "categoryid");
+            if (id != null) {
+                try {
+                    Long categoryId = Long.valueOf(id);
+                    if (lookups.knownCategoryIds.contains(categoryId)) {
+                        return categoryId;
+                    }
+                } catch (NumberFormatException e) {
+                    // Reported below like any unknown category
+                }
+                throw new IllegalArgumentException("Unknown category id: " + id);
+            }
+            String name = text(values, "category");
+            if (name == null) {
+                return null;
+            }
+            Long categoryId = lookups.categoryIds.get(name.toLowerCase(Locale.ROOT));
+            if (categoryId == null) {
+                throw new IllegalArgumentException("Unknown category: " + name);
+            }
+            return categoryId;
+        }
+
+        private static String text(Map<String, Object> values, String field) {
+            Object value = values.get(field);
+            if (!(value instanceof String)) {
+                return null;
+            }
+            String text = ((String) value).trim();
+            return text.isEmpty() ? null : text;
+        }
+
+        private static BigDecimal decimal(Map<String, Object> values, String field) {
+            String text = text(values, field);
+            if (text == null) {
+                return null;
+            }
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(field + " is not a number: " + text);
+            }
+        }
+
+        private static Boolean bool(Map<String, Object> values, String field) {
+            String text = text(values, field);
+            if (text == null) {
+                return null;
+            }
+            switch (text.toLowerCase(Locale.ROOT)) {
+                case "true": case "1": case "yes": case "y":
+                    return true;
+                case "false": case "0": case "no": case "n":
+                    return false;
+                default:
+                    throw new IllegalArgumentException(field + " is not a boolean: " + text);
+            }
+        }
+
+        // "a|b|c" in CSV, an array or the same string in NDJSON; duplicates are dropped regardless of case
+        private static List<String> list(Map<String, Object> values, String field, int maxLength) {
+            Object value = values.get(field);
+            List<String> items;
+            if (value instanceof List) {
+                items = new ArrayList<>();
+                for (Object item : (List<?>) value) {
+                    items.add(String.valueOf(item));
+                }
+            } else if (value instanceof String && !((String) value).isBlank()) {
+                items = List.of(((String) value).split("\\|"));
+            } else {
+                return null;
+            }
+
+            Map<String, String> distinct = new LinkedHashMap<>();
+            for (String item : items) {
+                String trimmed = item.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (trimmed.length() > maxLength) {
+                    throw new IllegalArgumentException(field + " entry is longer than " + maxLength + " characters");
+                }
+                distinct.putIfAbsent(trimmed.toLowerCase(Locale.ROOT), trimmed);
+            }
+            return new ArrayList<>(new LinkedHashSet<>(distinct.values()));
+        }
+    }
+}
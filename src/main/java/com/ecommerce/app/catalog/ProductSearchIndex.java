@@ -0,0 +1,229 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.event.ProductChangedEvent;
+import com.ecommerce.app.event.ProductsChangedEvent;
+import com.ecommerce.app.event.ProductsImportedEvent;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.Tag;
+import com.ecommerce.app.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory inverted index over the product catalog.
+ * Name, description, category and tag terms are weighted per field so that
+ * results can be ranked by relevance without touching the database.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    static final float NAME_WEIGHT = 3.0f;
+    static final float TAG_WEIGHT = 2.0f;
+    static final float CATEGORY_WEIGHT = 1.5f;
+    static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Prefix matches count for less than an exact term match
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    private final ProductRepository productRepository;
+
+    // term -> (product id -> field-weighted score)
+    private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+
+    // product id -> indexed terms, needed to retract a document on update or delete
+    private final Map<Long, Set<String>> documentTerms = new ConcurrentHashMap<>();
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Product> products = productRepository.findAllWithCategoryAndTags();
+        synchronized (this) {
+            postings.clear();
+            documentTerms.clear();
+            products.forEach(this::index);
+        }
+        logger.info("Search index built for {} products in {} ms",
+                products.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getProductId());
+            return;
+        }
+        productRepository.findWithCategoryAndTagsById(event.getProductId())
+                .ifPresentOrElse(this::index, () -> remove(event.getProductId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        for (List<Long> batch : event.batches()) {
+            List<Product> products = productRepository.findWithCategoryAndTagsByIdIn(batch);
+            synchronized (this) {
+                products.forEach(this::index);
+            }
+        }
+    }
+
+    /**
+     * Add or replace a product in the index
+     */
+    public synchronized void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        remove(product.getId());
+
+        Map<String, Float> weights = new HashMap<>();
+        addTerms(weights, product.getName(), NAME_WEIGHT);
+        addTerms(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+        if (product.getCategory() != null) {
+            addTerms(weights, product.getCategory().getName(), CATEGORY_WEIGHT);
+        }
+        if (product.getTags() != null) {
+            for (Tag tag : product.getTags()) {
+                addTerms(weights, tag.getName(), TAG_WEIGHT);
+            }
+        }
+
+        Long id = product.getId();
+        weights.forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(id, weight));
+        documentTerms.put(id, weights.keySet());
+    }
+
+    /**
+     * Remove a product from the index
+     */
+    public synchronized void remove(Long productId) {
+        Set<String> terms = documentTerms.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            postings.computeIfPresent(term, (t, docs) -> {
+                docs.remove(productId);
+                return docs.isEmpty() ? null : docs;
+            });
+        }
+    }
+
+    /**
+     * Find products matching every term of the query, best match first.
+     * Query terms also match as prefixes so partially typed words still hit.
+     *
+     * @param query free text query
+     * @return matching product ids ordered by descending relevance
+     */
+    public List<Long> search(String query) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Float> scores = null;
+        for (int i = 0; i < queryTerms.size(); i++) {
+            Map<Long, Float> termScores = scoreTerm(queryTerms.get(i));
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                // AND semantics: keep only products that matched every term so far
+                Map<Long, Float> merged = new HashMap<>();
+                for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                    Float score = termScores.get(entry.getKey());
+                    if (score != null) {
+                        merged.put(entry.getKey(), entry.getValue() + score);
+                    }
+                }
+                scores = merged;
+            }
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Map.Entry<Long, Float>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int byScore = Float.compare(b.getValue(), a.getValue());
+            return byScore != 0 ? byScore : Long.compare(a.getKey(), b.getKey());
+        });
+
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, Float> entry : ranked) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    public int size() {
+        return documentTerms.size();
+    }
+
+    // Best score per product for a query term, exact match preferred over prefix match
+    private Map<Long, Float> scoreTerm(String queryTerm) {
+        Map<Long, Float> result = new HashMap<>();
+        NavigableMap<String, Map<Long, Float>> matches =
+                postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false);
+        for (Map.Entry<String, Map<Long, Float>> entry : matches.entrySet()) {
+            float factor = entry.getKey().equals(queryTerm) ? 1.0f : PREFIX_FACTOR;
+            for (Map.Entry<Long, Float> doc : entry.getValue().entrySet()) {
+                result.merge(doc.getKey(), doc.getValue() * factor, Math::max);
+            }
+        }
+        return result;
+    }
+
+    private static void addTerms(Map<String, Float> weights, String text, float weight) {
+        for (String term : new HashSet<>(tokenize(text))) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+
+    /**
+     * Split text into lower-case alphanumeric terms
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        StringBuilder current = new StringBuilder();
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else if (current.length() > 0) {
+                terms.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            terms.add(current.toString());
+        }
+        return terms;
+    }
+}
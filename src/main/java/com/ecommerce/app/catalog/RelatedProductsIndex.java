@@ -0,0 +1,507 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.event.CategoryChangedEvent;
+import com.ecommerce.app.event.ProductChangedEvent;
+import com.ecommerce.app.event.ProductsChangedEvent;
+import com.ecommerce.app.event.ProductsImportedEvent;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.Tag;
+import com.ecommerce.app.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Precomputed top-K "related products" lists over the active catalog.
+ * Products are described by weighted features: their tags, their category and,
+ * with less weight, the category's ancestors. Similarity is the weighted Jaccard
+ * index sum(min) / sum(max) over those features. Every product gets a dense
+ * ordinal, features keep a BitSet of ordinals, and the neighbour lists are int
+ * arrays of ordinals, so serving a list is a single lookup.
+ * The full build runs in the background at startup, after imports and when a
+ * category is removed; a category edit refreshes the products below it; single
+ * product changes update the product's own list, the lists that held it and
+ * the lists of its new neighbours; stock and rating changes, and saves that
+ * keep the product's features, leave the lists alone. A product that would only enter the list of
+ * a product outside its own top K is picked up by the next full build.
+ */
+@Component
+public class RelatedProductsIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelatedProductsIndex.class);
+
+    static final float TAG_WEIGHT = 1f;
+    static final float CATEGORY_WEIGHT = 2f;
+    static final float ANCESTOR_WEIGHT = 1f;
+
+    // A feature shared by this many products says little on its own: it only adds to
+    // candidates found through rarer features, unless those found too few
+    static final int MAX_CANDIDATE_POSTING = 2000;
+
+    private static final int[] NONE = new int[0];
+    private static final float[] NO_SCORES = new float[0];
+
+    private final ProductRepository productRepository;
+    private final CategoryTreeIndex categoryTreeIndex;
+    private final TaskExecutor taskExecutor;
+    private final int size;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state;
+
+    // Products changed while a full build was running, re-applied once it is swapped in
+    private boolean rebuilding;
+    private final Set<Long> changedDuringRebuild = new HashSet<>();
+
+    public RelatedProductsIndex(ProductRepository productRepository, CategoryTreeIndex categoryTreeIndex,
+                                TaskExecutor taskExecutor,
+                                @Value("${app.catalog.related.size:8}") int size) {
+        this.productRepository = productRepository;
+        this.categoryTreeIndex = categoryTreeIndex;
+        this.taskExecutor = taskExecutor;
+        this.size = size;
+        this.state = new State(size);
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void scheduleRebuild() {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int indexed;
+        Set<Long> changed;
+        try {
+            indexed = load(productRepository.findAllWithCategoryAndTags(), categoryTreeIndex.getTree());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                changed = new HashSet<>(changedDuringRebuild);
+                changedDuringRebuild.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        if (!changed.isEmpty()) {
+            refresh(new ArrayList<>(changed));
+        }
+        logger.info("Related products built for {} products in {} ms",
+                indexed, System.currentTimeMillis() - start);
+    }
+
+    // Builds all lists without holding the lock, then swaps them in; returns the number of products indexed
+    int load(List<Product> products, CategoryTree tree) {
+        State built = new State(size);
+        for (Product product : products) {
+            if (product.isActive()) {
+                built.setFeatures(built.ordinalFor(product.getId()), product, tree);
+            }
+        }
+        built.computeAll();
+
+        lock.writeLock().lock();
+        try {
+            state = built;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return built.ordinalById.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Stock and rating changes leave tags, category and the active flag as they were
+        if (event.isCountersOnly()) {
+            return;
+        }
+        refresh(List.of(event.getProductId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        event.batches().forEach(this::refresh);
+    }
+
+    /**
+     * A moved category changes the ancestor features of every product below it.
+     * Runs after CategoryTreeIndex has swapped in the new tree.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.isCountersOnly()) {
+            return;
+        }
+        taskExecutor.execute(() -> refreshSubtree(event.getCategoryId()));
+    }
+
+    private void refreshSubtree(Long categoryId) {
+        List<Long> categoryIds = categoryTreeIndex.getTree().descendantIds(categoryId);
+        if (categoryIds.isEmpty()) {
+            // Removed, its products are gone or unknown to the tree
+            rebuild();
+            return;
+        }
+        List<Long> productIds = productRepository.findIdsByCategoryIdIn(categoryIds);
+        for (int from = 0; from < productIds.size(); from += ProductsChangedEvent.BATCH_SIZE) {
+            refresh(productIds.subList(from, Math.min(from + ProductsChangedEvent.BATCH_SIZE, productIds.size())));
+        }
+    }
+
+    /**
+     * Ids of the products most similar to the given one, most similar first
+     */
+    public List<Long> related(Long productId, int limit) {
+        lock.readLock().lock();
+        try {
+            return state.related(productId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void refresh(List<Long> productIds) {
+        List<Product> products = productRepository.findWithCategoryAndTagsByIdIn(productIds);
+        Map<Long, Product> byId = new HashMap<>();
+        products.forEach(product -> byId.put(product.getId(), product));
+        CategoryTree tree = categoryTreeIndex.getTree();
+
+        lock.writeLock().lock();
+        try {
+            for (Long id : productIds) {
+                update(id, byId.get(id), tree);
+                if (rebuilding) {
+                    changedDuringRebuild.add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller must hold the write lock; a null or inactive product is removed
+    void update(Long productId, Product product, CategoryTree tree) {
+        state.update(productId, product, tree);
+    }
+
+    /**
+     * Index structures of one build. Ordinals of removed products are retired,
+     * not reused, until the next full build.
+     */
+    private static final class State {
+
+        private final int size;
+        private final Map<Long, Integer> ordinalById = new HashMap<>();
+        private long[] idByOrdinal = new long[16];
+        private int[][] featuresByOrdinal = new int[16][];
+        private float[][] weightsByOrdinal = new float[16][];
+        private float[] totalWeightByOrdinal = new float[16];
+        private int[][] relatedByOrdinal = new int[16][];
+        private float[][] scoresByOrdinal = new float[16][];
+        private int ordinals;
+
+        // Feature keys are tag ids, and category ids negated
+        private final Map<Long, Integer> featureByKey = new HashMap<>();
+        private final List<BitSet> postings = new ArrayList<>();
+        private int[] postingSizes = new int[16];
+
+        // Per-candidate accumulator for one scoring pass, zero between passes
+        private float[] overlap = new float[16];
+        private int[] touched = new int[16];
+
+        private State(int size) {
+            this.size = size;
+        }
+
+        List<Long> related(Long productId, int limit) {
+            Integer ordinal = ordinalById.get(productId);
+            if (ordinal == null) {
+                return List.of();
+            }
+            int[] related = relatedByOrdinal[ordinal];
+            List<Long> ids = new ArrayList<>(Math.min(limit, related.length));
+            for (int i = 0; i < related.length && ids.size() < limit; i++) {
+                ids.add(idByOrdinal[related[i]]);
+            }
+            return ids;
+        }
+
+        int ordinalFor(Long productId) {
+            Integer ordinal = ordinalById.get(productId);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            if (ordinals == idByOrdinal.length) {
+                int capacity = ordinals * 2;
+                idByOrdinal = Arrays.copyOf(idByOrdinal, capacity);
+                featuresByOrdinal = Arrays.copyOf(featuresByOrdinal, capacity);
+                weightsByOrdinal = Arrays.copyOf(weightsByOrdinal, capacity);
+                totalWeightByOrdinal = Arrays.copyOf(totalWeightByOrdinal, capacity);
+                relatedByOrdinal = Arrays.copyOf(relatedByOrdinal, capacity);
+                scoresByOrdinal = Arrays.copyOf(scoresByOrdinal, capacity);
+                overlap = Arrays.copyOf(overlap, capacity);
+                touched = Arrays.copyOf(touched, capacity);
+            }
+            ordinal = ordinals++;
+            ordinalById.put(productId, ordinal);
+            idByOrdinal[ordinal] = productId;
+            featuresByOrdinal[ordinal] = NONE;
+            weightsByOrdinal[ordinal] = NO_SCORES;
+            relatedByOrdinal[ordinal] = NONE;
+            scoresByOrdinal[ordinal] = NO_SCORES;
+            return ordinal;
+        }
+
+        void setFeatures(int ordinal, Product product, CategoryTree tree) {
+            setFeatures(ordinal, features(product, tree));
+        }
+
+        private void setFeatures(int ordinal, Features features) {
+            float total = 0;
+            for (int i = 0; i < features.ids.length; i++) {
+                total += features.weights[i];
+                postings.get(features.ids[i]).set(ordinal);
+                postingSizes[features.ids[i]]++;
+            }
+            featuresByOrdinal[ordinal] = features.ids;
+            weightsByOrdinal[ordinal] = features.weights;
+            totalWeightByOrdinal[ordinal] = total;
+        }
+
+        // The product's features sorted by id, with their weights
+        private Features features(Product product, CategoryTree tree) {
+            Map<Integer, Float> weights = new HashMap<>();
+            if (product.getTags() != null) {
+                for (Tag tag : product.getTags()) {
+                    weights.merge(feature(tag.getId()), TAG_WEIGHT, Math::max);
+                }
+            }
+            if (product.getCategory() != null && product.getCategory().getId() != null) {
+                Long categoryId = product.getCategory().getId();
+                weights.merge(feature(-categoryId), CATEGORY_WEIGHT, Math::max);
+                for (CategoryTree.Node ancestor : tree.ancestors(categoryId)) {
+                    if (!ancestor.getId().equals(categoryId)) {
+                        weights.merge(feature(-ancestor.getId()), ANCESTOR_WEIGHT, Math::max);
+                    }
+                }
+            }
+
+            int[] ids = weights.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            float[] featureWeights = new float[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                featureWeights[i] = weights.get(ids[i]);
+            }
+            return new Features(ids, featureWeights);
+        }
+
+        private void clearFeatures(int ordinal) {
+            for (int feature : featuresByOrdinal[ordinal]) {
+                postings.get(feature).clear(ordinal);
+                postingSizes[feature]--;
+            }
+            featuresByOrdinal[ordinal] = NONE;
+            weightsByOrdinal[ordinal] = NO_SCORES;
+            totalWeightByOrdinal[ordinal] = 0;
+        }
+
+        private int feature(long key) {
+            Integer feature = featureByKey.get(key);
+            if (feature == null) {
+                feature = postings.size();
+                featureByKey.put(key, feature);
+                postings.add(new BitSet());
+                if (feature == postingSizes.length) {
+                    postingSizes = Arrays.copyOf(postingSizes, feature * 2);
+                }
+            }
+            return feature;
+        }
+
+        void computeAll() {
+            for (int ordinal = 0; ordinal < ordinals; ordinal++) {
+                compute(ordinal);
+            }
+        }
+
+        void update(Long productId, Product product, CategoryTree tree) {
+            Integer existing = ordinalById.get(productId);
+            boolean active = product != null && product.isActive();
+            Features features = active ? features(product, tree) : null;
+            // Saves that leave tags and category alone cannot move any list
+            if (existing != null && active && Arrays.equals(features.ids, featuresByOrdinal[existing])
+                    && Arrays.equals(features.weights, weightsByOrdinal[existing])) {
+                return;
+            }
+            if (existing != null) {
+                clearFeatures(existing);
+            }
+            if (!active) {
+                if (existing != null) {
+                    ordinalById.remove(productId);
+                    relatedByOrdinal[existing] = NONE;
+                    scoresByOrdinal[existing] = NO_SCORES;
+                    recomputeListsHolding(existing);
+                }
+                return;
+            }
+
+            int ordinal = ordinalFor(productId);
+            setFeatures(ordinal, features);
+            compute(ordinal);
+            // Lists that held the product may rank it differently now, the others may take it in
+            Set<Integer> recomputed = recomputeListsHolding(ordinal);
+            int[] related = relatedByOrdinal[ordinal];
+            float[] scores = scoresByOrdinal[ordinal];
+            for (int i = 0; i < related.length; i++) {
+                if (!recomputed.contains(related[i])) {
+                    offer(related[i], ordinal, scores[i]);
+                }
+            }
+        }
+
+        private Set<Integer> recomputeListsHolding(int ordinal) {
+            Set<Integer> holders = new HashSet<>();
+            for (int other = 0; other < ordinals; other++) {
+                if (other != ordinal && indexOf(relatedByOrdinal[other], ordinal) >= 0) {
+                    holders.add(other);
+                }
+            }
+            holders.forEach(this::compute);
+            return holders;
+        }
+
+        // Recomputes the neighbour list of one product from the postings
+        private void compute(int ordinal) {
+            int[] features = featuresByOrdinal[ordinal];
+            if (features.length == 0) {
+                relatedByOrdinal[ordinal] = NONE;
+                scoresByOrdinal[ordinal] = NO_SCORES;
+                return;
+            }
+            float[] weights = weightsByOrdinal[ordinal];
+
+            // Rare features first, so the candidate set is known before the common ones are reached
+            Integer[] order = new Integer[features.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(postingSizes[features[a]], postingSizes[features[b]]));
+
+            int candidates = 0;
+            for (int i : order) {
+                int feature = features[i];
+                BitSet posting = postings.get(feature);
+                if (postingSizes[feature] > MAX_CANDIDATE_POSTING && candidates >= size) {
+                    for (int c = 0; c < candidates; c++) {
+                        int other = touched[c];
+                        if (posting.get(other)) {
+                            overlap[other] += Math.min(weights[i], weightOf(other, feature));
+                        }
+                    }
+                    continue;
+                }
+                for (int other = posting.nextSetBit(0); other >= 0; other = posting.nextSetBit(other + 1)) {
+                    if (other == ordinal) {
+                        continue;
+                    }
+                    if (overlap[other] == 0) {
+                        touched[candidates++] = other;
+                    }
+                    overlap[other] += Math.min(weights[i], weightOf(other, feature));
+                }
+            }
+
+            int[] best = new int[Math.min(size, candidates)];
+            float[] bestScores = new float[best.length];
+            int kept = 0;
+            float total = totalWeightByOrdinal[ordinal];
+            for (int c = 0; c < candidates; c++) {
+                int other = touched[c];
+                float shared = overlap[other];
+                overlap[other] = 0;
+                float score = shared / (total + totalWeightByOrdinal[other] - shared);
+                kept = insert(best, bestScores, kept, other, score);
+            }
+            relatedByOrdinal[ordinal] = best;
+            scoresByOrdinal[ordinal] = bestScores;
+        }
+
+        // Puts the product into another product's list if it ranks there
+        private void offer(int ordinal, int candidate, float score) {
+            int[] related = relatedByOrdinal[ordinal];
+            float[] scores = scoresByOrdinal[ordinal];
+            int capacity = Math.min(size, related.length + 1);
+            int[] best = Arrays.copyOf(related, capacity);
+            float[] bestScores = Arrays.copyOf(scores, capacity);
+            int kept = insert(best, bestScores, related.length, candidate, score);
+            relatedByOrdinal[ordinal] = kept == best.length ? best : Arrays.copyOf(best, kept);
+            scoresByOrdinal[ordinal] = kept == best.length ? bestScores : Arrays.copyOf(bestScores, kept);
+        }
+
+        // Insertion into a list sorted by score, then by ordinal; returns the new length
+        private static int insert(int[] best, float[] scores, int kept, int candidate, float score) {
+            int position = kept;
+            while (position > 0 && (scores[position - 1] < score
+                    || (scores[position - 1] == score && best[position - 1] > candidate))) {
+                position--;
+            }
+            if (position >= best.length) {
+                return kept;
+            }
+            int end = Math.min(kept, best.length - 1);
+            System.arraycopy(best, position, best, position + 1, end - position);
+            System.arraycopy(scores, position, scores, position + 1, end - position);
+            best[position] = candidate;
+            scores[position] = score;
+            return Math.min(kept + 1, best.length);
+        }
+
+        private float weightOf(int ordinal, int feature) {
+            int i = Arrays.binarySearch(featuresByOrdinal[ordinal], feature);
+            return i >= 0 ? weightsByOrdinal[ordinal][i] : 0;
+        }
+
+        private static int indexOf(int[] values, int value) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class Features {
+        private final int[] ids;
+        private final float[] weights;
+
+        private Features(int[] ids, float[] weights) {
+            this.ids = ids;
+            this.weights = weights;
+        }
+    }
+}
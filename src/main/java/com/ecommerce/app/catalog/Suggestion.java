@@ -0,0 +1,49 @@
+package com.ecommerce.app.catalog;
+
+import java.util.Comparator;
+
+/**
+ * One typeahead entry. Instances are immutable; a weight change replaces the entry.
+ */
+public class Suggestion {
+
+    public enum Type { PRODUCT, CATEGORY, TAG }
+
+    // Heaviest first, then alphabetical so results are stable
+    static final Comparator<Suggestion> BY_WEIGHT = Comparator
+            .comparingLong(Suggestion::getWeight).reversed()
+            .thenComparing(Suggestion::getText)
+            .thenComparing(Suggestion::getKey);
+
+    private final Type type;
+    private final Long id;
+    private final String text;
+    private final long weight;
+
+    public Suggestion(Type type, Long id, String text, long weight) {
+        this.type = type;
+        this.id = id;
+        this.text = text;
+        this.weight = weight;
+    }
+
+    public String getKey() {
+        return type + ":" + id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+}
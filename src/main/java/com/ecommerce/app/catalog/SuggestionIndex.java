@@ -0,0 +1,387 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.event.OrderPlacedEvent;
+import com.ecommerce.app.event.ProductChangedEvent;
+import com.ecommerce.app.event.ProductsChangedEvent;
+import com.ecommerce.app.event.ProductsImportedEvent;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.Tag;
+import com.ecommerce.app.repository.OrderItemRepository;
+import com.ecommerce.app.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prefix trie for search box typeahead over product, category and tag names.
+ * Every node caches its top suggestions by popularity, so a lookup costs one
+ * walk down the prefix. Entries are also reachable from each word start,
+ * e.g. "dining" finds "Oak Dining Table".
+ */
+@Component
+public class SuggestionIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    // Swapped whole by a rebuild; writers mutate it under the instance monitor
+    private volatile Trie trie = new Trie();
+
+    // Products changed or sold while a rebuild was loading, re-read once it is swapped in
+    private boolean rebuilding;
+    private final Set<Long> changedDuringRebuild = new HashSet<>();
+
+    public SuggestionIndex(ProductRepository productRepository, OrderItemRepository orderItemRepository) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            rebuilding = true;
+            changedDuringRebuild.clear();
+        }
+
+        // Built off to the side so lookups keep using the current trie, and removed products do not linger
+        Trie built = new Trie();
+        boolean loaded = false;
+        Set<Long> changed;
+        try {
+            for (Object[] row : orderItemRepository.sumQuantityByProduct()) {
+                built.unitsSold.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            productRepository.findAllWithCategoryAndTags().forEach(built::index);
+            loaded = true;
+        } finally {
+            synchronized (this) {
+                if (loaded) {
+                    trie = built;
+                }
+                rebuilding = false;
+                changed = new HashSet<>(changedDuringRebuild);
+                changedDuringRebuild.clear();
+            }
+        }
+        if (!changed.isEmpty()) {
+            refresh(new ArrayList<>(changed));
+        }
+        logger.info("Suggestion index built with {} entries in {} ms",
+                built.entries.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getProductId());
+            return;
+        }
+        productRepository.findWithCategoryAndTagsById(event.getProductId())
+                .ifPresentOrElse(this::index, () -> remove(event.getProductId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductsChangedEvent event) {
+        for (List<Long> batch : event.batches()) {
+            List<Product> products = productRepository.findWithCategoryAndTagsByIdIn(batch);
+            synchronized (this) {
+                products.forEach(this::index);
+            }
+        }
+    }
+
+    /**
+     * Adds the ordered units to the products' popularity so ranking follows sales between rebuilds
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderPlaced(OrderPlacedEvent event) {
+        List<Long> productIds = event.getProductIds();
+        for (int i = 0; i < productIds.size(); i++) {
+            Long id = productIds.get(i);
+            trie.sold(id, event.getQuantities().get(i));
+            if (rebuilding) {
+                changedDuringRebuild.add(id);
+            }
+        }
+    }
+
+    /**
+     * Most popular suggestions starting with the prefix at a word boundary
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Node node = trie.root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<Suggestion> top = node.top;
+        return top.size() <= limit ? top : top.subList(0, limit);
+    }
+
+    /**
+     * Add or refresh a product together with the counts of its category and tags
+     */
+    public synchronized void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        trie.index(product);
+        if (rebuilding) {
+            changedDuringRebuild.add(product.getId());
+        }
+    }
+
+    public synchronized void remove(Long productId) {
+        trie.remove(productId);
+        if (rebuilding) {
+            changedDuringRebuild.add(productId);
+        }
+    }
+
+    // Re-reads products and their units sold, as the rebuild's load may have missed their latest changes
+    private void refresh(List<Long> productIds) {
+        List<Product> products = productRepository.findWithCategoryAndTagsByIdIn(productIds);
+        List<Object[]> sales = orderItemRepository.sumQuantityByProductIdIn(productIds);
+        synchronized (this) {
+            for (Object[] row : sales) {
+                trie.unitsSold.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            Set<Long> found = new HashSet<>();
+            for (Product product : products) {
+                found.add(product.getId());
+                trie.index(product);
+            }
+            for (Long id : productIds) {
+                if (!found.contains(id)) {
+                    trie.remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Trie of one build with its writer-side bookkeeping. Only mutated under
+     * the SuggestionIndex monitor, or before it is published.
+     */
+    private static final class Trie {
+
+        final Node root = new Node();
+        final Map<String, Suggestion> entries = new HashMap<>();
+        final Map<Long, Long> unitsSold = new HashMap<>();
+        final Map<Long, Long> productCategory = new HashMap<>();
+        final Map<Long, Set<Long>> productTags = new HashMap<>();
+        final Map<Long, String> categoryNames = new HashMap<>();
+        final Map<Long, String> tagNames = new HashMap<>();
+        final Map<Long, Integer> categoryCounts = new HashMap<>();
+        final Map<Long, Integer> tagCounts = new HashMap<>();
+
+        void index(Product product) {
+            if (product == null || product.getId() == null) {
+                return;
+            }
+            remove(product.getId());
+            if (!product.isActive()) {
+                return;
+            }
+
+            Long id = product.getId();
+            put(new Suggestion(Suggestion.Type.PRODUCT, id, product.getName(), 1 + unitsSold.getOrDefault(id, 0L)));
+
+            if (product.getCategory() != null && product.getCategory().getId() != null) {
+                Long categoryId = product.getCategory().getId();
+                productCategory.put(id, categoryId);
+                categoryNames.put(categoryId, product.getCategory().getName());
+                adjust(Suggestion.Type.CATEGORY, categoryId, categoryNames, categoryCounts, 1);
+            }
+            if (product.getTags() != null && !product.getTags().isEmpty()) {
+                Set<Long> tagIds = new HashSet<>();
+                for (Tag tag : product.getTags()) {
+                    tagIds.add(tag.getId());
+                    tagNames.put(tag.getId(), tag.getName());
+                    adjust(Suggestion.Type.TAG, tag.getId(), tagNames, tagCounts, 1);
+                }
+                productTags.put(id, tagIds);
+            }
+        }
+
+        void remove(Long productId) {
+            delete(Suggestion.Type.PRODUCT + ":" + productId);
+
+            Long categoryId = productCategory.remove(productId);
+            if (categoryId != null) {
+                adjust(Suggestion.Type.CATEGORY, categoryId, categoryNames, categoryCounts, -1);
+            }
+            Set<Long> tagIds = productTags.remove(productId);
+            if (tagIds != null) {
+                for (Long tagId : tagIds) {
+                    adjust(Suggestion.Type.TAG, tagId, tagNames, tagCounts, -1);
+                }
+            }
+        }
+
+        // Re-weights the product entry in place when it is indexed
+        void sold(Long productId, long units) {
+            long total = unitsSold.merge(productId, units, Long::sum);
+            Suggestion existing = entries.get(Suggestion.Type.PRODUCT + ":" + productId);
+            if (existing != null) {
+                put(new Suggestion(Suggestion.Type.PRODUCT, productId, existing.getText(), 1 + total));
+            }
+        }
+
+        // Category and tag weight is the number of active products carrying them
+        private void adjust(Suggestion.Type type, Long id, Map<Long, String> names, Map<Long, Integer> counts, int delta) {
+            int count = counts.merge(id, delta, Integer::sum);
+            if (count <= 0) {
+                counts.remove(id);
+                delete(type + ":" + id);
+            } else {
+                put(new Suggestion(type, id, names.get(id), count));
+            }
+        }
+
+        private void put(Suggestion suggestion) {
+            delete(suggestion.getKey());
+            if (suggestion.getText() == null || normalize(suggestion.getText()).isEmpty()) {
+                return;
+            }
+            entries.put(suggestion.getKey(), suggestion);
+            for (String phrase : phrases(suggestion.getText())) {
+                Deque<Node> path = new ArrayDeque<>();
+                Node node = root;
+                path.push(node);
+                for (int i = 0; i < phrase.length(); i++) {
+                    node = node.children.computeIfAbsent(phrase.charAt(i), c -> new Node());
+                    path.push(node);
+                }
+                node.terminals.add(suggestion);
+                refresh(path, phrase);
+            }
+        }
+
+        private void delete(String key) {
+            Suggestion existing = entries.remove(key);
+            if (existing == null) {
+                return;
+            }
+            for (String phrase : phrases(existing.getText())) {
+                Deque<Node> path = new ArrayDeque<>();
+                Node node = root;
+                path.push(node);
+                for (int i = 0; i < phrase.length() && node != null; i++) {
+                    node = node.children.get(phrase.charAt(i));
+                    if (node != null) {
+                        path.push(node);
+                    }
+                }
+                if (node != null) {
+                    node.terminals.remove(existing);
+                }
+                refresh(path, phrase);
+            }
+        }
+
+        // Recompute cached top lists bottom-up along a path, pruning nodes that became empty
+        private static void refresh(Deque<Node> path, String phrase) {
+            // Depth of the deepest node; the edge from depth d to d + 1 is phrase.charAt(d)
+            int depth = path.size() - 1;
+            Node child = null;
+            for (Node node : path) {
+                if (child != null) {
+                    depth--;
+                    if (child.terminals.isEmpty() && child.children.isEmpty()) {
+                        node.children.remove(phrase.charAt(depth));
+                    }
+                }
+                node.top = topOf(node);
+                child = node;
+            }
+        }
+    }
+
+    private static List<Suggestion> topOf(Node node) {
+        Map<String, Suggestion> candidates = new LinkedHashMap<>();
+        for (Suggestion suggestion : node.terminals) {
+            candidates.put(suggestion.getKey(), suggestion);
+        }
+        for (Node child : node.children.values()) {
+            for (Suggestion suggestion : child.top) {
+                candidates.put(suggestion.getKey(), suggestion);
+            }
+        }
+        List<Suggestion> sorted = new ArrayList<>(candidates.values());
+        sorted.sort(Suggestion.BY_WEIGHT);
+        return Collections.unmodifiableList(
+                sorted.size() > MAX_SUGGESTIONS ? new ArrayList<>(sorted.subList(0, MAX_SUGGESTIONS)) : sorted);
+    }
+
+    // The full normalized text plus every suffix starting at a word boundary
+    private static List<String> phrases(String text) {
+        String normalized = normalize(text);
+        List<String> phrases = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return phrases;
+        }
+        phrases.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            phrases.add(normalized.substring(i + 1));
+        }
+        return phrases;
+    }
+
+    /**
+     * Lower-case and collapse every run of non-alphanumerics into a single space
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (char c : text.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(c);
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new ConcurrentHashMap<>();
+        // Entries whose phrase ends exactly here; only touched by the writer
+        final Set<Suggestion> terminals = new HashSet<>();
+        volatile List<Suggestion> top = Collections.emptyList();
+    }
+}
@@ -1,5 +1,7 @@
 package com.ecommerce.app.controller;
 
+import com.ecommerce.app.catalog.CategoryTree;
+import com.ecommerce.app.dto.ProductSelectionDTO;
 import com.ecommerce.app.exception.AccessDeniedException;
 import com.ecommerce.app.model.Category;
 import com.ecommerce.app.model.Tag;
@@ -47,7 +49,6 @@ public class AdminCategoryController {
     @ModelAttribute
     public void addCommonAttributes(Model model) {
         // Add any common attributes needed across all admin category pages
-        model.addAttribute("productService", productService);
     }
     
     @GetMapping
@@ -59,6 +60,7 @@ public class AdminCategoryController {
         List<Category> categories = categoryService.getAllCategories();
         
         model.addAttribute("categories", categories);
+        model.addAttribute("categoryTree", categoryService.getCategoryTree());
         model.addAttribute("category", new Category());
         model.addAttribute("editing", false); // Initialize editing flag
         
@@ -68,6 +70,7 @@ public class AdminCategoryController {
     @PostMapping("/create")
     public String createCategory(@Valid Category category, 
                               BindingResult result,
+                              @RequestParam(required = false) Long parentId,
                               RedirectAttributes redirectAttributes,
                               HttpSession session) {
         verifyAdminAccess(session);
@@ -78,6 +81,7 @@ public class AdminCategoryController {
         }
         
         try {
+            category.setParent(parentId != null ? categoryService.getCategoryById(parentId).orElse(null) : null);
             Category savedCategory = categoryService.saveCategory(category);
             redirectAttributes.addFlashAttribute("success", "Category created successfully");
         } catch (Exception e) {
@@ -100,10 +104,13 @@ public class AdminCategoryController {
             return "redirect:/admin/categories";
         }
         
+        CategoryTree tree = categoryService.getCategoryTree();
+        
         model.addAttribute("category", categoryOpt.get());
         model.addAttribute("categories", categoryService.getAllCategories());
+        model.addAttribute("categoryTree", tree);
+        model.addAttribute("parentId", tree.find(id).map(CategoryTree.Node::getParentId).orElse(null));
         model.addAttribute("editing", true);
-        model.addAttribute("productService", productService); // Add productService to access countProductsByCategory
         
         return "admin/category/list";
     }
@@ -112,6 +119,7 @@ public class AdminCategoryController {
     public String updateCategory(@PathVariable Long id,
                               @Valid Category category,
                               BindingResult result,
+                              @RequestParam(required = false) Long parentId,
                               RedirectAttributes redirectAttributes,
                               HttpSession session) {
         verifyAdminAccess(session);
@@ -131,6 +139,7 @@ public class AdminCategoryController {
             Category existingCategory = existingCategoryOpt.get();
             existingCategory.setName(category.getName());
             existingCategory.setDescription(category.getDescription());
+            existingCategory.setParent(parentId != null ? categoryService.getCategoryById(parentId).orElse(null) : null);
             
             categoryService.saveCategory(existingCategory);
             redirectAttributes.addFlashAttribute("success", "Category updated successfully");
@@ -173,7 +182,9 @@ public class AdminCategoryController {
         List<Tag> tags = productService.getAllTags();
         
         model.addAttribute("tags", tags);
+        model.addAttribute("tagProductCounts", productService.getTagProductCounts());
         model.addAttribute("tag", new Tag());
+        model.addAttribute("categoryTree", categoryService.getCategoryTree());
         
         return "admin/category/tags";
     }
@@ -216,6 +227,64 @@ public class AdminCategoryController {
         return "redirect:/admin/categories/tags";
     }
     
+    @PostMapping("/tags/{id}/rename")
+    public String renameTag(@PathVariable Long id,
+                         @RequestParam String name,
+                         RedirectAttributes redirectAttributes,
+                         HttpSession session) {
+        verifyAdminAccess(session);
+        
+        try {
+            productService.renameTag(id, name);
+            redirectAttributes.addFlashAttribute("success", "Tag renamed successfully");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", "Failed to rename tag: " + e.getMessage());
+        }
+        
+        return "redirect:/admin/categories/tags";
+    }
+    
+    @PostMapping("/tags/{id}/merge")
+    public String mergeTag(@PathVariable Long id,
+                        @RequestParam Long targetId,
+                        RedirectAttributes redirectAttributes,
+                        HttpSession session) {
+        verifyAdminAccess(session);
+        
+        try {
+            productService.mergeTags(id, targetId);
+            redirectAttributes.addFlashAttribute("success", "Tags merged successfully");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", "Failed to merge tags: " + e.getMessage());
+        }
+        
+        return "redirect:/admin/categories/tags";
+    }
+    
+    // Adds the tag to, or with remove=true takes it off, every product matching the selection
+    @PostMapping("/tags/products")
+    public String updateTagProducts(@RequestParam Long tagId,
+                                 @ModelAttribute ProductSelectionDTO selection,
+                                 @RequestParam(defaultValue = "false") boolean remove,
+                                 RedirectAttributes redirectAttributes,
+                                 HttpSession session) {
+        verifyAdminAccess(session);
+        
+        try {
+            if (remove) {
+                int count = productService.unassignTag(tagId, selection);
+                redirectAttributes.addFlashAttribute("success", "Tag removed from " + count + " products");
+            } else {
+                int count = productService.assignTag(tagId, selection);
+                redirectAttributes.addFlashAttribute("success", "Tag added to " + count + " products");
+            }
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", "Failed to update tagged products: " + e.getMessage());
+        }
+        
+        return "redirect:/admin/categories/tags";
+    }
+    
     // Handle admin access denied exceptions
     @ExceptionHandler(AccessDeniedException.class)
     public String handleAdminAccessDenied(AccessDeniedException ex, RedirectAttributes redirectAttributes) {
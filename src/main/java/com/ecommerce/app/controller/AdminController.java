@@ -6,6 +6,7 @@ import com.ecommerce.app.service.CategoryService;
 import com.ecommerce.app.service.OrderService;
 import com.ecommerce.app.service.ProductService;
 import com.ecommerce.app.service.UserService;
+import com.ecommerce.app.utils.KeysetCursor;
 import java.util.ArrayList;
 import java.util.HashSet;
 import jakarta.servlet.http.HttpSession;
@@ -13,6 +14,8 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -31,6 +34,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Controller
@@ -62,6 +66,26 @@ public class AdminController {
         }
     }
     
+    // A malformed cursor just restarts the listing from the first slice
+    private KeysetCursor decodeCursor(String after, Sort.Direction direction) {
+        try {
+            return KeysetCursor.decode(after, "id", direction);
+        } catch (IllegalArgumentException e) {
+            return KeysetCursor.first("id", direction);
+        }
+    }
+    
+    private <T> void addCursorAttributes(Model model, Slice<T> slice, Function<T, Long> idOf,
+                                         KeysetCursor cursor, String after) {
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            T last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            nextCursor = cursor.next(idOf.apply(last), null).encode();
+        }
+        model.addAttribute("after", after);
+        model.addAttribute("nextCursor", nextCursor);
+    }
+    
     // Add model attributes common to all admin pages
     @ModelAttribute
     public void addCommonAttributes(Model model) {
@@ -464,11 +488,21 @@ public class AdminController {
     @GetMapping("/products")
     public String productList(Model model, 
                             @RequestParam(defaultValue = "0") int page,
+                            @RequestParam(required = false) String after,
                             HttpSession session) {
         if (!isAdmin(session)) {
             return "redirect:/";
         }
         
+        // Cursor mode: seek past the last id shown instead of counting and skipping rows
+        if (after != null) {
+            KeysetCursor cursor = decodeCursor(after, Sort.Direction.ASC);
+            Slice<Product> productSlice = productService.getProductsAfter(cursor.getLastId(), 10);
+            model.addAttribute("products", productSlice.getContent());
+            addCursorAttributes(model, productSlice, Product::getId, cursor, after);
+            return "admin/product/list";
+        }
+        
         Page<Product> productPage = productService.getAllProductsPaged(
             PageRequest.of(page, 10));
         
@@ -608,7 +642,7 @@ public class AdminController {
         
         try {
             // Get existing product
-            Product existingProduct = productService.getProductById(id)
+            Product existingProduct = productService.getProductForUpdate(id)
                     .orElseThrow(() -> new RuntimeException("Product not found"));
             
             // Update basic properties
@@ -671,7 +705,7 @@ public class AdminController {
         verifyAdminAccess(session);
         
         try {
-            Product product = productService.getProductById(id)
+            Product product = productService.getProductForUpdate(id)
                     .orElseThrow(() -> new RuntimeException("Product not found"));
             
             // Toggle active status
@@ -763,9 +797,19 @@ public class AdminController {
     @GetMapping("/orders")
     public String orderList(Model model, 
                           @RequestParam(defaultValue = "0") int page,
+                          @RequestParam(required = false) String after,
                           HttpSession session) {
         verifyAdminAccess(session);
         
+        if (after != null) {
+            KeysetCursor cursor = decodeCursor(after, Sort.Direction.DESC);
+            Slice<Order> orderSlice = orderService.getOrdersAfter(null, cursor.getLastId(), 10);
+            model.addAttribute("orders", orderSlice.getContent());
+            model.addAttribute("orderStatuses", OrderStatus.values());
+            addCursorAttributes(model, orderSlice, Order::getId, cursor, after);
+            return "admin/order/list";
+        }
+        
         Page<Order> orderPage = orderService.getAllOrdersPaged(
             PageRequest.of(page, 10));
         
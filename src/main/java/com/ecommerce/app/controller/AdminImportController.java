@@ -0,0 +1,74 @@
+package com.ecommerce.app.controller;
+
+import com.ecommerce.app.catalog.ProductImportJob;
+import com.ecommerce.app.catalog.ProductImporter;
+import com.ecommerce.app.dto.ApiResponseDTO;
+import com.ecommerce.app.exception.AccessDeniedException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@Controller
+@RequestMapping("/admin/products/import")
+public class AdminImportController {
+
+    @Autowired
+    private ProductImporter productImporter;
+
+    private boolean isAdmin(HttpSession session) {
+        Boolean isAdmin = (Boolean) session.getAttribute("isAdmin");
+        return isAdmin != null && isAdmin;
+    }
+
+    private void verifyAdminAccess(HttpSession session) {
+        if (!isAdmin(session)) {
+            throw new AccessDeniedException("You need admin privileges to access this page");
+        }
+    }
+
+    @GetMapping
+    public String importPage(HttpSession session) {
+        verifyAdminAccess(session);
+        return "admin/product/import";
+    }
+
+    /**
+     * Takes the file as the raw request body rather than a multipart upload,
+     * so it is streamed to disk and not held to the multipart size limit
+     */
+    @PostMapping
+    @ResponseBody
+    public ResponseEntity<ApiResponseDTO<ProductImportJob>> startImport(@RequestParam String fileName,
+                                                                        HttpServletRequest request,
+                                                                        HttpSession session) throws IOException {
+        verifyAdminAccess(session);
+        try {
+            ProductImportJob job = productImporter.start(fileName, request.getContentType(), request.getInputStream());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponseDTO.success("Import started", job));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponseDTO.error(e.getMessage(), HttpStatus.BAD_REQUEST.value()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponseDTO.error(e.getMessage(), HttpStatus.CONFLICT.value()));
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    @ResponseBody
+    public ResponseEntity<ApiResponseDTO<ProductImportJob>> getImport(@PathVariable String jobId,
+                                                                      HttpSession session) {
+        verifyAdminAccess(session);
+        return productImporter.getJob(jobId)
+                .map(job -> ResponseEntity.ok(ApiResponseDTO.success(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponseDTO.error("Import not found", HttpStatus.NOT_FOUND.value())));
+    }
+}
@@ -1,13 +1,12 @@
 package com.ecommerce.app.controller;
 
+import com.ecommerce.app.annotation.SessionUser;
 import com.ecommerce.app.model.Cart;
 import com.ecommerce.app.model.CartItem;
 import com.ecommerce.app.model.Product;
 import com.ecommerce.app.model.User;
 import com.ecommerce.app.service.CartService;
 import com.ecommerce.app.service.ProductService;
-import com.ecommerce.app.service.UserService;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -20,6 +19,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/cart")
@@ -31,25 +31,21 @@ public class CartController {
     @Autowired
     private ProductService productService;
     
-    @Autowired
-    private UserService userService;
-    
     @GetMapping
-    public String viewCart(HttpSession session, Model model) {
-        // Get username from session
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+    public String viewCart(@SessionUser User user, Model model) {
+        if (user == null) {
             return "redirect:/login";
         }
         
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
         // Get active cart for user
         Cart activeCart = cartService.getActiveCart(user);
         
         model.addAttribute("cartItems", activeCart.getCartItems());
         model.addAttribute("total", cartService.getCartTotal(activeCart));
+        model.addAttribute("boughtTogether", productService.getFrequentlyBoughtTogether(
+                activeCart.getCartItems().stream()
+                        .map(item -> item.getProduct().getId())
+                        .collect(Collectors.toList()), 4));
         
         return "cart/view";
     }
@@ -57,24 +53,20 @@ public class CartController {
     @PostMapping("/add")
     @ResponseBody
     public ResponseEntity<?> addToCart(@RequestBody Map<String, Object> payload,
-                          HttpSession session) {
+                          @SessionUser User user) {
         
         Long productId = Long.valueOf(payload.get("productId").toString());
         int quantity = payload.get("quantity") != null ? 
                       Integer.parseInt(payload.get("quantity").toString()) : 1;
         
-        String username = (String) session.getAttribute("username");
         Map<String, Object> response = new HashMap<>();
         
-        if (username == null) {
+        if (user == null) {
             response.put("redirect", "/login");
             return ResponseEntity.ok(response);
         }
         
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-                    
             Product product = productService.getProductById(productId)
                     .orElseThrow(() -> new RuntimeException("Product not found"));
             
@@ -104,13 +96,12 @@ public class CartController {
     @PostMapping("/remove-ajax")
     @ResponseBody
     public Map<String, Object> removeFromCartAjax(@RequestBody Map<String, Object> payload,
-                             HttpSession session) {
+                             @SessionUser User user) {
         Map<String, Object> response = new HashMap<>();
         
         Long productId = Long.valueOf(payload.get("productId").toString());
         
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (user == null) {
             response.put("success", false);
             response.put("message", "User not logged in");
             response.put("redirect", "/login");
@@ -118,9 +109,6 @@ public class CartController {
         }
         
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-                    
             Product product = productService.getProductById(productId)
                     .orElseThrow(() -> new RuntimeException("Product not found"));
             
@@ -147,11 +135,10 @@ public class CartController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> updateCartItem(@RequestParam Long productId,
                                @RequestParam int quantity,
-                               HttpSession session) {
+                               @SessionUser User user) {
         Map<String, Object> response = new HashMap<>();
                                
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (user == null) {
             response.put("success", false);
             response.put("message", "User not logged in");
             response.put("redirect", "/login");
@@ -159,9 +146,6 @@ public class CartController {
         }
         
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-                    
             Product product = productService.getProductById(productId)
                     .orElseThrow(() -> new RuntimeException("Product not found"));
             
@@ -193,11 +177,10 @@ public class CartController {
     @PostMapping("/remove")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> removeFromCart(@RequestParam Long productId,
-                               HttpSession session) {
+                               @SessionUser User user) {
         Map<String, Object> response = new HashMap<>();
                                
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (user == null) {
             response.put("success", false);
             response.put("message", "User not logged in");
             response.put("redirect", "/login");
@@ -205,9 +188,6 @@ public class CartController {
         }
         
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-                    
             Product product = productService.getProductById(productId)
                     .orElseThrow(() -> new RuntimeException("Product not found"));
                     
@@ -232,20 +212,16 @@ public class CartController {
     
     @PostMapping("/clear")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> clearCart(HttpSession session) {
+    public ResponseEntity<Map<String, Object>> clearCart(@SessionUser User user) {
         Map<String, Object> response = new HashMap<>();
         
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (user == null) {
             response.put("success", false);
             response.put("message", "User not logged in");
             return ResponseEntity.ok(response);
         }
         
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Get active cart
             Cart activeCart = cartService.getActiveCart(user);
             
@@ -266,21 +242,15 @@ public class CartController {
     
     @GetMapping("/count")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getCartCount(HttpSession session) {
+    public ResponseEntity<Map<String, Object>> getCartCount(@SessionUser User user) {
         Map<String, Object> response = new HashMap<>();
         
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (user == null) {
             response.put("cartCount", 0);
         } else {
             try {
-                User user = userService.findByUsername(username).orElse(null);
-                if (user != null) {
-                    Cart activeCart = cartService.getActiveCart(user);
-                    response.put("cartCount", cartService.getCartItemCount(activeCart));
-                } else {
-                    response.put("cartCount", 0);
-                }
+                Cart activeCart = cartService.getActiveCart(user);
+                response.put("cartCount", cartService.getCartItemCount(activeCart));
             } catch (Exception e) {
                 response.put("cartCount", 0);
             }
@@ -291,24 +261,16 @@ public class CartController {
     
     @GetMapping("/mini")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getMiniCart(HttpSession session) {
+    public ResponseEntity<Map<String, Object>> getMiniCart(@SessionUser User user) {
         Map<String, Object> response = new HashMap<>();
-        String username = (String) session.getAttribute("username");
         
-        if (username == null) {
+        if (user == null) {
             response.put("items", new ArrayList<>());
             response.put("subtotal", "$0.00");
             return ResponseEntity.ok(response);
         }
         
         try {
-            User user = userService.findByUsername(username).orElse(null);
-            if (user == null) {
-                response.put("items", new ArrayList<>());
-                response.put("subtotal", "$0.00");
-                return ResponseEntity.ok(response);
-            }
-            
             Cart activeCart = cartService.getActiveCart(user);
             List<CartItem> cartItems = activeCart.getCartItems();
             List<Map<String, Object>> items = new ArrayList<>();
@@ -368,18 +330,15 @@ public class CartController {
      */
     @GetMapping("/items")
     @ResponseBody
-    public Map<String, Object> getCartItems(HttpSession session) {
+    public Map<String, Object> getCartItems(@SessionUser User user) {
         Map<String, Object> response = new HashMap<>();
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (user == null) {
             response.put("success", false);
             response.put("message", "User not logged in");
             response.put("redirect", "/login");
             return response;
         }
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
             Cart activeCart = cartService.getActiveCart(user);
             List<Map<String, Object>> items = new ArrayList<>();
             for (CartItem item : activeCart.getCartItems()) {
@@ -1,5 +1,6 @@
 package com.ecommerce.app.controller;
 
+import com.ecommerce.app.catalog.CatalogCaches;
 import com.ecommerce.app.utils.DebugUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +25,9 @@ public class DebugController {
     @Autowired
     private DebugUtils debugUtils;
     
+    @Autowired
+    private CatalogCaches catalogCaches;
+    
     /**
      * Check if debug mode is enabled
      * @return Status of debug mode
@@ -122,4 +126,23 @@ public class DebugController {
         
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * Hit, miss and eviction counters of the catalog caches
+     * @return One entry per cache
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (!debugUtils.isDebugEnabled()) {
+            response.put("status", "disabled");
+            return ResponseEntity.ok(response);
+        }
+        
+        response.put("caches", catalogCaches.stats());
+        response.put("timestamp", System.currentTimeMillis());
+        
+        return ResponseEntity.ok(response);
+    }
 }
@@ -1,13 +1,12 @@
 package com.ecommerce.app.controller;
 
-import com.ecommerce.app.model.Product;
+import com.ecommerce.app.annotation.SessionUser;
+import com.ecommerce.app.dto.ProductCardDTO;
 import com.ecommerce.app.model.User;
 import com.ecommerce.app.service.CartService;
 import com.ecommerce.app.service.CategoryService;
 import com.ecommerce.app.service.ProductService;
-import com.ecommerce.app.service.UserService;
 import com.ecommerce.app.service.WishlistService;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -25,9 +24,6 @@ public class HomeController {
     @Autowired
     private CategoryService categoryService;
     
-    @Autowired
-    private UserService userService;
-    
     @Autowired(required = false)
     private WishlistService wishlistService;
 
@@ -38,26 +34,22 @@ public class HomeController {
     public String home(Model model, 
                       @RequestParam(defaultValue = "0") int page, 
                       @RequestParam(defaultValue = "8") int size,
-                      HttpSession session) {
+                      @SessionUser User user) {
         
-        Page<Product> productPage = productService.getActiveProductsPaged(PageRequest.of(page, size));
+        Page<ProductCardDTO> productPage = productService.getActiveProductCards(PageRequest.of(page, size));
         
         // Add cart and wishlist item count to the model
-        String username = (String) session.getAttribute("username");
-        if (username != null) {
+        if (user != null) {
             try {
-                User user = userService.findByUsername(username).orElse(null);
-                if (user != null) {
-                    model.addAttribute("cartItemCount", cartService.getCartItemCount(user));
-                    
-                    // If you have a wishlistService, add wishlist count too
-                    if (wishlistService != null) {
-                        try {
-                            model.addAttribute("wishlistItemCount", wishlistService.getWishlistItemCount(user));
-                        } catch (Exception e) {
-                            System.err.println("Error retrieving wishlist count: " + e.getMessage());
-                            model.addAttribute("wishlistItemCount", 0);
-                        }
+                model.addAttribute("cartItemCount", cartService.getCartItemCount(user));
+                
+                // If you have a wishlistService, add wishlist count too
+                if (wishlistService != null) {
+                    try {
+                        model.addAttribute("wishlistItemCount", wishlistService.getWishlistItemCount(user));
+                    } catch (Exception e) {
+                        System.err.println("Error retrieving wishlist count: " + e.getMessage());
+                        model.addAttribute("wishlistItemCount", 0);
                     }
                 }
             } catch (Exception e) {
@@ -0,0 +1,175 @@
+package com.ecommerce.app.controller;
+
+import com.ecommerce.app.media.MediaStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves uploaded files from MediaStorage. Bodies are never copied through the
+ * heap: on Tomcat the connector sends the file itself with sendfile once the
+ * handler returns, elsewhere FileChannel.transferTo streams it to the response.
+ * Single byte ranges (with If-Range) are honoured so large files can be resumed
+ * and seeked, and the ETag is the content hash, so a re-upload of the same
+ * bytes still revalidates with a 304.
+ */
+@Controller
+@RequestMapping("/media")
+public class MediaController {
+
+    // Below this the request thread writes the file itself, a sendfile hand-off costs more than it saves
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Uploads and derivatives are named after a hash of their content and never rewritten, a changed image gets a new url
+    private static final List<String> IMMUTABLE_DIRECTORIES = List.of(MediaStorage.CONTENT_DIRECTORY, "derived/");
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @GetMapping("/**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String relativePath = UrlPathHelper.defaultInstance.getPathWithinApplication(request)
+                .substring(MediaStorage.URL_PREFIX.length());
+        // Dot files are never uploads, among them the temporary files of writes still in progress
+        Path file = isHidden(relativePath) ? null : mediaStorage.resolveRelative(relativePath);
+        BasicFileAttributes attributes = file != null ? readAttributes(file) : null;
+        if (attributes == null || !attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String eTag = "\"" + mediaStorage.contentHash(file, attributes).substring(0, 16) + "\"";
+
+        CacheControl cacheControl = IMMUTABLE_DIRECTORIES.stream().anyMatch(relativePath::startsWith)
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.noCache();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length;
+        HttpRange range = requestedRange(request, eTag, lastModified);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length) + 1;
+            } catch (IllegalArgumentException e) {
+                start = length;
+            }
+            if (start >= end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        // Uploads are served as what their name says, never sniffed into something executable
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentLengthLong(end - start);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || end == start) {
+            return;
+        }
+
+        if (end - start >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, out);
+                if (sent <= 0) {
+                    // The file shrank underneath us; the client sees a short body rather than a hang
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * The one range to send, or null for the whole file: when there is no Range
+     * header, it asks for several ranges or cannot be parsed, or If-Range names
+     * another version of the file
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String eTag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(eTag)) {
+            long date = parseDate(request);
+            // HTTP dates have second precision
+            if (date < 0 || date / 1000 != lastModified / 1000) {
+                return null;
+            }
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long parseDate(HttpServletRequest request) {
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE);
+        } catch (IllegalArgumentException e) {
+            // An entity tag that is not ours
+            return -1;
+        }
+    }
+
+    private static boolean isHidden(String relativePath) {
+        return relativePath.startsWith(".") || relativePath.contains("/.");
+    }
+
+    private static BasicFileAttributes readAttributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
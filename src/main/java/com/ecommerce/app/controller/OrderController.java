@@ -1,5 +1,7 @@
 package com.ecommerce.app.controller;
 
+import com.ecommerce.app.annotation.SessionUser;
+import com.ecommerce.app.auth.CurrentUser;
 import com.ecommerce.app.model.Address;
 import com.ecommerce.app.model.AddressType;
 import com.ecommerce.app.model.CartItem;
@@ -9,8 +11,9 @@ import com.ecommerce.app.model.User;
 import com.ecommerce.app.service.AddressService;
 import com.ecommerce.app.service.CartService;
 import com.ecommerce.app.service.OrderService;
-import com.ecommerce.app.service.UserService;
 import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -24,31 +27,24 @@ import java.util.List;
 @RequestMapping("/orders")
 public class OrderController {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
+
     @Autowired
     private OrderService orderService;
 
     @Autowired
     private CartService cartService;
 
-    @Autowired
-    private UserService userService;
-    
     @Autowired
     private AddressService addressService;
 
     @GetMapping
-    public String viewOrders(HttpSession session, Model model) {
-        // Get username from session
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+    public String viewOrders(@SessionUser User user, Model model) {
+        if (user == null) {
             return "redirect:/login";
         }
         
-        // Find the user and use it to get their orders
-        User currentUser = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        List<Order> orders = orderService.getOrdersByUser(currentUser);
+        List<Order> orders = orderService.getOrdersByUser(user);
         model.addAttribute("orders", orders);
         
         return "order/list";
@@ -56,23 +52,18 @@ public class OrderController {
 
     @GetMapping("/{id}")
     public String viewOrderDetails(@PathVariable Long id,
-                                 HttpSession session,
+                                 CurrentUser currentUser,
                                  Model model) {
         
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (currentUser == null) {
             return "redirect:/login";
         }
         
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
         Order order = orderService.getOrderById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
         // Check if the user is the order owner or an admin
-        Boolean isAdmin = (Boolean) session.getAttribute("isAdmin");
-        if (!order.getUser().getId().equals(user.getId()) && !(isAdmin != null && isAdmin)) {
+        if (!order.getUser().getId().equals(currentUser.getId()) && !currentUser.isAdmin()) {
             return "redirect:/orders";
         }
         
@@ -81,54 +72,39 @@ public class OrderController {
     }
 
     @GetMapping("/checkout")
-    public String checkout(HttpSession session, Model model, RedirectAttributes redirectAttributes) {
-        System.out.println("==== Checkout Process Started ====");
-        String username = (String) session.getAttribute("username");
-        System.out.println("Username from session: " + username);
-        
-        if (username == null) {
-            System.out.println("No username in session, redirecting to login");
+    public String checkout(@SessionUser User user, Model model, RedirectAttributes redirectAttributes) {
+        if (user == null) {
+            logger.debug("Not signed in, redirecting to login");
             redirectAttributes.addFlashAttribute("error", "Please login to continue with checkout");
             return "redirect:/login?redirect=/orders/checkout";
         }
         
         try {
-            System.out.println("Looking up user: " + username);
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            System.out.println("User found: " + user.getId());
-            
-            System.out.println("Getting cart items for user");
+            logger.debug("Checking out user {}", user.getId());
             List<CartItem> cartItems = cartService.getCartItems(user);
-            System.out.println("Cart items count: " + (cartItems != null ? cartItems.size() : "null"));
+            logger.debug("Cart items count: {}", cartItems != null ? cartItems.size() : null);
             
             if (cartItems == null || cartItems.isEmpty()) {
-                System.out.println("Cart is empty, redirecting back to cart");
+                logger.debug("Cart is empty, redirecting back to cart");
                 redirectAttributes.addFlashAttribute("info", "Your cart is empty. Please add items before checkout");
                 return "redirect:/cart";
             }
             
             // Get user addresses for selection during checkout
-            System.out.println("Getting user addresses");
             List<Address> addresses = addressService.getAddressByUser(user);
-            System.out.println("Found " + addresses.size() + " addresses");
+            logger.debug("Found {} addresses", addresses.size());
             
-            System.out.println("Calculating cart total");
             BigDecimal total = cartService.getCartTotal(user);
-            System.out.println("Cart total: " + total);
+            logger.debug("Cart total: {}", total);
             
             model.addAttribute("cartItems", cartItems);
             model.addAttribute("total", total);
             model.addAttribute("user", user);
             model.addAttribute("addresses", addresses);
             
-            System.out.println("Rendering checkout page");
             return "order/checkout";
         } catch (Exception e) {
-            // Log the error
-            System.err.println("Error during checkout process: " + e.getMessage());
-            System.err.println("Error type: " + e.getClass().getName());
-            e.printStackTrace();
+            logger.error("Error during checkout process", e);
             
             // Add user-friendly error message
             redirectAttributes.addFlashAttribute("error", "There was an error processing your checkout. Please try again later: " + e.getMessage());
@@ -137,7 +113,8 @@ public class OrderController {
     }
 
     @PostMapping("/place")
-    public String placeOrder(HttpSession session,
+    public String placeOrder(@SessionUser User user,
+                           HttpSession session,
                            @RequestParam(value = "addressId", required = false) String addressIdStr,
                            @RequestParam(value = "streetAddress", required = false) String streetAddress,
                            @RequestParam(value = "city", required = false) String city,
@@ -147,16 +124,12 @@ public class OrderController {
                            @RequestParam(value = "saveAddress", required = false) Boolean saveAddress,
                            RedirectAttributes redirectAttributes) {
         
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (user == null) {
             redirectAttributes.addFlashAttribute("error", "Please log in to place an order");
             return "redirect:/login";
         }
         
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             List<CartItem> cartItems = cartService.getCartItems(user);
             
             if (cartItems.isEmpty()) {
@@ -273,23 +246,18 @@ public class OrderController {
 
     @PostMapping("/{id}/cancel")
     public String cancelOrder(@PathVariable Long id, 
-                            HttpSession session,
+                            CurrentUser currentUser,
                             RedirectAttributes redirectAttributes) {
         
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (currentUser == null) {
             return "redirect:/login";
         }
         
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
         Order order = orderService.getOrderById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
         // Check if user is authorized to cancel
-        Boolean isAdmin = (Boolean) session.getAttribute("isAdmin");
-        if (!order.getUser().getId().equals(user.getId()) && !(isAdmin != null && isAdmin)) {
+        if (!order.getUser().getId().equals(currentUser.getId()) && !currentUser.isAdmin()) {
             redirectAttributes.addFlashAttribute("error", "You are not authorized to cancel this order");
             return "redirect:/orders";
         }
@@ -306,23 +274,19 @@ public class OrderController {
 
     @GetMapping("/{id}/confirmation")
     public String orderConfirmation(@PathVariable Long id,
-                                 HttpSession session,
+                                 CurrentUser currentUser,
                                  Model model,
                                  RedirectAttributes redirectAttributes) {
         
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (currentUser == null) {
             return "redirect:/login";
         }
         
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
         Order order = orderService.getOrderById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
         // Verify that this order belongs to the current user
-        if (!order.getUser().getId().equals(user.getId())) {
+        if (!order.getUser().getId().equals(currentUser.getId())) {
             redirectAttributes.addFlashAttribute("error", "You do not have permission to view this order");
             return "redirect:/orders";
         }
@@ -1,22 +1,41 @@
 package com.ecommerce.app.controller;
 
+import com.ecommerce.app.catalog.CatalogFragments;
+import com.ecommerce.app.catalog.CatalogVersion;
+import com.ecommerce.app.catalog.CatalogVersions;
+import com.ecommerce.app.catalog.FacetQuery;
+import com.ecommerce.app.dto.FacetValueDTO;
+import com.ecommerce.app.dto.ProductCardDTO;
+import com.ecommerce.app.dto.ProductDTO;
 import com.ecommerce.app.model.Product;
 import com.ecommerce.app.service.CategoryService;
 import com.ecommerce.app.service.ProductService;
+import com.ecommerce.app.service.RecentlyViewedService;
 import com.ecommerce.app.utils.DebugUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Controller
 @RequestMapping("/products")
@@ -33,13 +52,25 @@ public class ProductController {
     @Autowired
     private DebugUtils debugUtils;
 
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private CatalogFragments catalogFragments;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecentlyViewedService recentlyViewedService;
+
     @GetMapping
     public String getAllProducts(Model model,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             @RequestParam(defaultValue = "name") String sort) {
 
-        Page<Product> productPage = productService.getAllProductsPaged(
+        Page<ProductCardDTO> productPage = productService.getProductCards(
             PageRequest.of(page, size, Sort.by(sort))
         );
         
@@ -49,26 +80,57 @@ public class ProductController {
         model.addAttribute("size", size);
         model.addAttribute("sort", sort);
         model.addAttribute("categories", categoryService.getAllCategories());
+        model.addAttribute("filtersHtml", catalogFragments.render(
+            "product-list-filters:" + catalogVersions.products().getETag(), "product/fragments", "filters",
+            () -> Map.of("facets", FacetValueDTO.fromCounts(productService.getFacetCounts(FacetQuery.all())))));
         
         return "product/list";
     }
 
     @GetMapping("/{id}")
-    public String getProductDetail(@PathVariable Long id, Model model) {
-        productService.getProductById(id).ifPresent(product -> {
-            model.addAttribute("product", product);
-        });
+    public String getProductDetail(@PathVariable Long id, Model model,
+                                   WebRequest webRequest,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) {
+        Optional<CatalogVersion> version = catalogVersions.productPage(id);
+        HttpSession session = request.getSession(false);
+        if (version.isPresent() && session != null) {
+            // A revalidated page is still a view
+            recentlyViewedService.recordView((String) session.getAttribute("username"), id);
+        }
+        // A page carrying flash messages has to be rendered even if the product did not change
+        if (version.isPresent() && RequestContextUtils.getInputFlashMap(request) == null) {
+            if (version.get().isNotModified(webRequest)) {
+                return null;
+            }
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        }
+
+        // The product itself is only loaded when its fragment is not cached for this version
+        version.ifPresent(v -> model.addAttribute("productDataHtml", catalogFragments.render(
+            CatalogFragments.PRODUCT_DATA + id + ":" + v.getETag(), "product/fragments", "product-data",
+            () -> Map.of("productJson", productJson(id)))));
         
         return "product/detail";
     }
 
+    // Same JSON as GET /api/products/{id} returns in its data field
+    private String productJson(Long id) {
+        try {
+            return objectMapper.writeValueAsString(
+                productService.getProductById(id).map(ProductDTO::fromEntity).orElse(null));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize product " + id, e);
+        }
+    }
+
     @GetMapping("/category/{categoryId}")
     public String getProductsByCategory(@PathVariable Long categoryId,
                                       Model model,
                                       @RequestParam(defaultValue = "0") int page,
                                       @RequestParam(defaultValue = "12") int size) {
         
-        Page<Product> productPage = productService.getProductsByCategory(
+        Page<ProductCardDTO> productPage = productService.getProductCardsByCategory(
             categoryId, PageRequest.of(page, size)
         );
         
@@ -81,6 +143,8 @@ public class ProductController {
         model.addAttribute("totalPages", productPage.getTotalPages());
         model.addAttribute("size", size);
         model.addAttribute("categories", categoryService.getAllCategories());
+        model.addAttribute("facets", FacetValueDTO.fromCounts(productService.getFacetCounts(
+            FacetQuery.builder().categoryIds(List.of(categoryId)).build())));
         
         return "product/category";
     }
@@ -91,7 +155,7 @@ public class ProductController {
                               @RequestParam(defaultValue = "0") int page,
                               @RequestParam(defaultValue = "12") int size) {
         
-        Page<Product> productPage = productService.searchProducts(
+        Page<ProductCardDTO> productPage = productService.searchProductCards(
             keyword, PageRequest.of(page, size)
         );
         
@@ -124,7 +188,7 @@ public class ProductController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            Page<Product> productPage = productService.getAllProductsPaged(
+            Page<ProductCardDTO> productPage = productService.getProductCards(
                 PageRequest.of(page, size, Sort.by(sort))
             );
             
@@ -197,7 +261,7 @@ public class ProductController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            Page<Product> productPage = productService.getProductsByCategory(
+            Page<ProductCardDTO> productPage = productService.getProductCardsByCategory(
                 categoryId, PageRequest.of(page, size));
             
             response.put("products", productPage.getContent());
@@ -1,10 +1,10 @@
 package com.ecommerce.app.controller;
 
+import com.ecommerce.app.annotation.SessionUser;
 import com.ecommerce.app.dto.WishlistItemDTO;
 import com.ecommerce.app.model.Product;
 import com.ecommerce.app.model.User;
 import com.ecommerce.app.service.ProductService;
-import com.ecommerce.app.service.UserService;
 import com.ecommerce.app.service.WishlistService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,9 +29,6 @@ public class WishlistController {
     @Autowired
     private ProductService productService;
     
-    @Autowired
-    private UserService userService;
-    
     /**
      * Display the wishlist view page
      * For logged in users, this will merge browser localStorage wishlist with their account wishlist
@@ -91,20 +88,16 @@ public class WishlistController {
     @PostMapping("/sync")
     @ResponseBody
     public ResponseEntity<?> syncWishlist(@RequestBody List<Map<String, Object>> wishlistItems,
-                             HttpSession session) {
-        String username = (String) session.getAttribute("username");
+                             @SessionUser User user) {
         Map<String, Object> response = new HashMap<>();
         
-        if (username == null) {
+        if (user == null) {
             response.put("success", false);
             response.put("message", "User not logged in");
             return ResponseEntity.ok(response);
         }
         
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             // Clear existing wishlist
             wishlistService.clearWishlist(user);
             
@@ -137,14 +130,13 @@ public class WishlistController {
     @PostMapping("/add")
     @ResponseBody
     public ResponseEntity<?> addToWishlist(@RequestBody Map<String, Object> payload,
-                               HttpSession session) {
+                               @SessionUser User user) {
         
         Long productId = Long.valueOf(payload.get("productId").toString());
         
-        String username = (String) session.getAttribute("username");
         Map<String, Object> response = new HashMap<>();
         
-        if (username == null) {
+        if (user == null) {
             // For browser-side wishlist, allow adding without login
             response.put("success", true);
             response.put("browserOnly", true);
@@ -152,9 +144,6 @@ public class WishlistController {
         }
         
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-                    
             Product product = productService.getProductById(productId)
                     .orElseThrow(() -> new RuntimeException("Product not found"));
                     
@@ -181,14 +170,13 @@ public class WishlistController {
     @PostMapping("/remove")
     @ResponseBody
     public ResponseEntity<?> removeFromWishlist(@RequestBody Map<String, Object> payload,
-                                  HttpSession session) {
+                                  @SessionUser User user) {
         
         Long productId = Long.valueOf(payload.get("productId").toString());
         
-        String username = (String) session.getAttribute("username");
         Map<String, Object> response = new HashMap<>();
         
-        if (username == null) {
+        if (user == null) {
             // For browser-side wishlist, allow removal without login
             response.put("success", true);
             response.put("browserOnly", true);
@@ -196,9 +184,6 @@ public class WishlistController {
         }
         
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-                    
             Product product = productService.getProductById(productId)
                     .orElseThrow(() -> new RuntimeException("Product not found"));
                     
@@ -224,19 +209,15 @@ public class WishlistController {
      */
     @GetMapping("/count")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getWishlistCount(HttpSession session) {
+    public ResponseEntity<Map<String, Object>> getWishlistCount(@SessionUser User user) {
         Map<String, Object> response = new HashMap<>();
         
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (user == null) {
             response.put("wishlistCount", 0);
             return ResponseEntity.ok(response);
         }
         
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             int wishlistCount = wishlistService.getWishlistItemCount(user);
             response.put("wishlistCount", wishlistCount);
             
@@ -253,19 +234,15 @@ public class WishlistController {
      */
     @GetMapping("/mini")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getMiniWishlist(HttpSession session) {
+    public ResponseEntity<Map<String, Object>> getMiniWishlist(@SessionUser User user) {
         Map<String, Object> response = new HashMap<>();
         
-        String username = (String) session.getAttribute("username");
-        if (username == null) {
+        if (user == null) {
             response.put("items", List.of());
             return ResponseEntity.ok(response);
         }
         
         try {
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            
             List<Product> wishlistItems = wishlistService.getWishlistItems(user);
             List<Map<String, Object>> items = new ArrayList<>();
             
@@ -1,15 +1,19 @@
 package com.ecommerce.app.controller.api;
 
+import com.ecommerce.app.catalog.CatalogVersions;
 import com.ecommerce.app.dto.ApiResponseDTO;
 import com.ecommerce.app.dto.CategoryDTO;
+import com.ecommerce.app.dto.CategoryNodeDTO;
+import com.ecommerce.app.dto.ProductDTOAssembler;
 import com.ecommerce.app.model.Category;
 import com.ecommerce.app.service.CategoryService;
 import com.ecommerce.app.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,17 +27,34 @@ public class CategoryRestController {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ProductDTOAssembler productDTOAssembler;
+    
+    @Autowired
+    private CatalogVersions catalogVersions;
+    
     @GetMapping
-    public ResponseEntity<ApiResponseDTO<List<CategoryDTO>>> getAllCategories() {
-        List<Category> categories = categoryService.getAllCategories();
-        List<CategoryDTO> categoryDTOs = new ArrayList<>();
-        
-        for (Category category : categories) {
-            int productCount = productService.countProductsByCategory(category.getId());
-            categoryDTOs.add(CategoryDTO.fromEntityWithProductCount(category, productCount));
+    public ResponseEntity<ApiResponseDTO<List<CategoryDTO>>> getAllCategories(WebRequest request) {
+        // The response is already marked 304 when this returns true
+        if (catalogVersions.categories().isNotModified(request)) {
+            return null;
         }
         
-        return ResponseEntity.ok(ApiResponseDTO.success(categoryDTOs));
+        List<Category> categories = categoryService.getAllCategories();
+        List<CategoryDTO> categoryDTOs = productDTOAssembler.toCategoryDTOsWithProductCount(categories);
+        
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            .body(ApiResponseDTO.success(categoryDTOs));
+    }
+    
+    /**
+     * Full category hierarchy from the in-memory snapshot, roots first with nested children
+     */
+    @GetMapping("/tree")
+    public ResponseEntity<ApiResponseDTO<List<CategoryNodeDTO>>> getCategoryTree() {
+        List<CategoryNodeDTO> roots = CategoryNodeDTO.fromNodes(categoryService.getCategoryTree().getRoots());
+        return ResponseEntity.ok(ApiResponseDTO.success(roots));
     }
     
     @GetMapping("/{id}")
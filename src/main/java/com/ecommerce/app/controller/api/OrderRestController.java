@@ -2,12 +2,16 @@ package com.ecommerce.app.controller.api;
 
 import com.ecommerce.app.dto.ApiResponseDTO;
 import com.ecommerce.app.dto.OrderDTO;
+import com.ecommerce.app.dto.SliceResponseDTO;
 import com.ecommerce.app.model.Order;
 import com.ecommerce.app.model.OrderStatus;
 import com.ecommerce.app.model.User;
 import com.ecommerce.app.service.OrderService;
 import com.ecommerce.app.service.UserService;
+import com.ecommerce.app.utils.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -57,6 +61,44 @@ public class OrderRestController {
         return ResponseEntity.ok(ApiResponseDTO.success(orderDTOs));
     }
     
+    /**
+     * Cursor paginated orders for a user, newest first, chosen when an after parameter is present.
+     * Pass an empty after for the first slice and the returned nextCursor afterwards.
+     * @param username the username of the user
+     * @param after cursor returned by the previous slice
+     * @param size number of orders per slice
+     * @return one slice of orders without a total count
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<ApiResponseDTO<SliceResponseDTO<OrderDTO>>> getUserOrdersAfter(
+            @RequestParam(required = false) String username,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        if (username == null || username.isEmpty()) {
+            return ResponseEntity.status(400)
+                    .body(ApiResponseDTO.error("Username is required", 400));
+        }
+        
+        Optional<User> userOpt = userService.findByUsername(username);
+        
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.status(404)
+                    .body(ApiResponseDTO.error("User not found", 404));
+        }
+        
+        KeysetCursor cursor;
+        try {
+            cursor = KeysetCursor.decode(after, "id", Sort.Direction.DESC);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400)
+                    .body(ApiResponseDTO.error(e.getMessage(), 400));
+        }
+        
+        Slice<Order> slice = orderService.getOrdersByUserAfter(userOpt.get(), cursor.getLastId(), size);
+        return ResponseEntity.ok(ApiResponseDTO.success(toSliceResponse(slice, cursor)));
+    }
+    
     /**
      * Get a specific order by ID
      * @param id the order ID
@@ -166,4 +208,44 @@ public class OrderRestController {
         
         return ResponseEntity.ok(ApiResponseDTO.success(orderDTOs));
     }
+    
+    /**
+     * For admin use only - cursor paginated variant of the order listing, newest first
+     * @param username the username of the admin user
+     * @param status optional filter by order status
+     * @param after cursor returned by the previous slice, empty for the first slice
+     * @param size number of orders per slice
+     * @return one slice of orders without a total count
+     */
+    @GetMapping(value = "/admin/all", params = "after")
+    public ResponseEntity<ApiResponseDTO<SliceResponseDTO<OrderDTO>>> getAllOrdersAfter(
+            @RequestParam String username,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        KeysetCursor cursor;
+        try {
+            cursor = KeysetCursor.decode(after, "id", Sort.Direction.DESC);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400)
+                    .body(ApiResponseDTO.error(e.getMessage(), 400));
+        }
+        
+        Slice<Order> slice = orderService.getOrdersAfter(status, cursor.getLastId(), size);
+        return ResponseEntity.ok(ApiResponseDTO.success(toSliceResponse(slice, cursor)));
+    }
+    
+    private SliceResponseDTO<OrderDTO> toSliceResponse(Slice<Order> slice, KeysetCursor cursor) {
+        List<OrderDTO> orderDTOs = slice.getContent().stream()
+                .map(OrderDTO::fromEntity)
+                .collect(Collectors.toList());
+        
+        String nextCursor = null;
+        if (slice.hasContent()) {
+            Long lastId = slice.getContent().get(slice.getNumberOfElements() - 1).getId();
+            nextCursor = cursor.next(lastId, null).encode();
+        }
+        return SliceResponseDTO.fromSlice(slice, orderDTOs, nextCursor);
+    }
 }
@@ -0,0 +1,74 @@
+package com.ecommerce.app.controller.api;
+
+import com.ecommerce.app.catalog.FacetQuery;
+import com.ecommerce.app.catalog.PriceBand;
+import com.ecommerce.app.dto.ApiResponseDTO;
+import com.ecommerce.app.dto.FacetValueDTO;
+import com.ecommerce.app.dto.PageResponseDTO;
+import com.ecommerce.app.dto.ProductCardDTO;
+import com.ecommerce.app.dto.ProductFilterResponseDTO;
+import com.ecommerce.app.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/products/filter")
+public class ProductFilterRestController {
+
+    @Autowired
+    private ProductService productService;
+    
+    /**
+     * Faceted product filtering over the active catalog
+     * Values of the same facet are OR-ed, different facets are AND-ed
+     * @param category category ids
+     * @param tag tag ids
+     * @param tagMatch "any" (default) or "all" tags must match
+     * @param price price band keys, e.g. under-100, 100-250
+     * @param minRating minimum average rating (1-4)
+     * @param inStock only products with stock
+     * @return one page of products plus counts for every facet value
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponseDTO<ProductFilterResponseDTO>> filterProducts(
+            @RequestParam(required = false) List<Long> category,
+            @RequestParam(required = false) List<Long> tag,
+            @RequestParam(defaultValue = "any") String tagMatch,
+            @RequestParam(required = false) List<String> price,
+            @RequestParam(required = false) Integer minRating,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String direction) {
+        
+        FacetQuery query = FacetQuery.builder()
+            .categoryIds(category != null ? category : new ArrayList<>())
+            .tagIds(tag != null ? tag : new ArrayList<>())
+            .matchAllTags("all".equalsIgnoreCase(tagMatch))
+            .priceBands(PriceBand.fromKeys(price))
+            .minRating(minRating)
+            .inStockOnly(inStock)
+            .build();
+        
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? 
+            Sort.Direction.DESC : Sort.Direction.ASC;
+        
+        Page<ProductCardDTO> productPage = productService.filterProductCards(
+            query, PageRequest.of(page, size, Sort.by(sortDirection, sortBy)));
+        
+        ProductFilterResponseDTO response = ProductFilterResponseDTO.builder()
+            .products(PageResponseDTO.fromPage(productPage, productPage.getContent()))
+            .facets(FacetValueDTO.fromCounts(productService.getFacetCounts(query)))
+            .build();
+        
+        return ResponseEntity.ok(ApiResponseDTO.success(response));
+    }
+}
@@ -1,19 +1,40 @@
 package com.ecommerce.app.controller.api;
 
+import com.ecommerce.app.catalog.CatalogVersion;
+import com.ecommerce.app.catalog.CatalogVersions;
 import com.ecommerce.app.dto.ApiResponseDTO;
 import com.ecommerce.app.dto.PageResponseDTO;
+import com.ecommerce.app.dto.ProductCardDTO;
+import com.ecommerce.app.dto.ProductComparisonDTO;
 import com.ecommerce.app.dto.ProductDTO;
+import com.ecommerce.app.dto.ProductDTOAssembler;
 import com.ecommerce.app.dto.ReviewDTO;
+import com.ecommerce.app.dto.SliceResponseDTO;
+import com.ecommerce.app.dto.SuggestionDTO;
 import com.ecommerce.app.model.Product;
+import com.ecommerce.app.repository.ProductRepositoryCustom;
 import com.ecommerce.app.service.ProductService;
+import com.ecommerce.app.service.RecentlyViewedService;
+import com.ecommerce.app.utils.KeysetCursor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,31 +42,100 @@ import java.util.Optional;
 @RequestMapping("/api/products")
 public class ProductRestController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    private static final int STREAM_BATCH_SIZE = 500;
+    
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ProductDTOAssembler productDTOAssembler;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private RecentlyViewedService recentlyViewedService;
+
+    // Same property, from the same Environment, as the enableProductComparison flag in ConfigurationExporter
+    @Value("${app.features.enable-product-comparison:false}")
+    private boolean productComparisonEnabled;
+    
     @GetMapping
-    public ResponseEntity<ApiResponseDTO<PageResponseDTO<ProductDTO>>> getAllProducts(
+    public ResponseEntity<ApiResponseDTO<PageResponseDTO<ProductCardDTO>>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            WebRequest request) {
+        
+        // The response is already marked 304 when this returns true
+        if (catalogVersions.products().isNotModified(request)) {
+            return null;
+        }
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? 
             Sort.Direction.DESC : Sort.Direction.ASC;
             
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
-        Page<Product> productPage = productService.getAllProductsPaged(pageable);
+        Page<ProductCardDTO> productPage = productService.getProductCards(pageable);
         
-        List<ProductDTO> productDTOs = ProductDTO.fromEntities(productPage.getContent());
-        PageResponseDTO<ProductDTO> pageResponse = PageResponseDTO.fromPage(productPage, productDTOs);
+        PageResponseDTO<ProductCardDTO> pageResponse = PageResponseDTO.fromPage(productPage, productPage.getContent());
         
-        return ResponseEntity.ok(ApiResponseDTO.success(pageResponse));
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            .body(ApiResponseDTO.success(pageResponse));
+    }
+    
+    /**
+     * Cursor paginated variant of the product listing, chosen when an after parameter is present.
+     * Pass an empty after for the first slice and the returned nextCursor afterwards; sortBy
+     * (id, name, price or createdAt) and direction only apply to the first slice.
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<ApiResponseDTO<SliceResponseDTO<ProductCardDTO>>> getProductsAfter(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String direction,
+            WebRequest request) {
+        
+        if (catalogVersions.products().isNotModified(request)) {
+            return null;
+        }
+        
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? 
+            Sort.Direction.DESC : Sort.Direction.ASC;
+        
+        KeysetCursor cursor;
+        Slice<ProductCardDTO> slice;
+        try {
+            cursor = KeysetCursor.decode(after, sortBy, sortDirection);
+            slice = productService.getProductCardsAfter(cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400)
+                .body(ApiResponseDTO.error(e.getMessage(), 400));
+        }
+        
+        String nextCursor = null;
+        if (slice.hasContent()) {
+            ProductCardDTO last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            nextCursor = cursor.next(last.getId(), last.sortValue(cursor.getProperty())).encode();
+        }
+        
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            .body(ApiResponseDTO.success(SliceResponseDTO.fromSlice(slice, slice.getContent(), nextCursor)));
     }
     
     /**
      * Get all products without pagination
-     * Warning: This endpoint should be used carefully as it may return a large dataset
+     * Warning: This endpoint should be used carefully as it may return a large dataset,
+     * exports should use the stream parameter instead
      */
     @GetMapping("/all")
     public ResponseEntity<ApiResponseDTO<List<ProductDTO>>> getAllProductsNoPage(
@@ -58,18 +148,82 @@ public class ProductRestController {
         Sort sort = Sort.by(sortDirection, sortBy);
         List<Product> products = productService.getAllProductsSorted(sort);
         
-        List<ProductDTO> productDTOs = ProductDTO.fromEntities(products);
+        List<ProductDTO> productDTOs = productDTOAssembler.toProductDTOs(products);
         
         return ResponseEntity.ok(ApiResponseDTO.success(productDTOs));
     }
     
+    /**
+     * Streaming variant of the full catalog export, chosen with the stream parameter.
+     * stream=ndjson writes one product per line as application/x-ndjson, any other value
+     * writes a chunked JSON array. Products are read and written in fixed-size batches,
+     * so memory use stays flat however large the catalog is.
+     */
+    @GetMapping(value = "/all", params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts(
+            @RequestParam String stream,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String direction) {
+        
+        // Validate before the response is committed, errors cannot be reported mid-stream
+        if (!ProductRepositoryCustom.CURSOR_SORT_PROPERTIES.contains(sortBy)) {
+            ApiResponseDTO<Object> error = ApiResponseDTO.error("Unsupported sort property: " + sortBy, 400);
+            return ResponseEntity.status(400)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, error));
+        }
+        
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? 
+            Sort.Direction.DESC : Sort.Direction.ASC;
+        KeysetCursor cursor = KeysetCursor.first(sortBy, sortDirection);
+        boolean ndjson = "ndjson".equalsIgnoreCase(stream);
+        
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.createGenerator(out);
+            generator.setRootValueSeparator(null);
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            int[] written = {0};
+            productService.forEachProduct(cursor, STREAM_BATCH_SIZE, product -> {
+                try {
+                    generator.writeObject(ProductDTO.fromEntity(product));
+                    if (ndjson) {
+                        generator.writeRaw('\n');
+                    }
+                    if (++written[0] % STREAM_BATCH_SIZE == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+            generator.flush();
+        };
+        
+        return ResponseEntity.ok()
+            .contentType(ndjson ? NDJSON : MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponseDTO<ProductDTO>> getProduct(@PathVariable Long id) {
+    public ResponseEntity<ApiResponseDTO<ProductDTO>> getProduct(@PathVariable Long id, WebRequest request) {
+        Optional<CatalogVersion> version = catalogVersions.product(id);
+        if (version.isPresent() && version.get().isNotModified(request)) {
+            return null;
+        }
+        
         Optional<Product> productOpt = productService.getProductById(id);
         
         if (productOpt.isPresent()) {
+            // The cached product comes with its images and tags loaded
             ProductDTO productDTO = ProductDTO.fromEntity(productOpt.get());
-            return ResponseEntity.ok(ApiResponseDTO.success(productDTO));
+            return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(ApiResponseDTO.success(productDTO));
         } else {
             return ResponseEntity.status(404)
                 .body(ApiResponseDTO.error("Product not found", 404));
@@ -77,35 +231,122 @@ public class ProductRestController {
     }
     
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<ApiResponseDTO<PageResponseDTO<ProductDTO>>> getProductsByCategory(
+    public ResponseEntity<ApiResponseDTO<PageResponseDTO<ProductCardDTO>>> getProductsByCategory(
             @PathVariable Long categoryId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Product> productPage = productService.getProductsByCategory(categoryId, pageable);
+        Page<ProductCardDTO> productPage = productService.getProductCardsByCategory(categoryId, pageable);
         
-        List<ProductDTO> productDTOs = ProductDTO.fromEntities(productPage.getContent());
-        PageResponseDTO<ProductDTO> pageResponse = PageResponseDTO.fromPage(productPage, productDTOs);
+        PageResponseDTO<ProductCardDTO> pageResponse = PageResponseDTO.fromPage(productPage, productPage.getContent());
         
         return ResponseEntity.ok(ApiResponseDTO.success(pageResponse));
     }
     
     @GetMapping("/search")
-    public ResponseEntity<ApiResponseDTO<PageResponseDTO<ProductDTO>>> searchProducts(
+    public ResponseEntity<ApiResponseDTO<PageResponseDTO<ProductCardDTO>>> searchProducts(
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Product> productPage = productService.searchProducts(query, pageable);
+        Page<ProductCardDTO> productPage = productService.searchProductCards(query, pageable);
         
-        List<ProductDTO> productDTOs = ProductDTO.fromEntities(productPage.getContent());
-        PageResponseDTO<ProductDTO> pageResponse = PageResponseDTO.fromPage(productPage, productDTOs);
+        PageResponseDTO<ProductCardDTO> pageResponse = PageResponseDTO.fromPage(productPage, productPage.getContent());
         
         return ResponseEntity.ok(ApiResponseDTO.success(pageResponse));
     }
     
+    /**
+     * Typeahead suggestions for the search box, served from memory
+     * @param q the text typed so far
+     * @param limit maximum number of suggestions (at most 10)
+     * @return product, category and tag names ordered by popularity
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponseDTO<List<SuggestionDTO>>> suggest(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        
+        List<SuggestionDTO> suggestions = SuggestionDTO.fromSuggestions(productService.getSuggestions(q, limit));
+        return ResponseEntity.ok(ApiResponseDTO.success(suggestions));
+    }
+    
+    /**
+     * Products similar to this one by tags and category, most similar first
+     * @param id product id
+     * @param limit maximum number of products (at most app.catalog.related.size)
+     */
+    @GetMapping("/{id}/related")
+    public ResponseEntity<ApiResponseDTO<List<ProductCardDTO>>> getRelatedProducts(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "4") int limit) {
+        
+        return ResponseEntity.ok(ApiResponseDTO.success(productService.getRelatedProducts(id, limit)));
+    }
+    
+    /**
+     * Products most often ordered together with this one, most frequent first
+     * @param id product id
+     * @param limit maximum number of products (at most app.catalog.co-purchase.size)
+     */
+    @GetMapping("/{id}/bought-together")
+    public ResponseEntity<ApiResponseDTO<List<ProductCardDTO>>> getFrequentlyBoughtTogether(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "4") int limit) {
+        
+        return ResponseEntity.ok(ApiResponseDTO.success(productService.getFrequentlyBoughtTogether(List.of(id), limit)));
+    }
+    
+    /**
+     * Products the current user viewed last, newest first
+     * @param limit maximum number of products (at most app.recently-viewed.size)
+     */
+    @GetMapping("/recently-viewed")
+    public ResponseEntity<ApiResponseDTO<List<ProductCardDTO>>> getRecentlyViewed(
+            @RequestParam(defaultValue = "10") int limit,
+            HttpSession session) {
+        
+        String username = (String) session.getAttribute("username");
+        if (username == null) {
+            return ResponseEntity.ok(ApiResponseDTO.<List<ProductCardDTO>>builder()
+                    .success(false)
+                    .message("User not authenticated")
+                    .data(List.of())
+                    .build());
+        }
+        
+        List<Long> ids = recentlyViewedService.getRecentlyViewed(username, limit);
+        return ResponseEntity.ok(ApiResponseDTO.success(productService.getActiveProductCards(ids)));
+    }
+    
+    /**
+     * Compares a few products side by side, see ProductComparisonDTO
+     * @param ids product ids, comma separated; any order gives the same, sorted, columns
+     */
+    @GetMapping("/compare")
+    public ResponseEntity<ApiResponseDTO<ProductComparisonDTO>> compareProducts(@RequestParam List<Long> ids) {
+        if (!productComparisonEnabled) {
+            return ResponseEntity.status(404)
+                .body(ApiResponseDTO.error("Product comparison is not enabled", 404));
+        }
+        
+        ProductComparisonDTO comparison;
+        try {
+            comparison = productService.compareProducts(ids);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400)
+                .body(ApiResponseDTO.error(e.getMessage(), 400));
+        }
+        
+        if (comparison.getColumns().isEmpty()) {
+            return ResponseEntity.status(404)
+                .body(ApiResponseDTO.error("Products not found", 404));
+        }
+        return ResponseEntity.ok(ApiResponseDTO.success(comparison));
+    }
+    
     @GetMapping("/{id}/reviews")
     public ResponseEntity<ApiResponseDTO<List<ReviewDTO>>> getProductReviews(@PathVariable Long id) {
         Optional<Product> productOpt = productService.getProductById(id);
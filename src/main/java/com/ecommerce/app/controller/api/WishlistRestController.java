@@ -1,6 +1,7 @@
 package com.ecommerce.app.controller.api;
 
 import com.ecommerce.app.dto.ApiResponseDTO;
+import com.ecommerce.app.dto.ProductDTOAssembler;
 import com.ecommerce.app.dto.WishlistDTO;
 import com.ecommerce.app.model.Product;
 import com.ecommerce.app.model.User;
@@ -27,6 +28,9 @@ public class WishlistRestController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private ProductDTOAssembler productDTOAssembler;
+    
     @GetMapping
     public ResponseEntity<ApiResponseDTO<WishlistDTO>> getWishlist(@RequestParam String username) {
         if (username == null || username.isEmpty()) {
@@ -43,7 +47,7 @@ public class WishlistRestController {
         
         User user = userOpt.get();
         Wishlist wishlist = wishlistService.getUserWishlist(user);
-        WishlistDTO wishlistDTO = WishlistDTO.fromEntity(wishlist);
+        WishlistDTO wishlistDTO = productDTOAssembler.toWishlistDTO(wishlist);
         
         return ResponseEntity.ok(ApiResponseDTO.success(wishlistDTO));
     }
@@ -76,7 +80,7 @@ public class WishlistRestController {
         
         wishlistService.addProductToWishlist(user, product);
         Wishlist wishlist = wishlistService.getUserWishlist(user);
-        WishlistDTO wishlistDTO = WishlistDTO.fromEntity(wishlist);
+        WishlistDTO wishlistDTO = productDTOAssembler.toWishlistDTO(wishlist);
         
         return ResponseEntity.ok(ApiResponseDTO.success(wishlistDTO));
     }
@@ -109,7 +113,7 @@ public class WishlistRestController {
         
         wishlistService.removeProductFromWishlist(user, product);
         Wishlist wishlist = wishlistService.getUserWishlist(user);
-        WishlistDTO wishlistDTO = WishlistDTO.fromEntity(wishlist);
+        WishlistDTO wishlistDTO = productDTOAssembler.toWishlistDTO(wishlist);
         
         return ResponseEntity.ok(ApiResponseDTO.success(wishlistDTO));
     }
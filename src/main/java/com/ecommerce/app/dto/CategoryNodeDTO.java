@@ -0,0 +1,41 @@
+package com.ecommerce.app.dto;
+
+import com.ecommerce.app.catalog.CategoryTree;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryNodeDTO {
+    private Long id;
+    private String name;
+    private Long parentId;
+    private int depth;
+    @Builder.Default
+    private List<CategoryNodeDTO> children = new ArrayList<>();
+    
+    // Convert a tree node and everything below it
+    public static CategoryNodeDTO fromNode(CategoryTree.Node node) {
+        return CategoryNodeDTO.builder()
+            .id(node.getId())
+            .name(node.getName())
+            .parentId(node.getParentId())
+            .depth(node.getDepth())
+            .children(fromNodes(node.getChildren()))
+            .build();
+    }
+    
+    public static List<CategoryNodeDTO> fromNodes(List<CategoryTree.Node> nodes) {
+        return nodes.stream()
+            .map(CategoryNodeDTO::fromNode)
+            .collect(Collectors.toList());
+    }
+}
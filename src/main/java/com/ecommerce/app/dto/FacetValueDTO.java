@@ -0,0 +1,63 @@
+package com.ecommerce.app.dto;
+
+import com.ecommerce.app.catalog.FacetCounts;
+import com.ecommerce.app.catalog.PriceBand;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetValueDTO {
+    private String value;
+    private String label;
+    private int count;
+    
+    // Convert facet counts to sidebar groups keyed by request parameter name
+    public static Map<String, List<FacetValueDTO>> fromCounts(FacetCounts counts) {
+        Map<String, List<FacetValueDTO>> facets = new LinkedHashMap<>();
+        
+        List<FacetValueDTO> categories = new ArrayList<>();
+        counts.getCategories().forEach((id, count) ->
+            categories.add(of(String.valueOf(id), counts.getCategoryNames().get(id), count)));
+        facets.put("category", categories);
+        
+        List<FacetValueDTO> tags = new ArrayList<>();
+        counts.getTags().forEach((id, count) ->
+            tags.add(of(String.valueOf(id), counts.getTagNames().get(id), count)));
+        facets.put("tag", tags);
+        
+        List<FacetValueDTO> prices = new ArrayList<>();
+        for (PriceBand band : PriceBand.values()) {
+            prices.add(of(band.getKey(), band.getLabel(), counts.getPriceBands().getOrDefault(band, 0)));
+        }
+        facets.put("price", prices);
+        
+        List<FacetValueDTO> ratings = new ArrayList<>();
+        counts.getRatings().forEach((stars, count) ->
+            ratings.add(of(String.valueOf(stars), stars + " stars & up", count)));
+        facets.put("minRating", ratings);
+        
+        List<FacetValueDTO> availability = new ArrayList<>();
+        availability.add(of("true", "In stock", counts.getInStock()));
+        facets.put("inStock", availability);
+        
+        return facets;
+    }
+    
+    private static FacetValueDTO of(String value, String label, int count) {
+        return FacetValueDTO.builder()
+            .value(value)
+            .label(label)
+            .count(count)
+            .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The fields a product grid tile needs, read straight from a projection query
+ * instead of loading Product entities and their collections.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCardDTO {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private BigDecimal salePrice;
+    private String imageUrl;
+    private Long categoryId;
+    private String categoryName;
+    private Double averageRating;
+    private Integer ratingCount;
+    private boolean inStock;
+    private boolean active;
+    private LocalDateTime createdAt;
+
+    // Used by the JPQL constructor expression in ProductRepository, the image is filled in afterwards
+    public ProductCardDTO(Long id, String name, BigDecimal price, BigDecimal salePrice,
+                          Long categoryId, String categoryName, Integer ratingCount, Long ratingSum,
+                          Integer stockQuantity, boolean active, LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.salePrice = salePrice;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.ratingCount = ratingCount != null ? ratingCount : 0;
+        this.averageRating = this.ratingCount > 0 && ratingSum != null ? (double) ratingSum / this.ratingCount : 0.0;
+        this.inStock = active && stockQuantity != null && stockQuantity > 0;
+        this.active = active;
+        this.createdAt = createdAt;
+    }
+
+    // Value of the given sort property, used to build the next keyset cursor
+    public Object sortValue(String property) {
+        switch (property) {
+            case "name":
+                return name;
+            case "price":
+                return price != null ? price.toPlainString() : null;
+            case "createdAt":
+                return createdAt;
+            default:
+                return id;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.ecommerce.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Side by side comparison of a few products. Every row holds one value per
+ * column, in column order, so the table can be rendered without matching ids;
+ * tag rows say whether each product carries the tag.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductComparisonDTO {
+    private List<Column> columns;
+    private List<Row> rows;
+    // Requested ids that matched no product
+    private List<Long> missingIds;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Column {
+        private Long id;
+        private String sku;
+        private String name;
+        private String imageUrl;
+        private boolean active;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private String key;
+        private String label;
+        private List<Object> values;
+    }
+
+    // Products are expected in column order already
+    public static ProductComparisonDTO of(List<ProductDTO> products, List<Long> missingIds) {
+        List<Column> columns = products.stream()
+            .map(product -> Column.builder()
+                .id(product.getId())
+                .sku(product.getSku())
+                .name(product.getName())
+                .imageUrl(product.getImageUrl())
+                .active(product.isActive())
+                .build())
+            .collect(Collectors.toList());
+
+        List<Row> rows = new ArrayList<>();
+        rows.add(row("price", "Price", products, ProductDTO::getPrice));
+        rows.add(row("salePrice", "Sale price", products, ProductDTO::getSalePrice));
+        rows.add(row("category", "Category", products,
+            product -> product.getCategory() != null ? product.getCategory().getName() : null));
+        rows.add(row("averageRating", "Average rating", products, ProductDTO::getAverageRating));
+        rows.add(row("ratingCount", "Reviews", products, ProductDTO::getRatingCount));
+        rows.add(row("inStock", "In stock", products,
+            product -> product.getStockQuantity() != null && product.getStockQuantity() > 0));
+        rows.add(row("stockQuantity", "Quantity available", products, ProductDTO::getStockQuantity));
+        rows.add(row("subscription", "Subscription", products,
+            product -> Boolean.TRUE.equals(product.getIsSubscription())));
+
+        // One row per tag any of the products carries, by name
+        Map<Long, TagDTO> tags = new LinkedHashMap<>();
+        products.forEach(product -> product.getTags().forEach(tag -> tags.putIfAbsent(tag.getId(), tag)));
+        tags.values().stream()
+            .sorted(Comparator.comparing(TagDTO::getName, String.CASE_INSENSITIVE_ORDER))
+            .forEach(tag -> rows.add(row("tag:" + tag.getId(), tag.getName(), products,
+                product -> product.getTags().stream().anyMatch(t -> t.getId().equals(tag.getId())))));
+
+        return ProductComparisonDTO.builder()
+            .columns(columns)
+            .rows(rows)
+            .missingIds(missingIds)
+            .build();
+    }
+
+    private static Row row(String key, String label, List<ProductDTO> products, Function<ProductDTO, Object> value) {
+        List<Object> values = new ArrayList<>(products.size());
+        products.forEach(product -> values.add(value.apply(product)));
+        return Row.builder().key(key).label(label).values(values).build();
+    }
+}
@@ -1,7 +1,6 @@
 package com.ecommerce.app.dto;
 
 import com.ecommerce.app.model.Product;
-import com.ecommerce.app.model.ProductImage;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +18,7 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 public class ProductDTO {
     private Long id;
+    private String sku;
     private String name;
     private String description;
     private BigDecimal price;
@@ -29,20 +29,21 @@ public class ProductDTO {
     private List<ProductImageDTO> images = new ArrayList<>();
     private List<TagDTO> tags = new ArrayList<>();
     private Double averageRating;
+    private Integer ratingCount;
     private LocalDateTime createdAt;
     private boolean active;
     
-    // Helper method to get the primary image URL
+    // Helper method to get the primary image URL, card sized since lists and grids use it
     public String getImageUrl() {
         if (images == null || images.isEmpty()) {
             return "/images/product-placeholder.jpg";
         }
         
-        return images.stream()
+        ProductImageDTO image = images.stream()
             .filter(img -> Boolean.TRUE.equals(img.getIsPrimary()))
             .findFirst()
-            .orElse(images.get(0))
-            .getImageUrl();
+            .orElse(images.get(0));
+        return image.getCardUrl() != null ? image.getCardUrl() : image.getImageUrl();
     }
     
     // Convert from Entity to DTO
@@ -51,8 +52,24 @@ public class ProductDTO {
             return null;
         }
         
+        return fromEntity(product,
+            product.getImages() != null 
+                ? product.getImages().stream()
+                    .map(ProductImageDTO::fromEntity)
+                    .collect(Collectors.toList())
+                : new ArrayList<>(),
+            product.getTags() != null
+                ? product.getTags().stream()
+                    .map(TagDTO::fromEntity)
+                    .collect(Collectors.toList())
+                : new ArrayList<>());
+    }
+    
+    // Convert from Entity to DTO with images and tags that were loaded separately
+    public static ProductDTO fromEntity(Product product, List<ProductImageDTO> images, List<TagDTO> tags) {
         return ProductDTO.builder()
             .id(product.getId())
+            .sku(product.getSku())
             .name(product.getName())
             .description(product.getDescription())
             .price(product.getPrice())
@@ -60,23 +77,17 @@ public class ProductDTO {
             .stockQuantity(product.getStockQuantity())
             .isSubscription(product.getIsSubscription())
             .category(CategoryDTO.fromEntity(product.getCategory()))
-            .images(product.getImages() != null 
-                   ? product.getImages().stream()
-                       .map(ProductImageDTO::fromEntity)
-                       .collect(Collectors.toList())
-                   : new ArrayList<>())
-            .tags(product.getTags() != null
-                 ? product.getTags().stream()
-                     .map(TagDTO::fromEntity)
-                     .collect(Collectors.toList())
-                 : new ArrayList<>())
+            .images(images)
+            .tags(tags)
             .averageRating(product.getAverageRating())
+            .ratingCount(product.getRatingCount())
             .createdAt(product.getCreatedAt())
             .active(product.isActive())
             .build();
     }
     
-    // Convert list of entities to list of DTOs
+    // Convert list of entities to list of DTOs, lazy loads images and tags per product;
+    // pages and lists should go through ProductDTOAssembler instead
     public static List<ProductDTO> fromEntities(List<Product> products) {
         if (products == null) {
             return new ArrayList<>();
@@ -0,0 +1,123 @@
+package com.ecommerce.app.dto;
+
+import com.ecommerce.app.catalog.CategoryTree;
+import com.ecommerce.app.catalog.CategoryTreeIndex;
+import com.ecommerce.app.model.Category;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.ProductImage;
+import com.ecommerce.app.model.Tag;
+import com.ecommerce.app.model.Wishlist;
+import com.ecommerce.app.model.WishlistItem;
+import com.ecommerce.app.repository.ProductImageRepository;
+import com.ecommerce.app.repository.ProductRepository;
+import com.ecommerce.app.repository.WishlistRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Converts lists of entities to DTOs without touching lazy associations per row.
+ * Images and tags for the whole list are loaded with one IN query each and
+ * stitched together in memory; categories are expected to be fetched with the
+ * products (see ProductRepository#findAllWithCategory), so the number of
+ * statements does not depend on how many products are converted.
+ */
+@Component
+public class ProductDTOAssembler {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    @Autowired
+    private CategoryTreeIndex categoryTreeIndex;
+
+    @Transactional(readOnly = true)
+    public List<ProductDTO> toProductDTOs(List<Product> products) {
+        if (products == null || products.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = products.stream().map(Product::getId).collect(Collectors.toList());
+
+        Map<Long, List<ProductImageDTO>> imagesByProduct = new HashMap<>();
+        for (ProductImage image : productImageRepository.findByProductIdIn(ids)) {
+            imagesByProduct.computeIfAbsent(image.getProduct().getId(), id -> new ArrayList<>())
+                .add(ProductImageDTO.fromEntity(image));
+        }
+
+        Map<Long, List<TagDTO>> tagsByProduct = new HashMap<>();
+        for (Object[] row : productRepository.findTagsByProductIds(ids)) {
+            tagsByProduct.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                .add(TagDTO.fromEntity((Tag) row[1]));
+        }
+
+        return products.stream()
+            .map(product -> ProductDTO.fromEntity(product,
+                imagesByProduct.getOrDefault(product.getId(), new ArrayList<>()),
+                tagsByProduct.getOrDefault(product.getId(), new ArrayList<>())))
+            .collect(Collectors.toList());
+    }
+
+    public ProductDTO toProductDTO(Product product) {
+        if (product == null) {
+            return null;
+        }
+        return toProductDTOs(List.of(product)).get(0);
+    }
+
+    /**
+     * Category DTOs with product counts read from the counters in the category tree, no query involved
+     */
+    public List<CategoryDTO> toCategoryDTOsWithProductCount(List<Category> categories) {
+        CategoryTree tree = categoryTreeIndex.getTree();
+        return categories.stream()
+            .map(category -> CategoryDTO.fromEntityWithProductCount(category,
+                tree.find(category.getId()).map(CategoryTree.Node::getProductCount).orElse(0)))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Wishlist items with their products joined in and primary image URLs looked up in one query
+     */
+    @Transactional(readOnly = true)
+    public List<WishlistItemDTO> toWishlistItemDTOs(List<WishlistItem> items) {
+        if (items == null || items.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> productIds = items.stream()
+            .map(item -> item.getProduct().getId())
+            .distinct()
+            .collect(Collectors.toList());
+
+        // Rows come primary image first, keep the first URL seen per product
+        Map<Long, String> imageUrls = new HashMap<>();
+        for (Object[] row : productImageRepository.findImageUrlsByProductIds(productIds)) {
+            imageUrls.putIfAbsent((Long) row[0], (String) row[1]);
+        }
+
+        return items.stream()
+            .map(item -> new WishlistItemDTO(item, imageUrls.get(item.getProduct().getId())))
+            .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public WishlistDTO toWishlistDTO(Wishlist wishlist) {
+        if (wishlist == null) {
+            return null;
+        }
+        return WishlistDTO.fromEntity(wishlist, toWishlistItemDTOs(wishlistRepository.findByWishlist(wishlist)));
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilterResponseDTO {
+    private PageResponseDTO<ProductCardDTO> products;
+    private Map<String, List<FacetValueDTO>> facets;
+}
@@ -19,6 +19,10 @@ public class ProductImageDTO {
     private String imageUrl;
     private Boolean isPrimary;
     private Integer displayOrder;
+    // Per-size variants; the original until they have been generated
+    private String thumbnailUrl;
+    private String cardUrl;
+    private String zoomUrl;
     
     // Convert from Entity to DTO
     public static ProductImageDTO fromEntity(ProductImage image) {
@@ -31,9 +35,16 @@ public class ProductImageDTO {
             .imageUrl(image.getImageUrl())
             .isPrimary(image.getIsPrimary())
             .displayOrder(image.getDisplayOrder())
+            .thumbnailUrl(orOriginal(image.getThumbnailUrl(), image))
+            .cardUrl(orOriginal(image.getCardUrl(), image))
+            .zoomUrl(orOriginal(image.getZoomUrl(), image))
             .build();
     }
     
+    private static String orOriginal(String derivativeUrl, ProductImage image) {
+        return derivativeUrl != null ? derivativeUrl : image.getImageUrl();
+    }
+    
     // Convert list of entities to list of DTOs
     public static List<ProductImageDTO> fromEntities(List<ProductImage> images) {
         if (images == null) {
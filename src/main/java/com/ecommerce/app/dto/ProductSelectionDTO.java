@@ -0,0 +1,32 @@
+package com.ecommerce.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Which products a bulk operation applies to. Criteria left null are not applied,
+ * the ones given must all match.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSelectionDTO {
+    private Long categoryId;
+    @Builder.Default
+    private boolean includeSubcategories = true;
+    private Long taggedWith;
+    private Boolean active;
+    private String nameContains;
+    private List<Long> productIds;
+
+    public boolean isEmpty() {
+        return categoryId == null && taggedWith == null && active == null
+                && (nameContains == null || nameContains.isBlank())
+                && (productIds == null || productIds.isEmpty());
+    }
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Cursor paginated response. Unlike PageResponseDTO there is no total count,
+ * the client follows nextCursor until hasNext is false.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SliceResponseDTO<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    // Create cursor response from Spring Slice, nextCursor is dropped on the last slice
+    public static <T, E> SliceResponseDTO<T> fromSlice(Slice<E> slice, List<T> content, String nextCursor) {
+        return SliceResponseDTO.<T>builder()
+            .content(content)
+            .size(slice.getSize())
+            .hasNext(slice.hasNext())
+            .nextCursor(slice.hasNext() ? nextCursor : null)
+            .build();
+    }
+}
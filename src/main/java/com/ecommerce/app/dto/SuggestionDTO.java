@@ -0,0 +1,61 @@
+package com.ecommerce.app.dto;
+
+import com.ecommerce.app.catalog.Suggestion;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String text;
+    private String type;
+    private Long id;
+    private String url;
+    
+    // Convert from index entry to DTO
+    public static SuggestionDTO fromSuggestion(Suggestion suggestion) {
+        if (suggestion == null) {
+            return null;
+        }
+        
+        String url;
+        switch (suggestion.getType()) {
+            case PRODUCT:
+                url = "/products/" + suggestion.getId();
+                break;
+            case CATEGORY:
+                url = "/products/category/" + suggestion.getId();
+                break;
+            default:
+                url = "/products/search?keyword=" + URLEncoder.encode(suggestion.getText(), StandardCharsets.UTF_8);
+        }
+        
+        return SuggestionDTO.builder()
+            .text(suggestion.getText())
+            .type(suggestion.getType().name().toLowerCase())
+            .id(suggestion.getId())
+            .url(url)
+            .build();
+    }
+    
+    // Convert list of index entries to list of DTOs
+    public static List<SuggestionDTO> fromSuggestions(List<Suggestion> suggestions) {
+        if (suggestions == null) {
+            return new ArrayList<>();
+        }
+        
+        return suggestions.stream()
+            .map(SuggestionDTO::fromSuggestion)
+            .collect(Collectors.toList());
+    }
+}
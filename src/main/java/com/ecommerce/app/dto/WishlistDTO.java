@@ -36,6 +36,15 @@ public class WishlistDTO {
                 .collect(Collectors.toList());
         }
         
+        return fromEntity(wishlist, itemDTOs);
+    }
+    
+    // Convert from Entity to DTO with items that were already converted
+    public static WishlistDTO fromEntity(Wishlist wishlist, List<WishlistItemDTO> itemDTOs) {
+        if (wishlist == null) {
+            return null;
+        }
+        
         return WishlistDTO.builder()
             .id(wishlist.getId())
             .userId(wishlist.getUser() != null ? wishlist.getUser().getId() : null)
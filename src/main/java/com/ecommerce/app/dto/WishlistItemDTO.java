@@ -60,4 +60,20 @@ public class WishlistItemDTO {
         
         this.addedAt = wishlistItem.getAddedAt();
     }
+    
+    // Constructor with the image URL looked up in a batch for the whole wishlist
+    public WishlistItemDTO(WishlistItem wishlistItem, String imageUrl) {
+        this.id = wishlistItem.getId();
+        
+        Product product = wishlistItem.getProduct();
+        if (product != null) {
+            this.productId = product.getId();
+            this.name = product.getName();
+            this.price = product.getPrice();
+            this.salePrice = product.getSalePrice();
+            this.imageUrl = imageUrl != null ? imageUrl : "/images/product-placeholder.jpg";
+        }
+        
+        this.addedAt = wishlistItem.getAddedAt();
+    }
 }
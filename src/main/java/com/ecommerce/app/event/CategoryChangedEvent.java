@@ -0,0 +1,37 @@
+package com.ecommerce.app.event;
+
+/**
+ * Published whenever a category is created, updated, moved or removed, or its product counters change.
+ * The category tree snapshot is rebuilt from it after the surrounding transaction commits.
+ * Counter updates are flagged as counters-only, they leave the category's updatedAt and
+ * so the ETags of its products as they were.
+ */
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+    private final boolean countersOnly;
+
+    public CategoryChangedEvent(Long categoryId) {
+        this(categoryId, false);
+    }
+
+    public CategoryChangedEvent(Long categoryId, boolean countersOnly) {
+        this.categoryId = categoryId;
+        this.countersOnly = countersOnly;
+    }
+
+    /**
+     * Only the product counters of the category changed
+     */
+    public static CategoryChangedEvent countersChanged(Long categoryId) {
+        return new CategoryChangedEvent(categoryId, true);
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public boolean isCountersOnly() {
+        return countersOnly;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.app.event;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published by the order service when an order is created, with the products it contains.
+ * Co-purchase counters and typeahead popularity take it in after the surrounding transaction commits.
+ */
+public class OrderPlacedEvent {
+
+    private final Long orderId;
+    private final List<Long> productIds;
+    // Units ordered, parallel to productIds
+    private final List<Integer> quantities;
+
+    public OrderPlacedEvent(Long orderId, List<Long> productIds) {
+        this(orderId, productIds, Collections.nCopies(productIds.size(), 1));
+    }
+
+    public OrderPlacedEvent(Long orderId, List<Long> productIds, List<Integer> quantities) {
+        if (productIds.size() != quantities.size()) {
+            throw new IllegalArgumentException("Expected one quantity per product");
+        }
+        this.orderId = orderId;
+        this.productIds = List.copyOf(productIds);
+        this.quantities = List.copyOf(quantities);
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public List<Integer> getQuantities() {
+        return quantities;
+    }
+}
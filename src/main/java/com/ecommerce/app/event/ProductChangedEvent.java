@@ -0,0 +1,51 @@
+package com.ecommerce.app.event;
+
+/**
+ * Published by the product service whenever a product is created, updated or removed.
+ * In-memory catalog structures listen for it after the surrounding transaction commits.
+ * Stock and rating updates are flagged as counters-only, listeners that do not show
+ * those can skip them.
+ */
+public class ProductChangedEvent {
+
+    private final Long productId;
+    private final boolean deleted;
+    private final boolean countersOnly;
+
+    public ProductChangedEvent(Long productId, boolean deleted) {
+        this(productId, deleted, false);
+    }
+
+    public ProductChangedEvent(Long productId, boolean deleted, boolean countersOnly) {
+        this.productId = productId;
+        this.deleted = deleted;
+        this.countersOnly = countersOnly;
+    }
+
+    public static ProductChangedEvent saved(Long productId) {
+        return new ProductChangedEvent(productId, false);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, true);
+    }
+
+    /**
+     * Only the stock or the rating aggregates of the product changed
+     */
+    public static ProductChangedEvent countersChanged(Long productId) {
+        return new ProductChangedEvent(productId, false, true);
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public boolean isCountersOnly() {
+        return countersOnly;
+    }
+}
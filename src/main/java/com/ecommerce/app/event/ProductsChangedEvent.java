@@ -0,0 +1,35 @@
+package com.ecommerce.app.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Published by set-based writes that change many products at once, like bulk tag
+ * operations. Listeners reload the listed products in batches after the surrounding
+ * transaction commits instead of handling one ProductChangedEvent per product.
+ */
+public class ProductsChangedEvent {
+
+    public static final int BATCH_SIZE = 500;
+
+    private final List<Long> productIds;
+
+    public ProductsChangedEvent(List<Long> productIds) {
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    /**
+     * The product ids in slices of at most BATCH_SIZE, small enough for an IN list
+     */
+    public List<List<Long>> batches() {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < productIds.size(); from += BATCH_SIZE) {
+            batches.add(productIds.subList(from, Math.min(from + BATCH_SIZE, productIds.size())));
+        }
+        return batches;
+    }
+}
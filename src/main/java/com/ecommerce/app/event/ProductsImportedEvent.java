@@ -0,0 +1,25 @@
+package com.ecommerce.app.event;
+
+/**
+ * Published once a bulk import has written its last chunk. Imports bypass the product
+ * service, so in-memory catalog structures rebuild from the database instead of
+ * expecting one ProductChangedEvent per row.
+ */
+public class ProductsImportedEvent {
+
+    private final long inserted;
+    private final long updated;
+
+    public ProductsImportedEvent(long inserted, long updated) {
+        this.inserted = inserted;
+        this.updated = updated;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+}
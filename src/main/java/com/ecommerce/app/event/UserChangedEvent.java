@@ -0,0 +1,18 @@
+package com.ecommerce.app.event;
+
+/**
+ * Published by the user service whenever a user's profile or roles change or the user is removed.
+ * The cached view of the signed-in user is dropped again after the surrounding transaction commits.
+ */
+public class UserChangedEvent {
+
+    private final Long userId;
+
+    public UserChangedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
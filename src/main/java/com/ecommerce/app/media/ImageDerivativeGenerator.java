@@ -0,0 +1,312 @@
+package com.ecommerce.app.media;
+
+import com.ecommerce.app.event.ProductChangedEvent;
+import com.ecommerce.app.event.ProductsImportedEvent;
+import com.ecommerce.app.model.ProductImage;
+import com.ecommerce.app.repository.ProductImageRepository;
+import com.ecommerce.app.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes thumbnail, card and zoom sized copies of uploaded product images on a
+ * small, bounded pool of worker threads, so uploads return as soon as the
+ * original is stored. Derivatives are named after a hash of their bytes and
+ * live under /media/derived/, which MediaController serves with immutable caching.
+ * Products are picked up after any change that left images without
+ * derivatives, by a sweep after each bulk import, and once on startup for
+ * whatever a restart interrupted. A full queue only delays work: the images
+ * stay pending and the next sweep or change of the product picks them up. Images that cannot be decoded, or
+ * are not stored locally, get the original as every size.
+ */
+@Component
+public class ImageDerivativeGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageDerivativeGenerator.class);
+
+    public enum Size {
+        THUMBNAIL("thumb", 160),
+        CARD("card", 480),
+        ZOOM("zoom", 1600);
+
+        private final String suffix;
+        private final int maxDimension;
+
+        Size(String suffix, int maxDimension) {
+            this.suffix = suffix;
+            this.maxDimension = maxDimension;
+        }
+
+        public int getMaxDimension() {
+            return maxDimension;
+        }
+    }
+
+    static final String DERIVED_DIRECTORY = "derived/";
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final ProductImageRepository productImageRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MediaStorage mediaStorage;
+    private final ThreadPoolExecutor workers;
+
+    // Products waiting in the queue, so repeated changes do not queue them twice
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    public ImageDerivativeGenerator(ProductImageRepository productImageRepository, ProductRepository productRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    ApplicationEventPublisher eventPublisher, MediaStorage mediaStorage,
+                                    @Value("${app.images.derivatives.threads:2}") int threads,
+                                    @Value("${app.images.derivatives.queue-capacity:500}") int queueCapacity) {
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+        this.eventPublisher = eventPublisher;
+        this.mediaStorage = mediaStorage;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivatives-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Resizing is background work, requests come first
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.isDeleted()) {
+            submit(event.getProductId());
+        }
+    }
+
+    // Imports write image rows without a ProductChangedEvent, the sweep picks them up
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void scheduleSweep() {
+        try {
+            workers.execute(this::sweep);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Could not schedule the image derivative sweep", e);
+        }
+    }
+
+    private void submit(Long productId) {
+        if (!queued.add(productId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                queued.remove(productId);
+                processProduct(productId);
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(productId);
+            logger.warn("Image derivative queue is full, product {} is left for later", productId);
+        }
+    }
+
+    // Works through every product with pending images on this worker, leaving the others to new uploads
+    private void sweep() {
+        List<Long> productIds = productImageRepository.findProductIdsWithPendingDerivatives();
+        if (!productIds.isEmpty()) {
+            logger.info("Generating image derivatives for {} products", productIds.size());
+        }
+        productIds.forEach(this::processProduct);
+    }
+
+    void processProduct(Long productId) {
+        Map<Long, Map<Size, String>> derived = new LinkedHashMap<>();
+        // The same upload added twice to one product is only resized once
+        Map<String, Map<Size, String>> byOriginal = new HashMap<>();
+        for (ProductImage image : productImageRepository.findByProductIdOrderByDisplayOrder(productId)) {
+            if (image.getThumbnailUrl() == null) {
+                derived.put(image.getId(), byOriginal.computeIfAbsent(image.getImageUrl(),
+                        url -> sharedOrDerived(productId, image)));
+            }
+        }
+        if (derived.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            derived.forEach((imageId, urls) -> productImageRepository.setDerivatives(imageId,
+                    urls.get(Size.THUMBNAIL), urls.get(Size.CARD), urls.get(Size.ZOOM)));
+            // The image urls are part of the product as served, so its ETag and caches have to move
+            productRepository.touch(List.of(productId), LocalDateTime.now());
+            eventPublisher.publishEvent(ProductChangedEvent.saved(productId));
+        });
+    }
+
+    /**
+     * The derivatives of another image of the same upload if they are all still
+     * stored, which costs no decoding and no disk writes; otherwise new ones
+     */
+    private Map<Size, String> sharedOrDerived(Long productId, ProductImage image) {
+        Optional<ProductImage> sibling = productImageRepository.findFirstByImageUrlAndThumbnailUrlIsNotNull(image.getImageUrl());
+        if (sibling.isPresent()) {
+            Map<Size, String> urls = new EnumMap<>(Size.class);
+            urls.put(Size.THUMBNAIL, sibling.get().getThumbnailUrl());
+            urls.put(Size.CARD, sibling.get().getCardUrl());
+            urls.put(Size.ZOOM, sibling.get().getZoomUrl());
+            // Touched so a deletion pending for the sibling's files holds off until this image refers to them
+            if (urls.values().stream().allMatch(url -> url.equals(image.getImageUrl()) || mediaStorage.touch(url))) {
+                return urls;
+            }
+        }
+        return deriveOrOriginal(productId, image);
+    }
+
+    private Map<Size, String> deriveOrOriginal(Long productId, ProductImage image) {
+        try {
+            Path original = mediaStorage.resolve(image.getImageUrl());
+            if (original != null && Files.isRegularFile(original)) {
+                Map<Size, String> urls = derive(original, productId + "/" + image.getId());
+                if (urls != null) {
+                    return urls;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not generate derivatives of image {}: {}", image.getId(), e.getMessage());
+        }
+        Map<Size, String> urls = new EnumMap<>(Size.class);
+        for (Size size : Size.values()) {
+            urls.put(size, image.getImageUrl());
+        }
+        return urls;
+    }
+
+    /**
+     * Writes every size of the given file under derived/{name}-{size}-{hash},
+     * returns their urls, or null if the file is not an image ImageIO can read
+     */
+    Map<Size, String> derive(Path original, String name) throws IOException {
+        BufferedImage source = ImageIO.read(original.toFile());
+        if (source == null) {
+            return null;
+        }
+        boolean alpha = source.getColorModel().hasAlpha();
+        String extension = alpha ? "png" : "jpg";
+
+        Map<Size, String> urls = new EnumMap<>(Size.class);
+        for (Size size : Size.values()) {
+            byte[] bytes = encode(scale(source, size.maxDimension), alpha);
+            String relative = name + "-" + size.suffix + "-" + hash(bytes) + "." + extension;
+            urls.put(size, mediaStorage.write(DERIVED_DIRECTORY + relative, bytes));
+        }
+        return urls;
+    }
+
+    /**
+     * Fits the image into a square of the given side, never enlarging it. Large
+     * reductions halve the image in steps, a single bilinear pass would drop detail.
+     */
+    static BufferedImage scale(BufferedImage source, int maxDimension) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        boolean alpha = source.getColorModel().hasAlpha();
+
+        BufferedImage current = source;
+        int currentWidth = width;
+        int currentHeight = height;
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!alpha) {
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, currentWidth, currentHeight);
+                }
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+        return current;
+    }
+
+    private static byte[] encode(BufferedImage image, boolean alpha) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,279 @@
+package com.ecommerce.app.media;
+
+import com.ecommerce.app.model.MediaDeletion;
+import com.ecommerce.app.model.ProductImage;
+import com.ecommerce.app.repository.MediaDeletionRepository;
+import com.ecommerce.app.repository.ProductImageRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes stored files after whatever referenced them is gone. Callers journal
+ * the urls in the transaction that removes the references, so a rollback keeps
+ * the files and a crash after the commit cannot leave them behind. Files are
+ * shared by every image of the same content, so one is only deleted once no
+ * image refers to it any more. A single background thread works through due
+ * entries in batches, retrying failures with exponential backoff, and now and
+ * then walks the upload directories for files no product image refers to,
+ * which are journaled like any other.
+ */
+@Component
+public class MediaDeletionJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaDeletionJournal.class);
+
+    // Only directories product images are stored in, anything else below the upload path is left alone
+    static final List<String> SCANNED_DIRECTORIES = List.of("products", "derived", "content");
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MediaDeletionRepository mediaDeletionRepository;
+    private final ProductImageRepository productImageRepository;
+    private final MediaStorage mediaStorage;
+    private final Duration sweepInterval;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxBackoff;
+    private final Duration orphanScanInterval;
+    private final Duration orphanMinAge;
+    private final ScheduledThreadPoolExecutor worker;
+
+    public MediaDeletionJournal(MediaDeletionRepository mediaDeletionRepository,
+                                ProductImageRepository productImageRepository, MediaStorage mediaStorage,
+                                @Value("${app.media.deletions.sweep-interval:30s}") Duration sweepInterval,
+                                @Value("${app.media.deletions.batch-size:100}") int batchSize,
+                                @Value("${app.media.deletions.max-attempts:10}") int maxAttempts,
+                                @Value("${app.media.deletions.retry-backoff:30s}") Duration retryBackoff,
+                                @Value("${app.media.deletions.max-backoff:6h}") Duration maxBackoff,
+                                @Value("${app.media.orphan-scan.interval:6h}") Duration orphanScanInterval,
+                                @Value("${app.media.orphan-scan.min-age:1h}") Duration orphanMinAge) {
+        this.mediaDeletionRepository = mediaDeletionRepository;
+        this.productImageRepository = productImageRepository;
+        this.mediaStorage = mediaStorage;
+        this.sweepInterval = sweepInterval;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxBackoff = maxBackoff;
+        this.orphanScanInterval = orphanScanInterval;
+        this.orphanMinAge = orphanMinAge;
+        this.worker = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "media-deletions");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Journals the original and derivative files of removed images. Has to run
+     * inside the transaction that deletes the image rows.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Collection<ProductImage> images) {
+        // A set, images that could not be resized list the original as every size
+        Set<String> urls = new LinkedHashSet<>();
+        for (ProductImage image : images) {
+            urls.add(image.getImageUrl());
+            urls.add(image.getThumbnailUrl());
+            urls.add(image.getCardUrl());
+            urls.add(image.getZoomUrl());
+        }
+        urls.remove(null);
+        journal(urls);
+    }
+
+    private void journal(Collection<String> urls) {
+        LocalDateTime now = LocalDateTime.now();
+        List<MediaDeletion> deletions = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            deletions.add(new MediaDeletion(null, url, 0, now, null, now));
+        }
+        mediaDeletionRepository.saveAll(deletions);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        worker.scheduleWithFixedDelay(() -> run("sweep", this::sweep),
+                sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+        if (!orphanScanInterval.isZero()) {
+            worker.scheduleWithFixedDelay(() -> run("orphan scan", this::scanForOrphans),
+                    orphanScanInterval.toMillis(), orphanScanInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // An exception escaping a periodic task would cancel all its later runs
+    private static void run(String name, Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("Media deletion {} failed", name, e);
+        }
+    }
+
+    /**
+     * Deletes the files of every due entry, a batch at a time, until none are due
+     */
+    void sweep() {
+        List<MediaDeletion> due;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            due = mediaDeletionRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                    now, PageRequest.of(0, batchSize));
+            List<Long> done = new ArrayList<>();
+            List<MediaDeletion> deferred = new ArrayList<>();
+            List<MediaDeletion> failed = new ArrayList<>();
+            for (MediaDeletion deletion : due) {
+                try {
+                    // Still referenced, e.g. by another image of the same upload: the entry goes, the file stays
+                    if (productImageRepository.countReferences(deletion.getUrl()) > 0) {
+                        done.add(deletion.getId());
+                        continue;
+                    }
+                    Instant storedAt = storedAt(deletion.getUrl());
+                    if (storedAt != null && storedAt.isAfter(Instant.now().minus(orphanMinAge))) {
+                        // Stored again so recently that the image row of that upload may not have committed yet
+                        deletion.setNextAttemptAt(LocalDateTime.ofInstant(storedAt.plus(orphanMinAge), ZoneId.systemDefault()));
+                        deferred.add(deletion);
+                        continue;
+                    }
+                    // Files that are already gone, or were never stored locally, count as deleted
+                    mediaStorage.delete(deletion.getUrl());
+                    done.add(deletion.getId());
+                } catch (IOException | RuntimeException e) {
+                    deletion.setAttempts(deletion.getAttempts() + 1);
+                    if (deletion.getAttempts() >= maxAttempts) {
+                        // A file that is still there is found again by the next orphan scan
+                        logger.error("Giving up deleting {} after {} attempts: {}",
+                                deletion.getUrl(), deletion.getAttempts(), e.toString());
+                        done.add(deletion.getId());
+                    } else {
+                        deletion.setNextAttemptAt(now.plus(retryDelay(deletion.getAttempts())));
+                        String error = e.toString();
+                        deletion.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+                        failed.add(deletion);
+                    }
+                }
+            }
+            if (!done.isEmpty()) {
+                mediaDeletionRepository.deleteAllByIdInBatch(done);
+            }
+            if (!failed.isEmpty()) {
+                logger.warn("Could not delete {} media files, retrying later", failed.size());
+            }
+            deferred.addAll(failed);
+            if (!deferred.isEmpty()) {
+                mediaDeletionRepository.saveAll(deferred);
+            }
+        } while (due.size() == batchSize);
+    }
+
+    // Modification time of a stored file, null if it is not there
+    private Instant storedAt(String url) throws IOException {
+        Path file = mediaStorage.resolve(url);
+        return file != null && Files.isRegularFile(file) ? Files.getLastModifiedTime(file).toInstant() : null;
+    }
+
+    /**
+     * Wait before the next try after the given number of failed attempts: the
+     * backoff, doubled per further failure, capped at the maximum
+     */
+    Duration retryDelay(int attempts) {
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    /**
+     * Journals stored files that no product image refers to and no entry covers yet
+     */
+    void scanForOrphans() {
+        List<String> candidates = filesOlderThan(Instant.now().minus(orphanMinAge));
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Set<String> referenced = new HashSet<>();
+        for (Object[] row : productImageRepository.findAllImageUrls()) {
+            for (Object url : row) {
+                if (url != null) {
+                    referenced.add((String) url);
+                }
+            }
+        }
+        referenced.addAll(mediaDeletionRepository.findAllUrls());
+
+        List<String> orphans = candidates.stream().filter(url -> !referenced.contains(url)).toList();
+        if (!orphans.isEmpty()) {
+            logger.info("Found {} media files no product image refers to, deleting them", orphans.size());
+            for (int from = 0; from < orphans.size(); from += batchSize) {
+                journal(orphans.subList(from, Math.min(orphans.size(), from + batchSize)));
+            }
+        }
+    }
+
+    /**
+     * Urls of the files in the scanned directories last modified before the
+     * cutoff. Younger files may belong to an upload that has not committed yet.
+     */
+    List<String> filesOlderThan(Instant cutoff) {
+        List<String> urls = new ArrayList<>();
+        for (String directory : SCANNED_DIRECTORIES) {
+            Path start = mediaStorage.resolveRelative(directory);
+            if (start == null || !Files.isDirectory(start)) {
+                continue;
+            }
+            try {
+                Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                        if (attributes.isRegularFile() && attributes.lastModifiedTime().toInstant().isBefore(cutoff)) {
+                            urls.add(mediaStorage.urlOf(file));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        logger.warn("Skipping {} in the orphan scan: {}", file, e.getMessage());
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                logger.warn("Could not scan {} for orphaned media files: {}", start, e.getMessage());
+            }
+        }
+        return urls;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,234 @@
+package com.ecommerce.app.media;
+
+import com.ecommerce.app.catalog.CatalogCache;
+import com.ecommerce.app.config.AppEnvironment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Uploaded files under app.file-upload.base-path, served by MediaController
+ * as /media/{relative path}. Uploads are stored by content address, so the
+ * same photo added to many products takes disk and cache space once; the
+ * ProductImage rows pointing at a file are its references, and
+ * MediaDeletionJournal only removes files none of them point at any more.
+ * Product images uploaded before this storage existed keep their /images/
+ * urls, which resolve against the static directory (app.images.root) so they
+ * can still be read and deleted.
+ */
+@Component
+public class MediaStorage {
+
+    public static final String URL_PREFIX = "/media/";
+
+    // Uploads by content address, shared by every image with the same bytes
+    public static final String CONTENT_DIRECTORY = "content/";
+
+    private static final String LEGACY_PREFIX = "/images/";
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{0,10}");
+
+    private final Path root;
+    private final Path legacyRoot;
+
+    // Content hashes by path, size and modification time, so a file is hashed once per version
+    private final CatalogCache<String, String> hashes = new CatalogCache<>("media-hashes", 10_000, Duration.ofDays(1));
+
+    @Autowired
+    public MediaStorage(AppEnvironment appEnvironment,
+                        @Value("${app.images.root:src/main/resources/static}") String legacyRoot) {
+        this(Paths.get(appEnvironment.getUploadBasePath()), Paths.get(legacyRoot));
+    }
+
+    public MediaStorage(Path root, Path legacyRoot) {
+        this.root = root.toAbsolutePath().normalize();
+        this.legacyRoot = legacyRoot.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Stores the content once under content/{hash prefix}/{sha-256}.{extension}
+     * and returns its url. The source is hashed while it streams past; content
+     * that is already stored is not written again, only its modification time
+     * moves so a pending deletion of the file holds off (see MediaDeletionJournal).
+     * Otherwise a second pass copies it, and the file only appears once its
+     * bytes are checked against the hash.
+     */
+    public String storeContent(InputStreamSource source, String extension) throws IOException {
+        if (extension != null && !EXTENSION.matcher(extension).matches()) {
+            throw new IllegalArgumentException("Invalid media extension: " + extension);
+        }
+        String hash;
+        try (InputStream in = source.getInputStream()) {
+            hash = hash(in);
+        }
+        Path target = resolveRelative(CONTENT_DIRECTORY + hash.substring(0, 2) + "/" + hash
+                + (extension == null || extension.isEmpty() ? "" : "." + extension));
+        if (touch(target)) {
+            return urlOf(target);
+        }
+
+        Files.createDirectories(target.getParent());
+        // Written next to the target and moved, so a half written file is never served
+        Path temp = Files.createTempFile(target.getParent(), ".upload", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(source.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (!hash.equals(HexFormat.of().formatHex(digest.digest()))) {
+                throw new IOException("Upload changed while it was stored");
+            }
+            // A concurrent upload of the same content may have won, its bytes are the same
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return urlOf(target);
+    }
+
+    /**
+     * Writes the bytes to the relative path unless a file is already there, returns its url
+     */
+    public String write(String relativePath, byte[] bytes) throws IOException {
+        Path target = resolveRelative(relativePath);
+        if (target == null) {
+            throw new IllegalArgumentException("Invalid media path: " + relativePath);
+        }
+        if (!Files.exists(target)) {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), ".upload", ".tmp");
+            try {
+                Files.write(temp, bytes);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return urlOf(target);
+    }
+
+    /**
+     * The file behind a /media/ or legacy /images/ url, or null for remote urls
+     * and anything that would resolve outside the storage directories
+     */
+    public Path resolve(String url) {
+        if (url == null) {
+            return null;
+        }
+        if (url.startsWith(URL_PREFIX)) {
+            return resolveRelative(url.substring(URL_PREFIX.length()));
+        }
+        if (url.startsWith(LEGACY_PREFIX)) {
+            return within(legacyRoot, url.substring(1));
+        }
+        return null;
+    }
+
+    /**
+     * A path below the upload directory, null if it would leave it
+     */
+    public Path resolveRelative(String relativePath) {
+        return within(root, relativePath);
+    }
+
+    /**
+     * Moves the modification time of a stored file to now, marking it as used
+     * again; false if there is no such file
+     */
+    public boolean touch(String url) {
+        Path path = resolve(url);
+        return path != null && touch(path);
+    }
+
+    private static boolean touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public boolean delete(String url) throws IOException {
+        Path path = resolve(url);
+        return path != null && Files.deleteIfExists(path);
+    }
+
+    /**
+     * Hex SHA-256 of the file content, remembered for as long as its size and modification time stay the same
+     */
+    public String contentHash(Path file, BasicFileAttributes attributes) {
+        // Content addressed files are named after it
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        String stem = dot < 0 ? name : name.substring(0, dot);
+        if (file.startsWith(root.resolve(CONTENT_DIRECTORY)) && CONTENT_HASH.matcher(stem).matches()) {
+            return stem;
+        }
+        String key = file + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis();
+        return hashes.get(key, k -> hash(file));
+    }
+
+    private static String hash(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return hash(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String hash(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * The /media/ url of a file below the upload directory
+     */
+    public String urlOf(Path file) {
+        return URL_PREFIX + root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static Path within(Path base, String relativePath) {
+        if (relativePath == null || relativePath.isEmpty()) {
+            return null;
+        }
+        Path path = base.resolve(relativePath).normalize();
+        return path.startsWith(base) && !path.equals(base) ? path : null;
+    }
+}
@@ -5,8 +5,11 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,7 +17,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "categories")
+@Table(name = "categories", indexes = @Index(name = "idx_categories_path", columnList = "path"))
 public class Category {
 
     @Id
@@ -32,13 +35,45 @@ public class Category {
     @Column(name = "image_url")
     private String imageUrl;
 
+    // Materialized path of ancestor ids including this one, e.g. "/1/4/9/", maintained by CategoryServiceImpl
+    @Column(length = 255)
+    private String path;
+
+    // Product counters, adjusted by ProductServiceImpl on every product write; read them from the category tree.
+    // Only changed by bulk updates, so saving a stale Category instance cannot overwrite them
+    @Column(name = "product_count", updatable = false)
+    private Integer productCount = 0;
+
+    @Column(name = "active_product_count", updatable = false)
+    private Integer activeProductCount = 0;
+
+    // Moved by the counter updates only, feeds the category listing ETag
+    @Column(name = "counts_updated_at", updatable = false)
+    private LocalDateTime countsUpdatedAt = LocalDateTime.now();
+
+    // Moved by entity updates, feeds the catalog ETags including those of the products in this category
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    // Lazy associations are excluded so cached, detached categories can be compared and printed
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Category parent;
 
     @OneToMany(mappedBy = "parent")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private List<Category> subcategories = new ArrayList<>();
 
     @OneToMany(mappedBy = "category", cascade = CascadeType.ALL)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private List<Product> products = new ArrayList<>();
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
 }
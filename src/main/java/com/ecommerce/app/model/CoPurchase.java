@@ -0,0 +1,31 @@
+package com.ecommerce.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Snapshot row of the co-purchase counters: how many orders contained both products.
+ * Written and read in bulk by CoPurchaseIndex, see CoPurchaseCheckpoint.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "co_purchases", indexes = @Index(name = "idx_co_purchases_product", columnList = "product_id"))
+public class CoPurchase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "partner_id", nullable = false)
+    private Long partnerId;
+
+    @Column(name = "order_count", nullable = false)
+    private Integer orderCount;
+}
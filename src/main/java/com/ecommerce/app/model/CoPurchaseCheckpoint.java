@@ -0,0 +1,29 @@
+package com.ecommerce.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The last order folded into the co_purchases snapshot; a single row with id 1.
+ * Orders after it are replayed from order_items on startup.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "co_purchase_checkpoints")
+public class CoPurchaseCheckpoint {
+
+    @Id
+    private Long id;
+
+    @Column(name = "last_order_id", nullable = false)
+    private Long lastOrderId;
+
+    @Column(name = "saved_at", nullable = false)
+    private LocalDateTime savedAt;
+}
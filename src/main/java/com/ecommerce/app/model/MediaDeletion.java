@@ -0,0 +1,40 @@
+package com.ecommerce.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored file waiting to be deleted. Rows are written in the transaction that
+ * removes whatever referenced the file and dropped by MediaDeletionJournal once
+ * the file is gone; failed attempts move next_attempt_at further out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "media_deletions", indexes = @Index(name = "idx_media_deletions_next_attempt", columnList = "next_attempt_at"))
+public class MediaDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 1000)
+    private String url;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
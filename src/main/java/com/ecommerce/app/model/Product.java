@@ -20,13 +20,24 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_updated_at", columnList = "updated_at"),
+        // Keyset pagination seeks on (sort key, id), see ProductRepositoryImpl.findCardsAfter
+        @Index(name = "idx_products_name_id", columnList = "name, id"),
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_created_at_id", columnList = "created_at, id")
+})
 public class Product {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Supplier's stock keeping unit, the key bulk imports upsert by
+    @Size(max = 64)
+    @Column(unique = true, length = 64)
+    private String sku;
+
     @NotBlank
     @Size(max = 255)
     @Column(nullable = false)
@@ -68,13 +79,43 @@ public class Product {
     @OneToMany(mappedBy = "product")
     private List<Review> reviews = new ArrayList<>();
 
-    @Column(name = "created_at")
+    // Rating aggregates, kept in step with reviews by ProductRepository.applyRatingChange.
+    // Only changed by that bulk update, so saving a stale Product instance cannot undo a review
+    @Column(name = "rating_count", updatable = false)
+    private Integer ratingCount = 0;
+
+    @Column(name = "rating_sum", updatable = false)
+    private Long ratingSum = 0L;
+
+    @Column(name = "rating_1_count", updatable = false)
+    private Integer rating1Count = 0;
+
+    @Column(name = "rating_2_count", updatable = false)
+    private Integer rating2Count = 0;
+
+    @Column(name = "rating_3_count", updatable = false)
+    private Integer rating3Count = 0;
+
+    @Column(name = "rating_4_count", updatable = false)
+    private Integer rating4Count = 0;
+
+    @Column(name = "rating_5_count", updatable = false)
+    private Integer rating5Count = 0;
+
+    // Non-null so every product has a cursor value when sorting by creation date
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Feeds the catalog ETags, so anything shown with the product has to move it (see CatalogVersions)
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
 
     private boolean active = true;
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
     
     @Transient
     public String getImageUrl() {
@@ -94,13 +135,22 @@ public class Product {
     
     @Transient
     public Double getAverageRating() {
-        if (reviews.isEmpty()) {
+        if (ratingCount == null || ratingCount == 0 || ratingSum == null) {
             return 0.0;
         }
-        return reviews.stream()
-            .mapToInt(Review::getRating)
-            .average()
-            .orElse(0.0);
+        return (double) ratingSum / ratingCount;
+    }
+
+    // Number of reviews per star, index 0 holding one-star reviews
+    @Transient
+    public int[] getRatingHistogram() {
+        return new int[] {
+            rating1Count != null ? rating1Count : 0,
+            rating2Count != null ? rating2Count : 0,
+            rating3Count != null ? rating3Count : 0,
+            rating4Count != null ? rating4Count : 0,
+            rating5Count != null ? rating5Count : 0
+        };
     }
 
     // Custom getter for isSubscription with proper Boolean name
@@ -10,7 +10,13 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "product_images")
+@Table(name = "product_images", indexes = {
+        @Index(name = "idx_product_images_image_url", columnList = "image_url"),
+        // Stored files are reference counted across every url column, see ProductImageRepository.countReferences
+        @Index(name = "idx_product_images_thumbnail_url", columnList = "thumbnail_url"),
+        @Index(name = "idx_product_images_card_url", columnList = "card_url"),
+        @Index(name = "idx_product_images_zoom_url", columnList = "zoom_url")
+})
 public class ProductImage {
 
     @Id
@@ -31,6 +37,16 @@ public class ProductImage {
     @Column(name = "display_order")
     private Integer displayOrder = 0;
 
+    // Resized copies written by ImageDerivativeGenerator, null until it has processed the upload
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    @Column(name = "card_url")
+    private String cardUrl;
+
+    @Column(name = "zoom_url")
+    private String zoomUrl;
+
     // Custom getter for isPrimary with proper Boolean name
     public Boolean getIsPrimary() {
         return isPrimary;
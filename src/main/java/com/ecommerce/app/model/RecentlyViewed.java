@@ -0,0 +1,33 @@
+package com.ecommerce.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flushed copy of a user's recently viewed products, newest first as a
+ * comma separated id list. The live list is kept in memory by RecentlyViewedService.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "recently_viewed")
+public class RecentlyViewed {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 50)
+    private String username;
+
+    @Column(name = "product_ids", nullable = false, length = 2000)
+    private String productIds;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -5,7 +5,9 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -26,6 +28,9 @@ public class Tag {
     @Column(unique = true, nullable = false)
     private String name;
 
+    // Excluded so hashing a product's tag set does not load and hash every product of each tag
     @ManyToMany(mappedBy = "tags")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Product> products = new HashSet<>();
 }
@@ -2,8 +2,14 @@ package com.ecommerce.app.repository;
 
 import com.ecommerce.app.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +17,48 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByName(String name);
     
     Boolean existsByName(String name);
+    
+    boolean existsByParentId(Long parentId);
+    
+    boolean existsByPathIsNull();
+    
+    @Query("SELECT c.path FROM Category c WHERE c.id = :id")
+    String findPathById(@Param("id") Long id);
+    
+    // Rows of [id, name, parentId, path, productCount, activeProductCount] in sibling display order
+    @Query("SELECT c.id, c.name, p.id, c.path, c.productCount, c.activeProductCount " +
+           "FROM Category c LEFT JOIN c.parent p ORDER BY c.name, c.id")
+    List<Object[]> findTreeRows();
+    
+    // Rewrites the paths below a moved category, the category itself is saved with its new path beforehand
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Category c SET c.path = CONCAT(:newPath, SUBSTRING(c.path, LENGTH(:oldPath) + 1)) " +
+           "WHERE c.path LIKE CONCAT(:oldPath, '%') AND c.path <> :oldPath")
+    int movePaths(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
+    
+    @Modifying
+    @Query("UPDATE Category c SET c.path = :path WHERE c.id = :id")
+    int updatePath(@Param("id") Long id, @Param("path") String path);
+    
+    @Modifying
+    @Query("UPDATE Category c SET c.productCount = COALESCE(c.productCount, 0) + :total, " +
+           "c.activeProductCount = COALESCE(c.activeProductCount, 0) + :active, " +
+           "c.countsUpdatedAt = :updatedAt WHERE c.id = :id")
+    int adjustProductCounts(@Param("id") Long id, @Param("total") int total, @Param("active") int active,
+                            @Param("updatedAt") LocalDateTime updatedAt);
+    
+    // Recomputes the counters from the products table for rows written around the service, touching only the ones that drifted
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Category c SET " +
+           "c.productCount = (SELECT COUNT(p) FROM Product p WHERE p.category = c), " +
+           "c.activeProductCount = (SELECT COUNT(p) FROM Product p WHERE p.category = c AND p.active = true), " +
+           "c.countsUpdatedAt = :updatedAt " +
+           "WHERE COALESCE(c.productCount, -1) <> (SELECT COUNT(p) FROM Product p WHERE p.category = c) " +
+           "OR COALESCE(c.activeProductCount, -1) <> (SELECT COUNT(p) FROM Product p WHERE p.category = c AND p.active = true)")
+    int recountProducts(@Param("updatedAt") LocalDateTime updatedAt);
+    
+    // Rows of [latest updatedAt, category count, latest countsUpdatedAt], the validators for the listings
+    @Query("SELECT MAX(c.updatedAt), COUNT(c), MAX(c.countsUpdatedAt) FROM Category c")
+    List<Object[]> findListingVersion();
 }
@@ -0,0 +1,18 @@
+package com.ecommerce.app.repository;
+
+import com.ecommerce.app.model.MediaDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MediaDeletionRepository extends JpaRepository<MediaDeletion, Long> {
+    List<MediaDeletion> findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT d.url FROM MediaDeletion d")
+    List<String> findAllUrls();
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.app.repository;
+
+import com.ecommerce.app.model.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+    // Rows of [productId, units sold]
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi GROUP BY oi.product.id")
+    List<Object[]> sumQuantityByProduct();
+
+    // Rows of [productId, units sold] for the given products
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi WHERE oi.product.id IN :productIds " +
+           "GROUP BY oi.product.id")
+    List<Object[]> sumQuantityByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    // Rows of [orderId, productId] for the orders with ids in (afterId, upToId], grouped by order
+    @Query("SELECT oi.order.id, oi.product.id FROM OrderItem oi " +
+           "WHERE oi.order.id > :afterId AND oi.order.id <= :upToId ORDER BY oi.order.id")
+    List<Object[]> findOrderProductsBetween(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+
+    @Query("SELECT MAX(oi.order.id) FROM OrderItem oi")
+    Long findMaxOrderId();
+}
@@ -3,6 +3,8 @@ package com.ecommerce.app.repository;
 import com.ecommerce.app.model.Order;
 import com.ecommerce.app.model.OrderStatus;
 import com.ecommerce.app.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -18,4 +20,11 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByStatus(OrderStatus status);
     
     List<Order> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
+    
+    // Keyset pagination, newest first; pass Long.MAX_VALUE for the first slice
+    Slice<Order> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+    
+    Slice<Order> findByStatusAndIdLessThanOrderByIdDesc(OrderStatus status, Long id, Pageable pageable);
+    
+    Slice<Order> findByUserAndIdLessThanOrderByIdDesc(User user, Long id, Pageable pageable);
 }
@@ -3,13 +3,57 @@ package com.ecommerce.app.repository;
 import com.ecommerce.app.model.ProductImage;
 import com.ecommerce.app.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
     List<ProductImage> findByProduct(Product product);
     List<ProductImage> findByProductIdOrderByDisplayOrder(Long productId);
     ProductImage findByProductAndIsPrimaryTrue(Product product);
+    
+    // Rows of [productId, card sized image url] for a page of products, primary image first
+    @Query("SELECT i.product.id, COALESCE(i.cardUrl, i.imageUrl) FROM ProductImage i WHERE i.product.id IN :productIds " +
+           "ORDER BY i.isPrimary DESC, i.displayOrder ASC, i.id ASC")
+    List<Object[]> findImageUrlsByProductIds(@Param("productIds") Collection<Long> productIds);
+    
+    @Query("SELECT i FROM ProductImage i WHERE i.product.id IN :productIds ORDER BY i.displayOrder ASC, i.id ASC")
+    List<ProductImage> findByProductIdIn(@Param("productIds") Collection<Long> productIds);
+    
+    // Products with images whose derivatives have not been generated yet
+    @Query("SELECT DISTINCT i.product.id FROM ProductImage i WHERE i.thumbnailUrl IS NULL")
+    List<Long> findProductIdsWithPendingDerivatives();
+    
+    // Rows of [imageUrl, thumbnailUrl, cardUrl, zoomUrl] of every image, what stored files are still in use
+    @Query("SELECT i.imageUrl, i.thumbnailUrl, i.cardUrl, i.zoomUrl FROM ProductImage i")
+    List<Object[]> findAllImageUrls();
+    
+    // Images pointing at a stored file as original or any derivative, the file's reference count.
+    // One count per column, each served by its own index; an OR across the columns scans the table
+    default long countReferences(String url) {
+        return countByImageUrl(url) + countByThumbnailUrl(url) + countByCardUrl(url) + countByZoomUrl(url);
+    }
+    
+    long countByImageUrl(String url);
+    
+    long countByThumbnailUrl(String url);
+    
+    long countByCardUrl(String url);
+    
+    long countByZoomUrl(String url);
+    
+    // Another image of the same upload that already has derivatives to share
+    Optional<ProductImage> findFirstByImageUrlAndThumbnailUrlIsNotNull(String imageUrl);
+    
+    @Modifying
+    @Query("UPDATE ProductImage i SET i.thumbnailUrl = :thumbnailUrl, i.cardUrl = :cardUrl, i.zoomUrl = :zoomUrl " +
+           "WHERE i.id = :id")
+    int setDerivatives(@Param("id") Long id, @Param("thumbnailUrl") String thumbnailUrl,
+                       @Param("cardUrl") String cardUrl, @Param("zoomUrl") String zoomUrl);
 }
@@ -1,15 +1,32 @@
 package com.ecommerce.app.repository;
 
+import com.ecommerce.app.dto.ProductCardDTO;
 import com.ecommerce.app.model.Product;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+    // Projection for product grid tiles; images are fetched separately for the whole page
+    String CARD_SELECT = "SELECT new com.ecommerce.app.dto.ProductCardDTO(p.id, p.name, p.price, p.salePrice, " +
+            "c.id, c.name, p.ratingCount, p.ratingSum, p.stockQuantity, p.active, p.createdAt) " +
+            "FROM Product p LEFT JOIN p.category c";
+    
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
     
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
@@ -21,4 +38,111 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByActiveTrue();
     
     int countByCategoryId(Long categoryId);
+    
+    // [categoryId, active] as last written to the database, pending changes to the product are not flushed first
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query("SELECT c.id, p.active FROM Product p LEFT JOIN p.category c WHERE p.id = :id")
+    List<Object[]> findStoredCategoryAndActive(@Param("id") Long id);
+    
+    // Rows of [product updatedAt, category updatedAt], enough to validate a cached product without loading it
+    @Query("SELECT p.updatedAt, c.updatedAt FROM Product p LEFT JOIN p.category c WHERE p.id = :id")
+    List<Object[]> findVersionById(@Param("id") Long id);
+    
+    // Rows of [latest updatedAt, product count], the validator for product listings
+    @Query("SELECT MAX(p.updatedAt), COUNT(p) FROM Product p")
+    List<Object[]> findListingVersion();
+    
+    @Query("SELECT p.id FROM Product p JOIN p.tags t WHERE t.id = :tagId")
+    List<Long> findIdsByTagId(@Param("tagId") Long tagId);
+    
+    @Query("SELECT p.id FROM Product p WHERE p.category.id IN :categoryIds")
+    List<Long> findIdsByCategoryIdIn(@Param("categoryIds") Collection<Long> categoryIds);
+    
+    // Marks products as changed when something they show, like a tag name, changed elsewhere
+    @Modifying
+    @Query("UPDATE Product p SET p.updatedAt = :updatedAt WHERE p.id IN :ids")
+    int touch(@Param("ids") Collection<Long> ids, @Param("updatedAt") LocalDateTime updatedAt);
+    
+    // Full catalog with categories in the same select instead of one eager load per category
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category")
+    List<Product> findAllWithCategory(Sort sort);
+    
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id IN :ids")
+    List<Product> findWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Rows of [productId, tag] for a batch of products
+    @Query("SELECT p.id, t FROM Product p JOIN p.tags t WHERE p.id IN :ids")
+    List<Object[]> findTagsByProductIds(@Param("ids") Collection<Long> ids);
+    
+    // Keyset pagination for the admin product list, pass 0 for the first slice
+    Slice<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    @Query(value = CARD_SELECT, countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductCardDTO> findCards(Pageable pageable);
+    
+    @Query(value = CARD_SELECT + " WHERE p.active = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.active = true")
+    Page<ProductCardDTO> findActiveCards(Pageable pageable);
+    
+    @Query(value = CARD_SELECT + " WHERE c.id = :categoryId",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId")
+    Page<ProductCardDTO> findCardsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+    
+    // Whole subtree of a category, pathPrefix is the category's materialized path followed by %
+    @Query(value = CARD_SELECT + " WHERE c.path LIKE :pathPrefix",
+           countQuery = "SELECT COUNT(p) FROM Product p JOIN p.category c WHERE c.path LIKE :pathPrefix")
+    Page<ProductCardDTO> findCardsByCategoryPath(@Param("pathPrefix") String pathPrefix, Pageable pageable);
+    
+    Page<Product> findByCategoryPathStartingWith(String path, Pageable pageable);
+    
+    @Query(CARD_SELECT + " WHERE p.id IN :ids")
+    List<ProductCardDTO> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Used to build in-memory catalog indexes without lazy loading per product
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.tags")
+    List<Product> findAllWithCategoryAndTags();
+    
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.tags WHERE p.id = :id")
+    Optional<Product> findWithCategoryAndTagsById(@Param("id") Long id);
+    
+    // Two fetch queries per batch of ids: images cannot be join fetched together with tags
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.tags WHERE p.id IN :ids")
+    List<Product> findWithCategoryAndTagsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images WHERE p.id IN :ids")
+    List<Product> findWithImagesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Add (delta = 1) or retract (delta = -1) one review of the given star rating in a single statement
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.ratingCount = p.ratingCount + :delta, " +
+           "p.ratingSum = p.ratingSum + :delta * :rating, " +
+           "p.rating1Count = p.rating1Count + CASE WHEN :rating = 1 THEN :delta ELSE 0 END, " +
+           "p.rating2Count = p.rating2Count + CASE WHEN :rating = 2 THEN :delta ELSE 0 END, " +
+           "p.rating3Count = p.rating3Count + CASE WHEN :rating = 3 THEN :delta ELSE 0 END, " +
+           "p.rating4Count = p.rating4Count + CASE WHEN :rating = 4 THEN :delta ELSE 0 END, " +
+           "p.rating5Count = p.rating5Count + CASE WHEN :rating = 5 THEN :delta ELSE 0 END, " +
+           "p.updatedAt = :updatedAt " +
+           "WHERE p.id = :productId")
+    int applyRatingChange(@Param("productId") Long productId, @Param("rating") int rating, @Param("delta") int delta,
+                          @Param("updatedAt") LocalDateTime updatedAt);
+    
+    // Fills the aggregates of products created before the rating columns existed
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Product p SET " +
+           "p.ratingCount = (SELECT COUNT(r) FROM Review r WHERE r.product = p), " +
+           "p.ratingSum = (SELECT COALESCE(SUM(r.rating), 0) FROM Review r WHERE r.product = p), " +
+           "p.rating1Count = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating = 1), " +
+           "p.rating2Count = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating = 2), " +
+           "p.rating3Count = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating = 3), " +
+           "p.rating4Count = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating = 4), " +
+           "p.rating5Count = (SELECT COUNT(r) FROM Review r WHERE r.product = p AND r.rating = 5) " +
+           "WHERE p.ratingCount IS NULL")
+    int backfillRatingAggregates();
+
+    // Dates products inserted before created_at was required, so keyset cursors never hold a null
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Product p SET p.createdAt = COALESCE(p.updatedAt, CURRENT_TIMESTAMP) WHERE p.createdAt IS NULL")
+    int backfillCreatedAt();
 }
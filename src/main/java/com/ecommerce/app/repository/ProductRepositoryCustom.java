@@ -0,0 +1,20 @@
+package com.ecommerce.app.repository;
+
+import com.ecommerce.app.dto.ProductCardDTO;
+import com.ecommerce.app.dto.ProductSelectionDTO;
+import com.ecommerce.app.utils.KeysetCursor;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface ProductRepositoryCustom {
+    Set<String> CURSOR_SORT_PROPERTIES = Set.of("id", "name", "price", "createdAt");
+    
+    // Keyset pagination over product cards, sorted by one of CURSOR_SORT_PROPERTIES
+    Slice<ProductCardDTO> findCardsAfter(KeysetCursor cursor, int size);
+    
+    // Ids of the selected products that do (tagged) or do not carry the tag; categoryIds replaces the selection's category
+    List<Long> findIdsBySelection(ProductSelectionDTO selection, Collection<Long> categoryIds, Long tagId, boolean tagged);
+}
@@ -0,0 +1,135 @@
+package com.ecommerce.app.repository;
+
+import com.ecommerce.app.dto.ProductCardDTO;
+import com.ecommerce.app.dto.ProductSelectionDTO;
+import com.ecommerce.app.utils.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    // Sort properties allowed in a cursor, mapped to their JPQL path
+    private static final Map<String, String> SORT_KEYS = Map.of(
+            "id", "p.id",
+            "name", "p.name",
+            "price", "p.price",
+            "createdAt", "p.createdAt");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<ProductCardDTO> findCardsAfter(KeysetCursor cursor, int size) {
+        String key = SORT_KEYS.get(cursor.getProperty());
+        if (key == null) {
+            throw new IllegalArgumentException("Unsupported sort property: " + cursor.getProperty());
+        }
+        boolean descending = cursor.getDirection().isDescending();
+        String op = descending ? "<" : ">";
+        String dir = descending ? " DESC" : " ASC";
+        boolean byId = "p.id".equals(key);
+
+        StringBuilder jpql = new StringBuilder(ProductRepository.CARD_SELECT);
+        if (!cursor.isFirstPage()) {
+            if (byId) {
+                jpql.append(" WHERE p.id ").append(op).append(" :lastId");
+            } else {
+                // Ties on the sort key are broken by id so no row is skipped or repeated
+                jpql.append(" WHERE (").append(key).append(' ').append(op).append(" :lastValue OR (")
+                        .append(key).append(" = :lastValue AND p.id ").append(op).append(" :lastId))");
+            }
+        }
+        jpql.append(" ORDER BY ");
+        if (!byId) {
+            jpql.append(key).append(dir).append(", ");
+        }
+        jpql.append("p.id").append(dir);
+
+        TypedQuery<ProductCardDTO> query = entityManager.createQuery(jpql.toString(), ProductCardDTO.class);
+        if (!cursor.isFirstPage()) {
+            query.setParameter("lastId", cursor.getLastId());
+            if (!byId) {
+                query.setParameter("lastValue", keyValue(cursor.getProperty(), cursor.getLastValue()));
+            }
+        }
+        // One extra row tells whether there is a next slice without a count query
+        List<ProductCardDTO> rows = query.setMaxResults(size + 1).getResultList();
+        boolean hasNext = rows.size() > size;
+        List<ProductCardDTO> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size, Sort.by(cursor.getDirection(), cursor.getProperty())), hasNext);
+    }
+
+    @Override
+    public List<Long> findIdsBySelection(ProductSelectionDTO selection, Collection<Long> categoryIds,
+                                         Long tagId, boolean tagged) {
+        StringBuilder jpql = new StringBuilder("SELECT p.id FROM Product p WHERE ")
+                .append(tagged ? "" : "NOT ").append("EXISTS (SELECT t FROM p.tags t WHERE t.id = :tagId)");
+        if (categoryIds != null) {
+            jpql.append(" AND p.category.id IN :categoryIds");
+        }
+        if (selection.getTaggedWith() != null) {
+            jpql.append(" AND EXISTS (SELECT s FROM p.tags s WHERE s.id = :selectedTagId)");
+        }
+        if (selection.getActive() != null) {
+            jpql.append(" AND p.active = :active");
+        }
+        boolean byName = selection.getNameContains() != null && !selection.getNameContains().isBlank();
+        if (byName) {
+            jpql.append(" AND LOWER(p.name) LIKE :name");
+        }
+        boolean byId = selection.getProductIds() != null && !selection.getProductIds().isEmpty();
+        if (byId) {
+            jpql.append(" AND p.id IN :productIds");
+        }
+        jpql.append(" ORDER BY p.id");
+
+        TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class)
+                .setParameter("tagId", tagId);
+        if (categoryIds != null) {
+            query.setParameter("categoryIds", categoryIds);
+        }
+        if (selection.getTaggedWith() != null) {
+            query.setParameter("selectedTagId", selection.getTaggedWith());
+        }
+        if (selection.getActive() != null) {
+            query.setParameter("active", selection.getActive());
+        }
+        if (byName) {
+            query.setParameter("name", "%" + selection.getNameContains().trim().toLowerCase(Locale.ROOT) + "%");
+        }
+        if (byId) {
+            query.setParameter("productIds", selection.getProductIds());
+        }
+        return query.getResultList();
+    }
+
+    private static Object keyValue(String property, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            switch (property) {
+                case "price":
+                    return new BigDecimal(value);
+                case "createdAt":
+                    return LocalDateTime.parse(value);
+                default:
+                    return value;
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.app.repository;
+
+import com.ecommerce.app.model.RecentlyViewed;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RecentlyViewedRepository extends JpaRepository<RecentlyViewed, Long> {
+    Optional<RecentlyViewed> findByUsername(String username);
+
+    List<RecentlyViewed> findByUsernameIn(Collection<String> usernames);
+}
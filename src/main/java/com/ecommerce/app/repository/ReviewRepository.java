@@ -2,9 +2,16 @@ package com.ecommerce.app.repository;
 
 import com.ecommerce.app.model.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
-    // Add custom queries if needed
+    List<Review> findByProductIdOrderByCreatedAtDesc(Long productId);
+    
+    @Query("SELECT r FROM Review r JOIN FETCH r.user WHERE r.product.id = :productId")
+    List<Review> findWithUserByProductId(@Param("productId") Long productId);
 }
@@ -2,9 +2,43 @@ package com.ecommerce.app.repository;
 
 import com.ecommerce.app.model.Tag;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface TagRepository extends JpaRepository<Tag, Long> {
-    // Add custom queries if needed
+    // Rows of [tagId, productCount] for every tag in use, one grouped query
+    @Query("SELECT t.id, COUNT(p) FROM Tag t JOIN t.products p GROUP BY t.id")
+    List<Object[]> countProductsGroupedByTag();
+    
+    Optional<Tag> findByNameIgnoreCase(String name);
+    
+    // The statements below work on the join table directly, so no product is loaded.
+    // The join against product_tags itself keeps existing pairs from being inserted twice.
+    @Modifying
+    @Query(value = "INSERT INTO product_tags (product_id, tag_id) SELECT p.id, :tagId FROM products p " +
+            "LEFT JOIN product_tags pt ON pt.product_id = p.id AND pt.tag_id = :tagId " +
+            "WHERE p.id IN (:productIds) AND pt.product_id IS NULL", nativeQuery = true)
+    int addToProducts(@Param("tagId") Long tagId, @Param("productIds") Collection<Long> productIds);
+    
+    @Modifying
+    @Query(value = "DELETE FROM product_tags WHERE tag_id = :tagId AND product_id IN (:productIds)", nativeQuery = true)
+    int removeFromProducts(@Param("tagId") Long tagId, @Param("productIds") Collection<Long> productIds);
+    
+    @Modifying
+    @Query(value = "DELETE FROM product_tags WHERE tag_id = :tagId", nativeQuery = true)
+    int removeFromAllProducts(@Param("tagId") Long tagId);
+    
+    // Gives every product carrying the source tag the target tag as well
+    @Modifying
+    @Query(value = "INSERT INTO product_tags (product_id, tag_id) SELECT pt.product_id, :targetId FROM product_tags pt " +
+            "LEFT JOIN product_tags existing ON existing.product_id = pt.product_id AND existing.tag_id = :targetId " +
+            "WHERE pt.tag_id = :sourceId AND existing.product_id IS NULL", nativeQuery = true)
+    int copyToTag(@Param("sourceId") Long sourceId, @Param("targetId") Long targetId);
 }
@@ -15,9 +15,13 @@ import java.util.Optional;
 
 @Repository
 public interface WishlistRepository extends JpaRepository<WishlistItem, Long> {
-    @Query("SELECT w FROM WishlistItem w WHERE w.wishlist.user = :user")
+    @Query("SELECT w FROM WishlistItem w JOIN FETCH w.product p LEFT JOIN FETCH p.category WHERE w.wishlist.user = :user")
     List<WishlistItem> findByUser(@Param("user") User user);
     
+    @Query("SELECT w FROM WishlistItem w JOIN FETCH w.product p LEFT JOIN FETCH p.category " +
+           "WHERE w.wishlist = :wishlist ORDER BY w.id")
+    List<WishlistItem> findByWishlist(@Param("wishlist") Wishlist wishlist);
+    
     @Query("SELECT w FROM WishlistItem w WHERE w.wishlist.user = :user AND w.product = :product")
     Optional<WishlistItem> findByUserAndProduct(@Param("user") User user, @Param("product") Product product);
     
@@ -1,5 +1,6 @@
 package com.ecommerce.app.service;
 
+import com.ecommerce.app.catalog.CategoryTree;
 import com.ecommerce.app.model.Category;
 
 import java.util.List;
@@ -17,4 +18,9 @@ public interface CategoryService {
     void deleteCategory(Long id);
     
     boolean existsByName(String name);
+    
+    /**
+     * Current snapshot of the category hierarchy, rebuilt after every category write
+     */
+    CategoryTree getCategoryTree();
 }
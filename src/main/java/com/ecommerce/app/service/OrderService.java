@@ -5,6 +5,7 @@ import com.ecommerce.app.model.OrderStatus;
 import com.ecommerce.app.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,6 +20,16 @@ public interface OrderService {
     
     Page<Order> getAllOrdersPaged(Pageable pageable);
     
+    /**
+     * Keyset pagination, newest first, without a count query
+     * @param status optional status filter
+     * @param afterId id of the last order already shown, null for the first slice
+     * @param size slice size
+     */
+    Slice<Order> getOrdersAfter(OrderStatus status, Long afterId, int size);
+    
+    Slice<Order> getOrdersByUserAfter(User user, Long afterId, int size);
+    
     Optional<Order> getOrderById(Long id);
     
     Order updateOrderStatus(Long orderId, OrderStatus status);
@@ -1,15 +1,26 @@
 package com.ecommerce.app.service;
 
+import com.ecommerce.app.catalog.FacetCounts;
+import com.ecommerce.app.catalog.FacetQuery;
+import com.ecommerce.app.catalog.Suggestion;
+import com.ecommerce.app.dto.ProductCardDTO;
+import com.ecommerce.app.dto.ProductComparisonDTO;
+import com.ecommerce.app.dto.ProductSelectionDTO;
+import com.ecommerce.app.utils.KeysetCursor;
 import com.ecommerce.app.model.Product;
 import com.ecommerce.app.model.Review;
 import com.ecommerce.app.model.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ProductService {
     List<Product> getAllProducts();
@@ -18,12 +29,58 @@ public interface ProductService {
     
     Page<Product> getAllProductsPaged(Pageable pageable);
     
+    // Products of the category and all of its subcategories
     Page<Product> getProductsByCategory(Long categoryId, Pageable pageable);
     
     Page<Product> searchProducts(String keyword, Pageable pageable);
     
+    // Grid tiles for listing pages, a fixed number of queries per page
+    Page<ProductCardDTO> getProductCards(Pageable pageable);
+    
+    Page<ProductCardDTO> getActiveProductCards(Pageable pageable);
+    
+    // Includes products of subcategories, like getProductsByCategory
+    Page<ProductCardDTO> getProductCardsByCategory(Long categoryId, Pageable pageable);
+    
+    // Keyset pagination, cost does not grow with depth and there is no count query
+    Slice<ProductCardDTO> getProductCardsAfter(KeysetCursor cursor, int size);
+    
+    Slice<Product> getProductsAfter(Long afterId, int size);
+    
+    /**
+     * Walk the whole catalog in cursor order, batchSize products at a time.
+     * Each product is fully loaded while the action runs and detached right after its batch.
+     */
+    void forEachProduct(KeysetCursor cursor, int batchSize, Consumer<Product> action);
+    
+    Page<ProductCardDTO> searchProductCards(String keyword, Pageable pageable);
+    
+    // Faceted browsing over the active catalog
+    Page<ProductCardDTO> filterProductCards(FacetQuery query, Pageable pageable);
+    
+    FacetCounts getFacetCounts(FacetQuery query);
+    
+    // Typeahead suggestions for the search box
+    List<Suggestion> getSuggestions(String prefix, int limit);
+    
+    // Products most similar to the given one by tags and category, from the precomputed index
+    List<ProductCardDTO> getRelatedProducts(Long productId, int limit);
+    
+    // Active products most often ordered together with the given ones, from the co-purchase counters
+    List<ProductCardDTO> getFrequentlyBoughtTogether(Collection<Long> productIds, int limit);
+    
+    // Cards of the given products that are still active, in the given order
+    List<ProductCardDTO> getActiveProductCards(List<Long> productIds);
+    
+    // Column-aligned comparison of 2 to app.catalog.compare.max-products products, cached by the sorted ids
+    ProductComparisonDTO compareProducts(Collection<Long> productIds);
+    
+    // The cached instance is shared between requests and must not be modified, see getProductForUpdate
     Optional<Product> getProductById(Long id);
     
+    // A freshly loaded instance of its own for callers that change the product and save it
+    Optional<Product> getProductForUpdate(Long id);
+    
     Product saveProduct(Product product);
     
     void deleteProduct(Long id);
@@ -46,6 +103,11 @@ public interface ProductService {
     
     List<Tag> getAllTags();
     
+    /**
+     * Number of products per tag id, tags without products are absent
+     */
+    Map<Long, Integer> getTagProductCounts();
+    
     void setProductTags(Product product, List<Long> tagIds);
     
     // Review management
@@ -56,5 +118,22 @@ public interface ProductService {
     // Tag management
     Tag saveTag(Tag tag);
     
+    Tag renameTag(Long tagId, String name);
+    
     void deleteTag(Long tagId);
+    
+    /**
+     * Gives every product carrying the source tag the target tag instead, then deletes the source
+     */
+    void mergeTags(Long sourceTagId, Long targetTagId);
+    
+    /**
+     * Adds the tag to the selected products, returns how many did not carry it before
+     */
+    int assignTag(Long tagId, ProductSelectionDTO selection);
+    
+    /**
+     * Removes the tag from the selected products, returns how many carried it
+     */
+    int unassignTag(Long tagId, ProductSelectionDTO selection);
 }
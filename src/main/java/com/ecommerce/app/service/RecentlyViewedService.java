@@ -0,0 +1,14 @@
+package com.ecommerce.app.service;
+
+import java.util.List;
+
+public interface RecentlyViewedService {
+    // Records a product page view off the request thread; a no-op when the feature is disabled
+    void recordView(String username, Long productId);
+    
+    // Product ids the user viewed, newest first, without repeats
+    List<Long> getRecentlyViewed(String username, int limit);
+    
+    // Writes the lists changed since the last flush
+    void flush();
+}
@@ -1,24 +1,102 @@
 package com.ecommerce.app.service.impl;
 
+import com.ecommerce.app.catalog.CatalogCaches;
+import com.ecommerce.app.catalog.CategoryTree;
+import com.ecommerce.app.catalog.CategoryTreeIndex;
+import com.ecommerce.app.event.CategoryChangedEvent;
 import com.ecommerce.app.model.Category;
 import com.ecommerce.app.repository.CategoryRepository;
 import com.ecommerce.app.service.CategoryService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+/**
+ * Besides plain CRUD this keeps categories.path, the materialized path of
+ * each category, in step with the parent links, so subtree lookups are a
+ * prefix match on an indexed column.
+ */
 @Service
 public class CategoryServiceImpl implements CategoryService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CategoryServiceImpl.class);
+
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CatalogCaches catalogCaches;
+
+    @Autowired
+    private CategoryTreeIndex categoryTreeIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Fills paths for categories created before the column existed, runs before the tree snapshot is built
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void backfillPaths() {
+        if (!categoryRepository.existsByPathIsNull()) {
+            return;
+        }
+        List<Object[]> rows = categoryRepository.findTreeRows();
+        Map<Long, String> storedPaths = rows.stream()
+                .filter(row -> row[3] != null)
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (String) row[3]));
+        CategoryTree tree = CategoryTree.of(rows.stream()
+                .map(row -> new CategoryTree.Row((Long) row[0], (String) row[1], (Long) row[2]))
+                .collect(Collectors.toList()));
+
+        int updated = 0;
+        for (CategoryTree.Node node : tree.getNodes()) {
+            if (!node.getPath().equals(storedPaths.get(node.getId()))) {
+                updated += categoryRepository.updatePath(node.getId(), node.getPath());
+            }
+        }
+        logger.info("Backfilled materialized paths for {} categories", updated);
+    }
+
+    // Counters are kept up to date on every product write, this repairs any drift from changes made outside the app
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void recountProducts() {
+        int updated = categoryRepository.recountProducts(LocalDateTime.now());
+        logger.info("Recounted products for {} categories", updated);
+    }
+
+    @Override
+    public CategoryTree getCategoryTree() {
+        return categoryTreeIndex.getTree();
+    }
+
     @Override
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        return catalogCaches.categories().get(CatalogCaches.ALL, key -> {
+            List<Category> categories = categoryRepository.findAll();
+            // Shared between requests, so they must not stay attached to this one
+            categories.forEach(entityManager::detach);
+            return List.copyOf(categories);
+        });
     }
 
     @Override
@@ -34,17 +112,53 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     @Transactional
     public Category saveCategory(Category category) {
-        return categoryRepository.save(category);
+        Category parent = null;
+        if (category.getParent() != null && category.getParent().getId() != null) {
+            parent = categoryRepository.findById(category.getParent().getId())
+                    .orElseThrow(() -> new IllegalArgumentException("Parent category not found"));
+        }
+
+        // Read from the database, the entity passed in may already carry edits
+        String oldPath = category.getId() != null ? categoryRepository.findPathById(category.getId()) : null;
+        if (parent != null && category.getId() != null && (parent.getId().equals(category.getId())
+                || (oldPath != null && parent.getPath() != null && parent.getPath().startsWith(oldPath)))) {
+            throw new IllegalArgumentException("A category cannot be moved below itself");
+        }
+
+        category.setParent(parent);
+        Category saved = categoryRepository.save(category);
+
+        String newPath = (parent != null && parent.getPath() != null ? parent.getPath() : "/") + saved.getId() + "/";
+        saved.setPath(newPath);
+        if (oldPath != null && !oldPath.equals(newPath)) {
+            int moved = categoryRepository.movePaths(oldPath, newPath);
+            logger.debug("Moved category {} with {} descendants to {}", saved.getId(), moved, newPath);
+        }
+
+        evictCategories();
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
     @Transactional
     public void deleteCategory(Long id) {
+        if (categoryRepository.existsByParentId(id)) {
+            throw new IllegalArgumentException("Cannot delete a category that has subcategories, move or delete them first");
+        }
         categoryRepository.deleteById(id);
+        evictCategories();
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
     @Override
     public boolean existsByName(String name) {
         return categoryRepository.existsByName(name);
     }
+
+    // Cached products carry their category, so they go too
+    private void evictCategories() {
+        catalogCaches.categories().invalidateAll();
+        catalogCaches.products().invalidateAll();
+    }
 }
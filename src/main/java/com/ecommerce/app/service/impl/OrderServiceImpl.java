@@ -1,13 +1,17 @@
 package com.ecommerce.app.service.impl;
 
+import com.ecommerce.app.event.OrderPlacedEvent;
 import com.ecommerce.app.model.*;
 import com.ecommerce.app.repository.OrderRepository;
 import com.ecommerce.app.service.CartService;
 import com.ecommerce.app.service.OrderService;
 import com.ecommerce.app.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,6 +33,9 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     @Transactional
     public Order createOrder(User user, String shippingAddress) {
@@ -93,6 +100,10 @@ public class OrderServiceImpl implements OrderService {
             // Clear the cart after creating order
             cartService.clearCart(user);
             
+            eventPublisher.publishEvent(new OrderPlacedEvent(savedOrder.getId(),
+                    orderItems.stream().map(item -> item.getProduct().getId()).collect(Collectors.toList()),
+                    orderItems.stream().map(OrderItem::getQuantity).collect(Collectors.toList())));
+            
             return savedOrder;
         } catch (Exception e) {
             // Roll back the transaction and rethrow with a clear message
@@ -148,4 +159,19 @@ public class OrderServiceImpl implements OrderService {
     public Page<Order> getAllOrdersPaged(Pageable pageable) {
         return orderRepository.findAll(pageable);
     }
+
+    @Override
+    public Slice<Order> getOrdersAfter(OrderStatus status, Long afterId, int size) {
+        long before = afterId != null ? afterId : Long.MAX_VALUE;
+        if (status != null) {
+            return orderRepository.findByStatusAndIdLessThanOrderByIdDesc(status, before, PageRequest.of(0, size));
+        }
+        return orderRepository.findByIdLessThanOrderByIdDesc(before, PageRequest.of(0, size));
+    }
+
+    @Override
+    public Slice<Order> getOrdersByUserAfter(User user, Long afterId, int size) {
+        long before = afterId != null ? afterId : Long.MAX_VALUE;
+        return orderRepository.findByUserAndIdLessThanOrderByIdDesc(user, before, PageRequest.of(0, size));
+    }
 }
@@ -1,48 +1,147 @@
 package com.ecommerce.app.service.impl;
 
+import com.ecommerce.app.catalog.CatalogCaches;
+import com.ecommerce.app.catalog.CategoryTree;
+import com.ecommerce.app.catalog.CategoryTreeIndex;
+import com.ecommerce.app.catalog.CoPurchaseIndex;
+import com.ecommerce.app.catalog.FacetCounts;
+import com.ecommerce.app.catalog.FacetQuery;
+import com.ecommerce.app.catalog.ProductFacetIndex;
+import com.ecommerce.app.catalog.ProductSearchIndex;
+import com.ecommerce.app.catalog.RelatedProductsIndex;
+import com.ecommerce.app.catalog.Suggestion;
+import com.ecommerce.app.catalog.SuggestionIndex;
+import com.ecommerce.app.dto.ProductCardDTO;
+import com.ecommerce.app.dto.ProductComparisonDTO;
+import com.ecommerce.app.dto.ProductDTOAssembler;
+import com.ecommerce.app.dto.ProductSelectionDTO;
+import com.ecommerce.app.event.CategoryChangedEvent;
+import com.ecommerce.app.event.ProductChangedEvent;
+import com.ecommerce.app.event.ProductsChangedEvent;
+import com.ecommerce.app.media.MediaDeletionJournal;
+import com.ecommerce.app.media.MediaStorage;
 import com.ecommerce.app.model.Product;
 import com.ecommerce.app.model.ProductImage;
 import com.ecommerce.app.model.Review;
 import com.ecommerce.app.model.Tag;
+import com.ecommerce.app.repository.CategoryRepository;
 import com.ecommerce.app.repository.ProductImageRepository;
 import com.ecommerce.app.repository.ProductRepository;
 import com.ecommerce.app.repository.ReviewRepository;
 import com.ecommerce.app.repository.TagRepository;
 import com.ecommerce.app.service.ProductService;
+import com.ecommerce.app.service.ReviewService;
+import com.ecommerce.app.utils.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductServiceImpl.class);
+
     @Autowired
     private ProductRepository productRepository;
 
     @Autowired
     private TagRepository tagRepository;
 
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductFacetIndex facetIndex;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private RelatedProductsIndex relatedProductsIndex;
+
+    @Autowired
+    private CoPurchaseIndex coPurchaseIndex;
+
+    @Autowired
+    private CatalogCaches catalogCaches;
+
+    @Autowired
+    private CategoryTreeIndex categoryTreeIndex;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductDTOAssembler productDTOAssembler;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private MediaDeletionJournal mediaDeletionJournal;
+
+    @Value("${app.catalog.compare.max-products:4}")
+    private int maxCompareProducts;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Runs before the catalog indexes build, alongside the rating backfill
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfillCreatedAt() {
+        int updated = productRepository.backfillCreatedAt();
+        if (updated > 0) {
+            logger.info("Backfilled created_at for {} products", updated);
+        }
+    }
+
     @Override
     public List<Product> getAllProducts() {
         return productRepository.findAll();
@@ -50,7 +149,7 @@ public class ProductServiceImpl implements ProductService {
     
     @Override
     public List<Product> getAllProductsSorted(Sort sort) {
-        return productRepository.findAll(sort);
+        return productRepository.findAllWithCategory(sort);
     }
 
     @Override
@@ -60,29 +159,287 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public Page<Product> getProductsByCategory(Long categoryId, Pageable pageable) {
-        return productRepository.findByCategoryId(categoryId, pageable);
+        return categoryPath(categoryId)
+                .map(path -> productRepository.findByCategoryPathStartingWith(path, pageable))
+                .orElseGet(() -> productRepository.findByCategoryId(categoryId, pageable));
     }
 
     @Override
     public Page<Product> searchProducts(String keyword, Pageable pageable) {
-        return productRepository.findByNameContainingIgnoreCase(keyword, pageable);
+        // Ranked ids come from the in-memory index, only the requested page is loaded
+        return pageOfIds(searchIndex.search(keyword), pageable, this::findAllByIdInOrder);
+    }
+
+    @Override
+    public Page<ProductCardDTO> getProductCards(Pageable pageable) {
+        return withImages(productRepository.findCards(pageable));
+    }
+
+    @Override
+    public Page<ProductCardDTO> getActiveProductCards(Pageable pageable) {
+        return withImages(productRepository.findActiveCards(pageable));
+    }
+
+    @Override
+    public Page<ProductCardDTO> getProductCardsByCategory(Long categoryId, Pageable pageable) {
+        return withImages(categoryPath(categoryId)
+                .map(path -> productRepository.findCardsByCategoryPath(path + "%", pageable))
+                .orElseGet(() -> productRepository.findCardsByCategoryId(categoryId, pageable)));
+    }
+
+    // Categories created in a transaction that has not committed yet are not in the tree, they fall back to an exact match
+    private Optional<String> categoryPath(Long categoryId) {
+        return categoryTreeIndex.getTree().find(categoryId).map(CategoryTree.Node::getPath);
     }
 
     @Override
+    public Slice<ProductCardDTO> getProductCardsAfter(KeysetCursor cursor, int size) {
+        Slice<ProductCardDTO> slice = productRepository.findCardsAfter(cursor, size);
+        addImages(slice.getContent());
+        return slice;
+    }
+
+    @Override
+    public Slice<Product> getProductsAfter(Long afterId, int size) {
+        return productRepository.findByIdGreaterThanOrderByIdAsc(afterId != null ? afterId : 0L, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachProduct(KeysetCursor cursor, int batchSize, Consumer<Product> action) {
+        Slice<ProductCardDTO> batch;
+        do {
+            // The card projection gives the ordered ids and the seek key for the next batch
+            batch = productRepository.findCardsAfter(cursor, batchSize);
+            if (!batch.hasContent()) {
+                break;
+            }
+            List<Long> ids = batch.map(ProductCardDTO::getId).getContent();
+            Map<Long, Product> byId = productRepository.findWithCategoryAndTagsByIdIn(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            // Initializes the images of the same managed instances
+            productRepository.findWithImagesByIdIn(ids);
+            for (Long id : ids) {
+                Product product = byId.get(id);
+                if (product != null) {
+                    action.accept(product);
+                }
+            }
+
+            ProductCardDTO last = batch.getContent().get(batch.getNumberOfElements() - 1);
+            cursor = cursor.next(last.getId(), last.sortValue(cursor.getProperty()));
+            // Detach the batch so memory use does not grow with the catalog
+            entityManager.clear();
+        } while (batch.hasNext());
+    }
+
+    @Override
+    public Page<ProductCardDTO> searchProductCards(String keyword, Pageable pageable) {
+        return pageOfIds(searchIndex.search(keyword), pageable, this::findCardsByIdInOrder);
+    }
+
+    @Override
+    public Page<ProductCardDTO> filterProductCards(FacetQuery query, Pageable pageable) {
+        return pageOfIds(facetIndex.filter(query, pageable.getSort()), pageable, this::findCardsByIdInOrder);
+    }
+
+    @Override
+    public FacetCounts getFacetCounts(FacetQuery query) {
+        return facetIndex.counts(query);
+    }
+
+    @Override
+    public List<Suggestion> getSuggestions(String prefix, int limit) {
+        return suggestionIndex.suggest(prefix, Math.min(limit, SuggestionIndex.MAX_SUGGESTIONS));
+    }
+
+    @Override
+    public List<ProductCardDTO> getRelatedProducts(Long productId, int limit) {
+        return findCardsByIdInOrder(relatedProductsIndex.related(productId, limit));
+    }
+
+    @Override
+    public List<ProductCardDTO> getFrequentlyBoughtTogether(Collection<Long> productIds, int limit) {
+        if (productIds.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        // The counters also know discontinued products, ask for a few spare ones
+        return getActiveProductCards(coPurchaseIndex.boughtTogether(productIds, limit * 2)).stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ProductCardDTO> getActiveProductCards(List<Long> productIds) {
+        return findCardsByIdInOrder(productIds).stream()
+                .filter(ProductCardDTO::isActive)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductComparisonDTO compareProducts(Collection<Long> productIds) {
+        // Sorted, so every order of the same ids shares one cache entry and one column order
+        List<Long> ids = productIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        if (ids.size() < 2 || ids.size() > maxCompareProducts) {
+            throw new IllegalArgumentException("Between 2 and " + maxCompareProducts + " products can be compared");
+        }
+
+        String key = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return catalogCaches.comparisons().get(key, k -> {
+            // Three statements whatever the number of products: products with categories, images, tags
+            Map<Long, Product> byId = productRepository.findWithCategoryByIdIn(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            List<Product> products = ids.stream()
+                    .map(byId::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            List<Long> missingIds = ids.stream()
+                    .filter(id -> !byId.containsKey(id))
+                    .collect(Collectors.toList());
+            return ProductComparisonDTO.of(productDTOAssembler.toProductDTOs(products), missingIds);
+        });
+    }
+
+    // Load one page worth of rows for an already ordered list of ids
+    private <T> Page<T> pageOfIds(List<Long> ids, Pageable pageable, Function<List<Long>, List<T>> loader) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(loader.apply(ids), pageable, ids.size());
+        }
+
+        int start = (int) Math.min(pageable.getOffset(), ids.size());
+        int end = Math.min(start + pageable.getPageSize(), ids.size());
+        List<T> content = loader.apply(ids.subList(start, end));
+        return new PageImpl<>(content, pageable, ids.size());
+    }
+
+    private List<ProductCardDTO> findCardsByIdInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ProductCardDTO> byId = productRepository.findCardsByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductCardDTO::getId, Function.identity()));
+        List<ProductCardDTO> cards = ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        addImages(cards);
+        return cards;
+    }
+
+    private Page<ProductCardDTO> withImages(Page<ProductCardDTO> page) {
+        addImages(page.getContent());
+        return page;
+    }
+
+    // One query for the images of the whole page; the first row per product is its primary image
+    private void addImages(List<ProductCardDTO> cards) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductCardDTO> byId = cards.stream()
+                .collect(Collectors.toMap(ProductCardDTO::getId, Function.identity()));
+        for (Object[] row : productImageRepository.findImageUrlsByProductIds(byId.keySet())) {
+            ProductCardDTO card = byId.get((Long) row[0]);
+            if (card != null && card.getImageUrl() == null) {
+                card.setImageUrl((String) row[1]);
+            }
+        }
+    }
+
+    // findAllById does not preserve the order of the requested ids
+    private List<Product> findAllByIdInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> byId = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Product> getProductById(Long id) {
+        return Optional.ofNullable(catalogCaches.products().get(id, this::loadDetachedProduct));
+    }
+
+    @Override
+    public Optional<Product> getProductForUpdate(Long id) {
         return productRepository.findById(id);
     }
 
+    // Loads everything the product pages read, then detaches it so the instance can be shared between requests
+    private Product loadDetachedProduct(Long id) {
+        Product product = productRepository.findWithCategoryAndTagsById(id).orElse(null);
+        if (product == null) {
+            return null;
+        }
+        Hibernate.initialize(product.getImages());
+        // Puts the reviews with their authors in the persistence context, initializing the collection reuses them
+        reviewRepository.findWithUserByProductId(id);
+        Hibernate.initialize(product.getReviews());
+        entityManager.detach(product);
+        return product;
+    }
+
     @Override
     @Transactional
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        evictProduct(product);
+        Object[] stored = product.getId() != null ? storedCategoryAndActive(product.getId()) : null;
+        Product saved = productRepository.save(product);
+
+        Long categoryId = saved.getCategory() != null ? saved.getCategory().getId() : null;
+        int active = saved.isActive() ? 1 : 0;
+        if (stored == null) {
+            adjustCategoryCounts(categoryId, 1, active);
+        } else {
+            Long oldCategoryId = (Long) stored[0];
+            int oldActive = Boolean.TRUE.equals(stored[1]) ? 1 : 0;
+            if (Objects.equals(oldCategoryId, categoryId)) {
+                adjustCategoryCounts(categoryId, 0, active - oldActive);
+            } else {
+                adjustCategoryCounts(oldCategoryId, -1, -oldActive);
+                adjustCategoryCounts(categoryId, 1, active);
+            }
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved.getId()));
+        return saved;
     }
 
     @Override
     @Transactional
     public void deleteProduct(Long id) {
+        catalogCaches.products().invalidate(id);
+        Object[] stored = storedCategoryAndActive(id);
+        mediaDeletionJournal.enqueue(productImageRepository.findByProductIdOrderByDisplayOrder(id));
         productRepository.deleteById(id);
+        if (stored != null) {
+            adjustCategoryCounts((Long) stored[0], -1, Boolean.TRUE.equals(stored[1]) ? -1 : 0);
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+    }
+
+    // Category id and active flag as currently stored, null for a product that was never saved
+    private Object[] storedCategoryAndActive(Long productId) {
+        List<Object[]> rows = productRepository.findStoredCategoryAndActive(productId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // Saves that neither move nor toggle a product come through with no change and leave the tree alone
+    private void adjustCategoryCounts(Long categoryId, int total, int active) {
+        if (categoryId == null || (total == 0 && active == 0)) {
+            return;
+        }
+        categoryRepository.adjustProductCounts(categoryId, total, active, LocalDateTime.now());
+        eventPublisher.publishEvent(CategoryChangedEvent.countersChanged(categoryId));
     }
 
     @Override
@@ -100,6 +457,8 @@ public class ProductServiceImpl implements ProductService {
 
             product.setStockQuantity(newStock);
             productRepository.save(product);
+            catalogCaches.products().invalidate(productId);
+            eventPublisher.publishEvent(ProductChangedEvent.countersChanged(productId));
         } else {
             throw new RuntimeException("Product not found with ID: " + productId);
         }
@@ -117,7 +476,9 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public int countProductsByCategory(Long categoryId) {
-        return productRepository.countByCategoryId(categoryId);
+        return categoryTreeIndex.getTree().find(categoryId)
+                .map(CategoryTree.Node::getProductCount)
+                .orElseGet(() -> productRepository.countByCategoryId(categoryId));
     }
 
     @Override
@@ -127,13 +488,7 @@ public class ProductServiceImpl implements ProductService {
             return;
         }
 
-        // Create upload directory if it doesn't exist
-        Path uploadDir = Paths.get("src/main/resources/static/images/products/" + product.getId());
         try {
-            if (!Files.exists(uploadDir)) {
-                Files.createDirectories(uploadDir);
-            }
-
             boolean hasPrimary = product.getImages().stream().anyMatch(ProductImage::getIsPrimary);
             boolean isFirst = true;
 
@@ -142,17 +497,13 @@ public class ProductServiceImpl implements ProductService {
                     continue;
                 }
 
-                // Generate unique filename
-                String filename = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-                Path filePath = uploadDir.resolve(filename);
-
-                // Save file to disk
-                Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+                // Stored by content, a photo that is already there only gets another image row
+                String imageUrl = mediaStorage.storeContent(file, imageExtension(file.getOriginalFilename()));
 
                 // Create image entity
                 ProductImage image = new ProductImage();
                 image.setProduct(product);
-                image.setImageUrl("/images/products/" + product.getId() + "/" + filename);
+                image.setImageUrl(imageUrl);
                 image.setDisplayOrder(product.getImages().size() + 1);
 
                 // Set as primary if needed
@@ -169,12 +520,25 @@ public class ProductServiceImpl implements ProductService {
                 isFirst = false;
             }
 
+            // Only image rows changed, the product timestamp has to be moved by hand for its ETag
+            product.setUpdatedAt(LocalDateTime.now());
             productRepository.save(product);
+            evictProduct(product);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product.getId()));
         } catch (IOException e) {
             throw new RuntimeException("Failed to store image files", e);
         }
     }
 
+    // Lower case extension of the uploaded name, which the served content type follows
+    private static String imageExtension(String originalFilename) {
+        String extension = StringUtils.getFilenameExtension(originalFilename);
+        if (extension == null || !extension.matches("[A-Za-z0-9]{1,10}")) {
+            return "";
+        }
+        return extension.toLowerCase(Locale.ROOT);
+    }
+
     @Override
     @Transactional
     public void deleteProductImages(Product product, List<Long> imageIds) {
@@ -198,22 +562,13 @@ public class ProductServiceImpl implements ProductService {
             product.getImages().get(0).setIsPrimary(true);
         }
 
+        product.setUpdatedAt(LocalDateTime.now());
         productRepository.save(product);
+        evictProduct(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product.getId()));
 
-        // Delete physical files (async in a real app)
-        for (ProductImage image : imagesToDelete) {
-            try {
-                String relativePath = image.getImageUrl();
-                if (relativePath.startsWith("/")) {
-                    relativePath = relativePath.substring(1);
-                }
-                Path filePath = Paths.get("src/main/resources/static/" + relativePath);
-                Files.deleteIfExists(filePath);
-            } catch (IOException e) {
-                // Log error but continue
-                System.err.println("Failed to delete image file: " + e.getMessage());
-            }
-        }
+        // The files go once this transaction has committed
+        mediaDeletionJournal.enqueue(imagesToDelete);
     }
 
     @Override
@@ -231,13 +586,26 @@ public class ProductServiceImpl implements ProductService {
             // Set the selected image as primary
             newPrimaryOpt.get().setIsPrimary(true);
 
+            product.setUpdatedAt(LocalDateTime.now());
             productRepository.save(product);
+            evictProduct(product);
+            eventPublisher.publishEvent(ProductChangedEvent.saved(product.getId()));
         }
     }
 
     @Override
     public List<Tag> getAllTags() {
-        return tagRepository.findAll();
+        return catalogCaches.tags().get(CatalogCaches.ALL, key -> {
+            List<Tag> tags = tagRepository.findAll();
+            tags.forEach(entityManager::detach);
+            return List.copyOf(tags);
+        });
+    }
+
+    @Override
+    public Map<Long, Integer> getTagProductCounts() {
+        return tagRepository.countProductsGroupedByTag().stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> ((Long) row[1]).intValue()));
     }
 
     @Override
@@ -252,7 +620,10 @@ public class ProductServiceImpl implements ProductService {
             product.setTags(new HashSet<>(tags));
         }
 
+        product.setUpdatedAt(LocalDateTime.now());
         productRepository.save(product);
+        evictProduct(product);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product.getId()));
     }
 
     @Override
@@ -263,33 +634,133 @@ public class ProductServiceImpl implements ProductService {
     @Override
     @Transactional
     public void deleteReview(Long reviewId) {
-        reviewRepository.deleteById(reviewId);
+        // Goes through the review service so the product's rating aggregates are retracted too
+        reviewService.deleteReview(reviewId);
     }
 
     @Override
     @Transactional
     public Tag saveTag(Tag tag) {
-        return tagRepository.save(tag);
+        Tag saved = tagRepository.save(tag);
+        if (tag.getId() != null) {
+            // Cached and indexed products carry their tags, a rename has to reach them too
+            productsRetagged(new ProductsChangedEvent(productRepository.findIdsByTagId(saved.getId())));
+        }
+        catalogCaches.tags().invalidateAll();
+        return saved;
     }
 
     @Override
     @Transactional
-    public void deleteTag(Long tagId) {
-        // Get the tag
+    public Tag renameTag(Long tagId, String name) {
         Tag tag = tagRepository.findById(tagId)
                 .orElseThrow(() -> new RuntimeException("Tag not found"));
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Tag name must not be empty");
+        }
+        String trimmed = name.trim();
+        tagRepository.findByNameIgnoreCase(trimmed)
+                .filter(other -> !other.getId().equals(tagId))
+                .ifPresent(other -> {
+                    throw new IllegalArgumentException("Tag '" + other.getName() + "' already exists, merge into it instead");
+                });
+        tag.setName(trimmed);
+        return saveTag(tag);
+    }
 
-        // Remove this tag from all products that have it
-        List<Product> productsWithTag = productRepository.findAll().stream()
-                .filter(p -> p.getTags() != null && p.getTags().contains(tag))
-                .collect(Collectors.toList());
-
-        for (Product product : productsWithTag) {
-            product.getTags().remove(tag);
-            productRepository.save(product);
+    @Override
+    @Transactional
+    public void deleteTag(Long tagId) {
+        if (!tagRepository.existsById(tagId)) {
+            throw new RuntimeException("Tag not found");
         }
 
-        // Delete the tag
+        // One statement on the join table instead of loading every product that carries the tag
+        List<Long> productIds = productRepository.findIdsByTagId(tagId);
+        tagRepository.removeFromAllProducts(tagId);
         tagRepository.deleteById(tagId);
+        productsRetagged(new ProductsChangedEvent(productIds));
+        catalogCaches.tags().invalidateAll();
+    }
+
+    @Override
+    @Transactional
+    public void mergeTags(Long sourceTagId, Long targetTagId) {
+        if (sourceTagId.equals(targetTagId)) {
+            throw new IllegalArgumentException("Cannot merge a tag into itself");
+        }
+        if (!tagRepository.existsById(sourceTagId) || !tagRepository.existsById(targetTagId)) {
+            throw new RuntimeException("Tag not found");
+        }
+
+        List<Long> productIds = productRepository.findIdsByTagId(sourceTagId);
+        tagRepository.copyToTag(sourceTagId, targetTagId);
+        tagRepository.removeFromAllProducts(sourceTagId);
+        tagRepository.deleteById(sourceTagId);
+        productsRetagged(new ProductsChangedEvent(productIds));
+        catalogCaches.tags().invalidateAll();
+    }
+
+    @Override
+    @Transactional
+    public int assignTag(Long tagId, ProductSelectionDTO selection) {
+        List<Long> productIds = selectForTag(tagId, selection, false);
+        ProductsChangedEvent event = new ProductsChangedEvent(productIds);
+        for (List<Long> batch : event.batches()) {
+            tagRepository.addToProducts(tagId, batch);
+        }
+        productsRetagged(event);
+        return productIds.size();
+    }
+
+    @Override
+    @Transactional
+    public int unassignTag(Long tagId, ProductSelectionDTO selection) {
+        List<Long> productIds = selectForTag(tagId, selection, true);
+        ProductsChangedEvent event = new ProductsChangedEvent(productIds);
+        for (List<Long> batch : event.batches()) {
+            tagRepository.removeFromProducts(tagId, batch);
+        }
+        productsRetagged(event);
+        return productIds.size();
+    }
+
+    // Selected products that currently do (tagged) or do not carry the tag, so only real changes are written and evicted
+    private List<Long> selectForTag(Long tagId, ProductSelectionDTO selection, boolean tagged) {
+        if (!tagRepository.existsById(tagId)) {
+            throw new RuntimeException("Tag not found");
+        }
+        if (selection == null || selection.isEmpty()) {
+            throw new IllegalArgumentException("Select products by category, tag, status, name or id");
+        }
+        List<Long> categoryIds = null;
+        if (selection.getCategoryId() != null) {
+            categoryIds = selection.isIncludeSubcategories()
+                    ? categoryTreeIndex.getTree().descendantIds(selection.getCategoryId())
+                    : List.of(selection.getCategoryId());
+            if (categoryIds.isEmpty()) {
+                return List.of();
+            }
+        }
+        return productRepository.findIdsBySelection(selection, categoryIds, tagId, tagged);
+    }
+
+    // Moves the ETag of the affected products and evicts exactly them once the tag statements commit
+    private void productsRetagged(ProductsChangedEvent event) {
+        if (event.getProductIds().isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (List<Long> batch : event.batches()) {
+            productRepository.touch(batch, now);
+            batch.forEach(catalogCaches.products()::invalidate);
+        }
+        eventPublisher.publishEvent(event);
+    }
+
+    private void evictProduct(Product product) {
+        if (product.getId() != null) {
+            catalogCaches.products().invalidate(product.getId());
+        }
     }
 }
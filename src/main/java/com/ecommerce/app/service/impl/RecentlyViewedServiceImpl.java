@@ -0,0 +1,341 @@
+package com.ecommerce.app.service.impl;
+
+import com.ecommerce.app.model.RecentlyViewed;
+import com.ecommerce.app.repository.RecentlyViewedRepository;
+import com.ecommerce.app.service.RecentlyViewedService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the recently viewed products of the most recently active users in
+ * memory, each in a fixed size ring buffer. At most max-users lists are held,
+ * the least recently active user is dropped first, so memory stays bounded at
+ * max-users x size ids, plus the changed lists of dropped users waiting to be
+ * written, which are capped at a tenth of that. With persistence on, changed
+ * lists are flushed to recently_viewed at most every flush-interval, whenever
+ * a changed list is dropped, and on shutdown; lists a flush failed to write
+ * go with the next one. A user who is not in memory is loaded from there on
+ * first use. Views are recorded on a small worker pool of
+ * its own with a bounded queue; when it is full views are dropped, they are
+ * not worth holding up a page or other background work for.
+ */
+@Service
+public class RecentlyViewedServiceImpl implements RecentlyViewedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentlyViewedServiceImpl.class);
+
+    private final RecentlyViewedRepository recentlyViewedRepository;
+    private final Executor executor;
+    private final ThreadPoolExecutor workers;
+    private final boolean enabled;
+    private final boolean persist;
+    private final int size;
+    private final long flushIntervalMillis;
+
+    // Access ordered, so the eldest entry is the user idle for the longest
+    private final LinkedHashMap<String, ViewRing> rings;
+
+    // Changed lists of users dropped from memory before they were flushed, oldest first
+    private final LinkedHashMap<String, ViewRing> evictedUnflushed = new LinkedHashMap<>();
+    private final int maxEvictedUnflushed;
+
+    private final AtomicBoolean flushRunning = new AtomicBoolean();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private volatile long lastFlush = System.currentTimeMillis();
+
+    @Autowired
+    public RecentlyViewedServiceImpl(RecentlyViewedRepository recentlyViewedRepository,
+                                     @Value("${app.features.enable-recently-viewed:true}") boolean enabled,
+                                     @Value("${app.recently-viewed.persist:true}") boolean persist,
+                                     @Value("${app.recently-viewed.size:20}") int size,
+                                     @Value("${app.recently-viewed.max-users:10000}") int maxUsers,
+                                     @Value("${app.recently-viewed.flush-interval-ms:60000}") long flushIntervalMillis,
+                                     @Value("${app.recently-viewed.queue-capacity:1000}") int queueCapacity) {
+        this(recentlyViewedRepository, workers(queueCapacity), enabled, persist, size, maxUsers, flushIntervalMillis);
+    }
+
+    RecentlyViewedServiceImpl(RecentlyViewedRepository recentlyViewedRepository, Executor executor,
+                              boolean enabled, boolean persist, int size, int maxUsers, long flushIntervalMillis) {
+        this.recentlyViewedRepository = recentlyViewedRepository;
+        this.executor = executor;
+        this.workers = executor instanceof ThreadPoolExecutor pool ? pool : null;
+        this.maxEvictedUnflushed = Math.max(1, maxUsers / 10);
+        this.enabled = enabled;
+        this.persist = persist;
+        this.size = size;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.rings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ViewRing> eldest) {
+                if (size() <= maxUsers) {
+                    return false;
+                }
+                if (persist && eldest.getValue().dirty) {
+                    if (evictedUnflushed.size() >= maxEvictedUnflushed) {
+                        // Flushes cannot keep up, the oldest pending list is lost rather than memory growing
+                        Iterator<String> oldest = evictedUnflushed.keySet().iterator();
+                        logger.debug("Dropped unflushed recently viewed products of {}", oldest.next());
+                        oldest.remove();
+                    }
+                    evictedUnflushed.put(eldest.getKey(), eldest.getValue());
+                    requestFlush();
+                }
+                return true;
+            }
+        };
+    }
+
+    // One thread is enough for a query per view, anything the queue cannot take is dropped
+    private static ThreadPoolExecutor workers(int queueCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "recently-viewed");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void recordView(String username, Long productId) {
+        if (!enabled || username == null || productId == null) {
+            return;
+        }
+        try {
+            // Loading a list that is not in memory takes a query, keep it off the request
+            executor.execute(() -> record(username, productId));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Dropped recently viewed product {} for {}", productId, username);
+        }
+    }
+
+    void record(String username, Long productId) {
+        ViewRing ring = ring(username);
+        synchronized (this) {
+            ring.add(productId);
+        }
+        if (persist && System.currentTimeMillis() - lastFlush >= flushIntervalMillis) {
+            lastFlush = System.currentTimeMillis();
+            requestFlush();
+        }
+    }
+
+    // Queues a flush unless one is queued already
+    private void requestFlush() {
+        if (!flushQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                flushQueued.set(false);
+                flush();
+            });
+        } catch (RejectedExecutionException e) {
+            // The next view or eviction asks again
+            flushQueued.set(false);
+        }
+    }
+
+    @Override
+    public List<Long> getRecentlyViewed(String username, int limit) {
+        if (!enabled || username == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        ViewRing ring = ring(username);
+        synchronized (this) {
+            return ring.newestFirst(limit);
+        }
+    }
+
+    // The user's list, loaded into memory if needed
+    private ViewRing ring(String username) {
+        synchronized (this) {
+            ViewRing ring = rings.get(username);
+            if (ring != null) {
+                return ring;
+            }
+            ring = evictedUnflushed.remove(username);
+            if (ring != null) {
+                rings.put(username, ring);
+                return ring;
+            }
+            if (!persist) {
+                ring = new ViewRing(size);
+                rings.put(username, ring);
+                return ring;
+            }
+        }
+
+        ViewRing loaded = new ViewRing(size);
+        recentlyViewedRepository.findByUsername(username)
+                .ifPresent(stored -> loaded.restore(stored.getProductIds()));
+        synchronized (this) {
+            // Another request may have loaded it meanwhile
+            ViewRing ring = rings.putIfAbsent(username, loaded);
+            return ring != null ? ring : loaded;
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (!persist || !flushRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Map<String, ViewRing> taken = new HashMap<>();
+        try {
+            Map<String, String> changed = new HashMap<>();
+            synchronized (this) {
+                evictedUnflushed.forEach((username, ring) -> {
+                    taken.put(username, ring);
+                    changed.put(username, ring.serialize());
+                });
+                evictedUnflushed.clear();
+                rings.forEach((username, ring) -> {
+                    if (ring.dirty) {
+                        taken.put(username, ring);
+                        changed.put(username, ring.serialize());
+                        ring.dirty = false;
+                    }
+                });
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            Map<String, RecentlyViewed> stored = recentlyViewedRepository.findByUsernameIn(changed.keySet()).stream()
+                    .collect(Collectors.toMap(RecentlyViewed::getUsername, row -> row));
+            List<RecentlyViewed> rows = new ArrayList<>(changed.size());
+            changed.forEach((username, productIds) -> {
+                RecentlyViewed row = stored.getOrDefault(username, new RecentlyViewed(null, username, null, null));
+                row.setProductIds(productIds);
+                row.setUpdatedAt(now);
+                rows.add(row);
+            });
+            recentlyViewedRepository.saveAll(rows);
+            logger.debug("Flushed recently viewed products of {} users", rows.size());
+        } catch (RuntimeException e) {
+            logger.warn("Could not flush recently viewed products", e);
+            retryLater(taken);
+        } finally {
+            flushRunning.set(false);
+        }
+    }
+
+    // Marks the lists of a failed flush changed again, those no longer in memory go back to the pending ones
+    private synchronized void retryLater(Map<String, ViewRing> taken) {
+        taken.forEach((username, ring) -> {
+            ring.dirty = true;
+            if (rings.get(username) != ring) {
+                evictedUnflushed.putIfAbsent(username, ring);
+            }
+        });
+        Iterator<String> oldest = evictedUnflushed.keySet().iterator();
+        while (evictedUnflushed.size() > maxEvictedUnflushed) {
+            logger.debug("Dropped unflushed recently viewed products of {}", oldest.next());
+            oldest.remove();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() throws InterruptedException {
+        if (workers != null) {
+            workers.shutdownNow();
+            // A flush the worker is still running would make the final one return without writing
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Recently viewed worker did not stop, the last views may not be flushed");
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Product ids in a circular array, head is the next slot to write; once
+     * full the oldest id is overwritten. A product viewed again moves to the front.
+     */
+    static final class ViewRing {
+
+        private final long[] ids;
+        private int head;
+        private int count;
+        private boolean dirty;
+
+        ViewRing(int capacity) {
+            this.ids = new long[capacity];
+        }
+
+        // i = 0 is the newest
+        private int slot(int i) {
+            return Math.floorMod(head - 1 - i, ids.length);
+        }
+
+        void add(long productId) {
+            for (int i = 0; i < count; i++) {
+                if (ids[slot(i)] == productId) {
+                    if (i == 0) {
+                        return;
+                    }
+                    // Close the gap by moving the newer ids one slot back, then put it in front
+                    for (int j = i; j > 0; j--) {
+                        ids[slot(j)] = ids[slot(j - 1)];
+                    }
+                    ids[slot(0)] = productId;
+                    dirty = true;
+                    return;
+                }
+            }
+            ids[head] = productId;
+            head = (head + 1) % ids.length;
+            count = Math.min(count + 1, ids.length);
+            dirty = true;
+        }
+
+        List<Long> newestFirst(int limit) {
+            int n = Math.min(limit, count);
+            List<Long> result = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                result.add(ids[slot(i)]);
+            }
+            return result;
+        }
+
+        String serialize() {
+            return newestFirst(count).stream().map(String::valueOf).collect(Collectors.joining(","));
+        }
+
+        // Stored lists are newest first, so they are replayed oldest first
+        void restore(String productIds) {
+            if (productIds == null || productIds.isBlank()) {
+                return;
+            }
+            String[] stored = productIds.split(",");
+            for (int i = Math.min(stored.length, ids.length) - 1; i >= 0; i--) {
+                try {
+                    add(Long.parseLong(stored[i].trim()));
+                } catch (NumberFormatException e) {
+                    // Skip the damaged entry, the rest of the list is still useful
+                }
+            }
+            dirty = false;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.ecommerce.app.service.impl;
+
+import com.ecommerce.app.dto.ReviewDTO;
+import com.ecommerce.app.event.ProductChangedEvent;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.Review;
+import com.ecommerce.app.model.User;
+import com.ecommerce.app.repository.ProductRepository;
+import com.ecommerce.app.repository.ReviewRepository;
+import com.ecommerce.app.repository.UserRepository;
+import com.ecommerce.app.service.ReviewService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Review writes go through here so the rating aggregates stored on the
+ * product stay in step with the reviews table.
+ */
+@Service
+public class ReviewServiceImpl implements ReviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewServiceImpl.class);
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Runs before the catalog indexes build so they see the backfilled ratings
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfillRatingAggregates() {
+        int updated = productRepository.backfillRatingAggregates();
+        if (updated > 0) {
+            logger.info("Backfilled rating aggregates for {} products", updated);
+        }
+    }
+
+    @Override
+    public List<ReviewDTO> getReviewsByProductId(Long productId) {
+        return ReviewDTO.fromEntities(reviewRepository.findByProductIdOrderByCreatedAtDesc(productId));
+    }
+
+    @Override
+    @Transactional
+    public ReviewDTO addReview(ReviewDTO reviewDTO, Long userId, Long productId) {
+        int rating = validRating(reviewDTO.getRating());
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        Review review = new Review();
+        review.setProduct(product);
+        review.setUser(user);
+        review.setRating(rating);
+        review.setComment(reviewDTO.getComment());
+        review.setCreatedAt(LocalDateTime.now());
+        ReviewDTO saved = ReviewDTO.fromEntity(reviewRepository.save(review));
+
+        productRepository.applyRatingChange(productId, rating, 1, LocalDateTime.now());
+        eventPublisher.publishEvent(ProductChangedEvent.countersChanged(productId));
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public ReviewDTO updateReview(Long reviewId, ReviewDTO reviewDTO) {
+        Review review = reviewRepository.findById(reviewId)
+                .orElseThrow(() -> new RuntimeException("Review not found"));
+        int oldRating = review.getRating();
+        int newRating = reviewDTO.getRating() != null ? validRating(reviewDTO.getRating()) : oldRating;
+
+        review.setRating(newRating);
+        if (reviewDTO.getComment() != null) {
+            review.setComment(reviewDTO.getComment());
+        }
+        // Build the response before the aggregate update clears the persistence context
+        ReviewDTO updated = ReviewDTO.fromEntity(reviewRepository.save(review));
+
+        if (newRating != oldRating) {
+            Long productId = updated.getProductId();
+            productRepository.applyRatingChange(productId, oldRating, -1, LocalDateTime.now());
+            productRepository.applyRatingChange(productId, newRating, 1, LocalDateTime.now());
+            eventPublisher.publishEvent(ProductChangedEvent.countersChanged(productId));
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public void deleteReview(Long reviewId) {
+        Review review = reviewRepository.findById(reviewId).orElse(null);
+        if (review == null) {
+            return;
+        }
+        Long productId = review.getProduct().getId();
+        int rating = review.getRating();
+
+        reviewRepository.delete(review);
+        productRepository.applyRatingChange(productId, rating, -1, LocalDateTime.now());
+        eventPublisher.publishEvent(ProductChangedEvent.countersChanged(productId));
+    }
+
+    @Override
+    public Double getAverageRatingForProduct(Long productId) {
+        return productRepository.findById(productId)
+                .map(Product::getAverageRating)
+                .orElse(0.0);
+    }
+
+    private static int validRating(Integer rating) {
+        if (rating == null || rating < 1 || rating > 5) {
+            throw new RuntimeException("Rating must be between 1 and 5");
+        }
+        return rating;
+    }
+}
@@ -1,11 +1,14 @@
 package com.ecommerce.app.service.impl;
 
+import com.ecommerce.app.auth.CurrentUserCache;
+import com.ecommerce.app.event.UserChangedEvent;
 import com.ecommerce.app.model.ERole;
 import com.ecommerce.app.model.Role;
 import com.ecommerce.app.model.User;
 import com.ecommerce.app.repository.RoleRepository;
 import com.ecommerce.app.repository.UserRepository;
 import com.ecommerce.app.service.UserService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -21,10 +24,15 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final CurrentUserCache currentUserCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository) {
+    public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository,
+                           CurrentUserCache currentUserCache, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
+        this.currentUserCache = currentUserCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -86,7 +94,9 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public User updateUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userChanged(saved.getId());
+        return saved;
     }
     
     @Override
@@ -118,6 +128,13 @@ public class UserServiceImpl implements UserService {
         
         user.setRoles(roles);
         userRepository.save(user);
+        userChanged(userId);
+    }
+
+    // Signed-in sessions see names and roles through CurrentUserCache
+    private void userChanged(Long userId) {
+        currentUserCache.invalidate(userId);
+        eventPublisher.publishEvent(new UserChangedEvent(userId));
     }
     
     private boolean userHasRole(User user, ERole roleName) {
@@ -129,6 +146,7 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public void deleteUser(Long userId) {
         userRepository.deleteById(userId);
+        userChanged(userId);
     }
 
     @Override
@@ -1,5 +1,6 @@
 package com.ecommerce.app.service.impl;
 
+import com.ecommerce.app.dto.ProductDTOAssembler;
 import com.ecommerce.app.dto.WishlistItemDTO;
 import com.ecommerce.app.model.Product;
 import com.ecommerce.app.model.User;
@@ -24,6 +25,9 @@ public class WishlistServiceImpl implements WishlistService {
     @Autowired
     private UserWishlistRepository userWishlistRepository;
     
+    @Autowired
+    private ProductDTOAssembler productDTOAssembler;
+    
     @Override
     public Wishlist getUserWishlist(User user) {
         return userWishlistRepository.findByUser(user)
@@ -83,10 +87,7 @@ public class WishlistServiceImpl implements WishlistService {
     
     @Override
     public List<WishlistItemDTO> getWishlistItemDTOs(User user) {
-        return wishlistRepository.findByUser(user)
-                .stream()
-                .map(WishlistItemDTO::new)
-                .collect(Collectors.toList());
+        return productDTOAssembler.toWishlistItemDTOs(wishlistRepository.findByUser(user));
     }
     
     @Override
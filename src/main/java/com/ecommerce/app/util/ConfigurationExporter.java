@@ -2,6 +2,7 @@ package com.ecommerce.app.util;
 
 import com.ecommerce.app.config.AppEnvironment;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 import java.util.HashMap;
 import java.util.Map;
@@ -15,6 +16,9 @@ public class ConfigurationExporter {
 
     @Autowired
     private AppEnvironment appEnvironment;
+
+    @Autowired
+    private Environment environment;
     
     /**
      * Returns a map of configuration values that can be safely exposed to the frontend
@@ -30,11 +34,11 @@ public class ConfigurationExporter {
         api.put("baseUrl", appEnvironment.getApiBaseUrl());
         config.put("api", api);
         
-        // Feature flags
+        // Feature flags, read from the Spring environment like the @Value flags of the endpoints behind them
         Map<String, Object> features = new HashMap<>();
-        features.put("enableWishlist", Boolean.parseBoolean(System.getProperty("app.features.enable-wishlist", "true")));
-        features.put("enableProductComparison", Boolean.parseBoolean(System.getProperty("app.features.enable-product-comparison", "false")));
-        features.put("enableRecentlyViewed", Boolean.parseBoolean(System.getProperty("app.features.enable-recently-viewed", "true")));
+        features.put("enableWishlist", environment.getProperty("app.features.enable-wishlist", Boolean.class, true));
+        features.put("enableProductComparison", environment.getProperty("app.features.enable-product-comparison", Boolean.class, false));
+        features.put("enableRecentlyViewed", environment.getProperty("app.features.enable-recently-viewed", Boolean.class, true));
         
         // Only expose debug tools if debug mode is enabled
         Map<String, Object> debug = new HashMap<>();
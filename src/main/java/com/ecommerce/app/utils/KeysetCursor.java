@@ -0,0 +1,98 @@
+package com.ecommerce.app.utils;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset (seek) paginated listing.
+ * Holds the sort property and direction plus the sort value and id of the
+ * last row already returned, so the next page is fetched with a
+ * "WHERE (key, id) > (:value, :id)" seek instead of an OFFSET scan.
+ * Clients only see it as an opaque URL-safe token.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Long lastId;
+    private final String lastValue;
+
+    private KeysetCursor(String property, Sort.Direction direction, Long lastId, String lastValue) {
+        this.property = property;
+        this.direction = direction;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    /**
+     * Cursor for the first page of a listing
+     */
+    public static KeysetCursor first(String property, Sort.Direction direction) {
+        return new KeysetCursor(property, direction, null, null);
+    }
+
+    /**
+     * Parse a token, an empty token means the first page in the given default order
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static KeysetCursor decode(String token, String defaultProperty, Sort.Direction defaultDirection) {
+        if (token == null || token.isBlank()) {
+            return first(defaultProperty, defaultDirection);
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        // property|direction|id|value, the value goes last as it may contain the separator
+        String[] parts = decoded.split("\\" + SEPARATOR, 4);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new KeysetCursor(parts[0], Sort.Direction.fromString(parts[1]), Long.valueOf(parts[2]),
+                    parts.length == 4 ? parts[3] : null);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Cursor positioned after the given row
+     */
+    public KeysetCursor next(Long id, Object value) {
+        return new KeysetCursor(property, direction, id, value != null ? value.toString() : null);
+    }
+
+    public String encode() {
+        String raw = property + SEPARATOR + direction.name() + SEPARATOR + lastId
+                + (lastValue != null ? SEPARATOR + lastValue : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirstPage() {
+        return lastId == null;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public String getLastValue() {
+        return lastValue;
+    }
+}
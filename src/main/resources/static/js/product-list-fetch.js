@@ -40,7 +40,7 @@ document.addEventListener("DOMContentLoaded", function () {
 
   function renderProductCard(product) {
     const isSale = product.salePrice && product.salePrice > 0;
-    const isOut = product.stockQuantity === 0 || !product.active;
+    const isOut = !product.inStock;
     const badge = isOut
       ? '<div class="product-badge out">Sold Out</div>'
       : isSale
@@ -73,11 +73,7 @@ document.addEventListener("DOMContentLoaded", function () {
         ${badge}
         <div class="product-tumb">
           <img src="${
-            product.imageUrl ||
-            (product.images &&
-              product.images[0] &&
-              product.images[0].imageUrl) ||
-            ""
+            product.imageUrl || "/images/product-placeholder.jpg"
           }" alt="${product.name}" />
           <div class="product-quick-actions">
             <button class="quick-action-btn wishlist-btn" data-product-id="${
@@ -91,22 +87,17 @@ document.addEventListener("DOMContentLoaded", function () {
           </div>
         </div>
         <div class="product-details">
-          <div class="product-category">${
-            product.category ? product.category.name : ""
-          }</div>
+          <div class="product-category">${product.categoryName || ""}</div>
           <h4 class="product-title">
             <a href="${productUrl}">${product.name}</a>
           </h4>
           <div class="product-rating">
             ${starsHtml}
-            <span>(${product.averageRating || 0})</span>
+            <span>(${product.ratingCount || 0})</span>
           </div>
           <div class="product-price-container">
             ${priceHtml}
           </div>
-          <div class="product-description">
-            ${product.description}
-          </div>
           <div class="product-action">
             ${
               isOut
@@ -127,16 +118,26 @@ document.addEventListener("DOMContentLoaded", function () {
     currentPage = page;
     productGrid.innerHTML = '<div class="loading">Loading products...</div>';
 
-    // Use the correct API endpoint and increase page size
-    fetch(`/api/products?page=${page}&size=${pageSize}&sortBy=id&direction=asc`)
+    // Selected facets go through the filter API, otherwise list the whole catalog
+    const filterParams = selectedFilterParams();
+    const url = filterParams.toString()
+      ? `/api/products/filter?${filterParams}&page=${page}&size=${pageSize}&sortBy=id&direction=asc`
+      : `/api/products?page=${page}&size=${pageSize}&sortBy=id&direction=asc`;
+
+    fetch(url)
       .then((res) => res.json())
       .then((json) => {
-        if (!json.success || !json.data || !json.data.content) {
+        const pageData =
+          json.data && json.data.products ? json.data.products : json.data;
+        if (!json.success || !pageData || !pageData.content) {
           productGrid.innerHTML =
             '<div class="error">Failed to load products.</div>';
           return;
         }
-        const products = json.data.content;
+        if (json.data.facets) {
+          updateFacetCounts(json.data.facets);
+        }
+        const products = pageData.content;
         if (!products.length) {
           productGrid.innerHTML = '<div class="info">No products found.</div>';
           return;
@@ -148,7 +149,7 @@ document.addEventListener("DOMContentLoaded", function () {
         initAddToCartButtons();
 
         // Create or update pagination
-        updatePagination(json.data.totalPages);
+        updatePagination(pageData.totalPages);
       })
       .catch((error) => {
         console.error("API Error:", error);
@@ -157,6 +158,32 @@ document.addEventListener("DOMContentLoaded", function () {
       });
   }
 
+  // Collect checked sidebar facets as filter API query parameters
+  function selectedFilterParams() {
+    const params = new URLSearchParams();
+    document
+      .querySelectorAll('.filter-sidebar input[type="checkbox"]:checked')
+      .forEach((input) => params.append(input.name, input.value));
+    return params;
+  }
+
+  // Refresh sidebar counts from the filter API response
+  function updateFacetCounts(facets) {
+    Object.keys(facets).forEach((name) => {
+      facets[name].forEach((facet) => {
+        const el = document.querySelector(
+          `[data-facet-count="${name}-${facet.value}"]`
+        );
+        if (el) el.textContent = `(${facet.count})`;
+      });
+    });
+  }
+
+  const applyFiltersBtn = document.querySelector(".filter-apply-btn");
+  if (applyFiltersBtn) {
+    applyFiltersBtn.addEventListener("click", () => fetchAndRenderProducts(0));
+  }
+
   // Function to create pagination controls
   function updatePagination(totalPages) {
     const paginationElement = document.getElementById("pagination");
@@ -0,0 +1,64 @@
+package com.ecommerce.app.assets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetBundlesTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testLayoutBundlesAreBuiltWithGzippedCopies() throws IOException {
+        AssetBundles bundles = new AssetBundles(new DefaultResourceLoader(),
+                "classpath:assets/bundles.properties", root.toString());
+
+        String url = bundles.url("layout.css");
+        assertTrue(url.matches("/assets/layout-[0-9a-f]{16}\\.css"));
+        Path bundle = bundles.getBundleDirectory().resolve(url.substring(AssetBundles.URL_PREFIX.length()));
+        try (GZIPInputStream gzip = new GZIPInputStream(Files.newInputStream(Path.of(bundle + ".gz")))) {
+            assertArrayEquals(Files.readAllBytes(bundle), gzip.readAllBytes());
+        }
+        assertTrue(Files.readString(root.resolve("manifest.json")).contains(url));
+        assertFalse(Files.exists(bundles.getBundleDirectory().resolve("manifest.json")));
+        assertThrows(IllegalArgumentException.class, () -> bundles.url("missing.css"));
+    }
+
+    @Test
+    void testImportsAreInlinedOnceOrMovedToTheTop() throws IOException {
+        Path sources = root.resolve("static");
+        Files.createDirectories(sources.resolve("css"));
+        Files.writeString(sources.resolve("css/colors.css"), ":root { --red: #f00; }");
+        Files.writeString(sources.resolve("css/a.css"), "@import url(\"colors.css\");\n.a { color: var(--red); }");
+        Files.writeString(sources.resolve("css/b.css"),
+                "@import url('https://fonts.example.com/css?family=A;B');\n@import \"colors.css\";\n.b { }");
+        Files.writeString(root.resolve("bundles.properties"), "site.css=css/a.css,css/b.css,css/colors.css");
+
+        DefaultResourceLoader loader = new DefaultResourceLoader() {
+            @Override
+            public Resource getResource(String location) {
+                return new FileSystemResource(root.resolve(location.substring(location.indexOf(':') + 1)));
+            }
+        };
+        AssetBundles bundles = new AssetBundles(loader, "bundles.properties", root.resolve("out").toString());
+
+        String css = new String(bundles.build("site.css", List.of("css/a.css", "css/b.css", "css/colors.css")),
+                StandardCharsets.UTF_8);
+        assertTrue(css.startsWith("@import url('https://fonts.example.com/css?family=A;B');\n"));
+        assertEquals(1, css.split("--red: #f00").length - 1);
+        assertTrue(css.indexOf("--red: #f00") < css.indexOf(".a {"));
+        assertTrue(css.indexOf(".a {") < css.indexOf(".b {"));
+    }
+}
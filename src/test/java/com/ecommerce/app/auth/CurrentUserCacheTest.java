@@ -0,0 +1,63 @@
+package com.ecommerce.app.auth;
+
+import com.ecommerce.app.event.UserChangedEvent;
+import com.ecommerce.app.model.ERole;
+import com.ecommerce.app.model.Role;
+import com.ecommerce.app.model.User;
+import com.ecommerce.app.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CurrentUserCacheTest {
+
+    private UserRepository userRepository;
+    private CurrentUserCache cache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        cache = new CurrentUserCache(userRepository, 100, Duration.ofMinutes(30));
+        user = new User("Ada", "Lovelace", "ada", "ada@example.com", "secret");
+        user.setId(7L);
+        user.getRoles().add(new Role(ERole.ROLE_USER));
+        when(userRepository.findById(7L)).thenAnswer(invocation -> Optional.of(user));
+    }
+
+    @Test
+    void loadsTheUserOnce() {
+        CurrentUser first = cache.get(7L);
+        CurrentUser second = cache.get(7L);
+
+        assertSame(first, second);
+        assertEquals("ada", first.getUsername());
+        assertEquals(Set.of(ERole.ROLE_USER), first.getRoles());
+        assertFalse(first.isAdmin());
+        verify(userRepository, times(1)).findById(7L);
+    }
+
+    @Test
+    void roleChangeIsSeenAfterInvalidation() {
+        assertFalse(cache.get(7L).isAdmin());
+        user.getRoles().add(new Role(ERole.ROLE_ADMIN));
+        assertFalse(cache.get(7L).isAdmin());
+
+        cache.onUserChanged(new UserChangedEvent(7L));
+
+        assertTrue(cache.get(7L).isAdmin());
+    }
+
+    @Test
+    void missingUserIsNotCached() {
+        assertNull(cache.get(8L));
+        assertNull(cache.get(8L));
+        verify(userRepository, times(2)).findById(8L);
+    }
+}
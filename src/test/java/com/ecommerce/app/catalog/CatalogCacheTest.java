@@ -0,0 +1,109 @@
+package com.ecommerce.app.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogCacheTest {
+
+    private AtomicLong now;
+    private AtomicInteger loads;
+    private CatalogCache<Integer, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong();
+        loads = new AtomicInteger();
+        cache = new CatalogCache<>("test", 2, Duration.ofMinutes(1), now::get);
+    }
+
+    @Test
+    void testReadThroughCountsHitsAndMisses() {
+        assertEquals("v1", cache.get(1, this::load));
+        assertEquals("v1", cache.get(1, this::load));
+
+        assertEquals(1, loads.get());
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+        cache.get(1, this::load);
+        cache.get(3, this::load);
+
+        // 2 was the least recently used when 3 arrived
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.stats().getSize());
+        assertTrue(cache.stats().getEvictions() >= 1);
+    }
+
+    @Test
+    void testExpiredEntryIsReloaded() {
+        cache.get(1, this::load);
+        now.addAndGet(Duration.ofSeconds(59).toNanos());
+        cache.get(1, this::load);
+        assertEquals(1, loads.get());
+
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+        cache.get(1, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidationDuringLoadIsNotOverwritten() {
+        String value = cache.get(1, key -> {
+            // A write lands while the old state is being read
+            cache.invalidate(key);
+            return "stale";
+        });
+
+        assertEquals("stale", value);
+        assertEquals("v1", cache.get(1, this::load));
+    }
+
+    @Test
+    void testInvalidationOfAnotherKeyDoesNotDropLoad() {
+        cache.get(1, key -> {
+            cache.invalidate(2);
+            return load(key);
+        });
+
+        assertEquals("v1", cache.get(1, this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testInvalidateAllDuringLoadIsNotOverwritten() {
+        cache.get(1, key -> {
+            cache.invalidateAll();
+            return "stale";
+        });
+
+        assertEquals("v1", cache.get(1, this::load));
+    }
+
+    @Test
+    void testNullIsNotCached() {
+        assertNull(cache.get(1, key -> null));
+        assertEquals("v1", cache.get(1, this::load));
+        assertEquals(0, cache.stats().getHits());
+    }
+
+    private String load(Integer key) {
+        loads.incrementAndGet();
+        return "v" + key;
+    }
+}
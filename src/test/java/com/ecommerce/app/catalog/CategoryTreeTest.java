@@ -0,0 +1,76 @@
+package com.ecommerce.app.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryTreeTest {
+
+    // Furniture(1) > Seating(2) > Sofas(4), Furniture(1) > Tables(3), Lighting(5)
+    private final CategoryTree tree = CategoryTree.of(List.of(
+            new CategoryTree.Row(1L, "Furniture", null),
+            new CategoryTree.Row(2L, "Seating", 1L),
+            new CategoryTree.Row(3L, "Tables", 1L),
+            new CategoryTree.Row(4L, "Sofas", 2L),
+            new CategoryTree.Row(5L, "Lighting", null)));
+
+    @Test
+    void testPathsAndDepths() {
+        CategoryTree.Node sofas = tree.find(4L).orElseThrow();
+        assertEquals("/1/2/4/", sofas.getPath());
+        assertEquals(2, sofas.getDepth());
+        assertEquals(2L, sofas.getParentId());
+        assertTrue(sofas.isLeaf());
+    }
+
+    @Test
+    void testNodesArePreorder() {
+        List<Long> ids = tree.getNodes().stream().map(CategoryTree.Node::getId).collect(Collectors.toList());
+        assertEquals(List.of(1L, 2L, 4L, 3L, 5L), ids);
+        assertEquals(2, tree.getRoots().size());
+    }
+
+    @Test
+    void testSubtreeAndAncestors() {
+        assertEquals(List.of(1L, 2L, 4L, 3L), tree.descendantIds(1L));
+        assertEquals(List.of(5L), tree.descendantIds(5L));
+        assertTrue(tree.descendantIds(99L).isEmpty());
+
+        List<String> breadcrumb = tree.ancestors(4L).stream().map(CategoryTree.Node::getName).collect(Collectors.toList());
+        assertEquals(List.of("Furniture", "Seating", "Sofas"), breadcrumb);
+
+        assertTrue(tree.isInSubtree(1L, 4L));
+        assertTrue(tree.isInSubtree(2L, 2L));
+        assertFalse(tree.isInSubtree(2L, 3L));
+    }
+
+    @Test
+    void testActiveCountsAddUpOverSubtrees() {
+        CategoryTree counted = CategoryTree.of(List.of(
+                new CategoryTree.Row(1L, "Furniture", null, 2, 1),
+                new CategoryTree.Row(2L, "Seating", 1L, 5, 4),
+                new CategoryTree.Row(4L, "Sofas", 2L, 3, 3),
+                new CategoryTree.Row(5L, "Lighting", null, null, null)));
+
+        assertEquals(8, counted.find(1L).orElseThrow().getSubtreeActiveProductCount());
+        assertEquals(7, counted.find(2L).orElseThrow().getSubtreeActiveProductCount());
+        assertEquals(5, counted.find(2L).orElseThrow().getProductCount());
+        assertEquals(0, counted.find(5L).orElseThrow().getActiveProductCount());
+        assertEquals(List.of(1L, 2L, 4L, 5L), counted.getNodes().stream()
+                .map(CategoryTree.Node::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testCyclesAndMissingParentsBecomeRoots() {
+        CategoryTree broken = CategoryTree.of(List.of(
+                new CategoryTree.Row(1L, "A", 2L),
+                new CategoryTree.Row(2L, "B", 1L),
+                new CategoryTree.Row(3L, "C", 42L)));
+
+        assertEquals(3, broken.size());
+        assertEquals("/3/", broken.find(3L).orElseThrow().getPath());
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.event.OrderPlacedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoPurchaseIndexTest {
+
+    private long nextOrderId = 1;
+
+    private CoPurchaseIndex index(int size) {
+        return new CoPurchaseIndex(null, null, null, null, size, Integer.MAX_VALUE);
+    }
+
+    private void order(CoPurchaseIndex index, Long... productIds) {
+        index.onOrderPlaced(new OrderPlacedEvent(nextOrderId++, List.of(productIds)));
+    }
+
+    @Test
+    void testPartnersAreRankedByOrdersTogether() {
+        CoPurchaseIndex index = index(2);
+        order(index, 1L, 2L, 3L);
+        order(index, 1L, 2L);
+        order(index, 1L, 4L);
+        order(index, 2L, 3L);
+
+        assertEquals(List.of(2L, 3L, 4L), index.boughtTogether(List.of(1L), 10));
+        assertEquals(List.of(2L), index.boughtTogether(List.of(1L), 1));
+        // A whole cart sums its rows and leaves out its own products
+        assertEquals(List.of(3L, 4L), index.boughtTogether(List.of(1L, 2L), 10));
+        assertTrue(index.boughtTogether(List.of(99L), 10).isEmpty());
+    }
+
+    @Test
+    void testRepeatedLinesAndBulkOrdersAreNotCounted() {
+        CoPurchaseIndex index = index(2);
+        order(index, 5L, 5L, 6L);
+        order(index, 5L, 7L);
+        order(index, 7L, 5L);
+        order(index, LongStream.rangeClosed(5, 5 + CoPurchaseIndex.MAX_ORDER_PRODUCTS)
+                .boxed().toArray(Long[]::new));
+
+        assertEquals(List.of(7L, 6L), index.boughtTogether(List.of(5L), 10));
+        assertEquals(List.of(5L), index.boughtTogether(List.of(6L), 10));
+    }
+
+    @Test
+    void testFullRowReplacesItsSmallestCounter() {
+        // Rows hold two partners
+        CoPurchaseIndex index = index(1);
+        order(index, 1L, 2L);
+        order(index, 1L, 2L);
+        order(index, 1L, 3L);
+        order(index, 1L, 4L);
+
+        assertEquals(List.of(2L, 4L), index.boughtTogether(List.of(1L), 10));
+    }
+
+    @Test
+    void testSnapshotsTakeOnlyRowsChangedByOrders() {
+        CoPurchaseIndex.Matrix matrix = new CoPurchaseIndex.Matrix(4);
+        // As read back from a snapshot
+        matrix.add(1L, 2L, 5);
+        matrix.add(2L, 1L, 5);
+        assertFalse(matrix.hasChanges());
+
+        matrix.addOrder(1L, List.of(2L, 3L));
+        BitSet taken = matrix.takeChanges();
+        assertEquals(List.of(2L, 3L), matrix.productIds(taken).stream()
+                .map(row -> (Long) row[0]).collect(Collectors.toList()));
+        assertEquals(3, matrix.rows(taken).size());
+        assertFalse(matrix.hasChanges());
+    }
+}
@@ -0,0 +1,111 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.model.Category;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFacetIndex(null);
+        index.index(rated(product(1L, 1L, Set.of(10L), "80", 5, true), 2, 9));
+        index.index(rated(product(2L, 1L, Set.of(10L, 11L), "300", 0, true), 1, 3));
+        index.index(product(3L, 2L, Set.of(11L), "1200", 2, true));
+        index.index(rated(product(4L, 2L, Set.of(10L), "90", 1, false), 1, 5));
+    }
+
+    @Test
+    void testInactiveProductsAreExcluded() {
+        assertEquals(List.of(1L, 2L, 3L), index.filter(FacetQuery.all(), null));
+    }
+
+    @Test
+    void testValuesWithinFacetAreOred() {
+        FacetQuery query = FacetQuery.builder().tagIds(List.of(10L, 11L)).build();
+        assertEquals(List.of(1L, 2L, 3L), index.filter(query, null));
+    }
+
+    @Test
+    void testMatchAllTags() {
+        FacetQuery query = FacetQuery.builder().tagIds(List.of(10L, 11L)).matchAllTags(true).build();
+        assertEquals(List.of(2L), index.filter(query, null));
+    }
+
+    @Test
+    void testFacetsAreAnded() {
+        FacetQuery query = FacetQuery.builder()
+                .categoryIds(List.of(1L))
+                .inStockOnly(true)
+                .priceBands(List.of(PriceBand.UNDER_100))
+                .build();
+        assertEquals(List.of(1L), index.filter(query, null));
+    }
+
+    @Test
+    void testCountsIgnoreOwnFacetSelection() {
+        FacetQuery query = FacetQuery.builder().categoryIds(List.of(1L)).build();
+        FacetCounts counts = index.counts(query);
+
+        assertEquals(2, counts.getTotal());
+        assertEquals(2, counts.getCategories().get(1L));
+        assertEquals(1, counts.getCategories().get(2L));
+        assertEquals(2, counts.getTags().get(10L));
+        assertEquals(1, counts.getRatings().get(4));
+        assertEquals(1, counts.getInStock());
+    }
+
+    @Test
+    void testReindexMovesProductBetweenFacets() {
+        index.index(rated(product(1L, 2L, Set.of(11L), "80", 5, true), 2, 9));
+        assertEquals(List.of(2L), index.filter(FacetQuery.builder().categoryIds(List.of(1L)).build(), null));
+        assertEquals(List.of(1L, 3L), index.filter(FacetQuery.builder().categoryIds(List.of(2L)).build(), null));
+    }
+
+    @Test
+    void testRemove() {
+        index.remove(2L);
+        assertEquals(List.of(1L, 3L), index.filter(FacetQuery.all(), null));
+    }
+
+    private Product rated(Product product, int count, long sum) {
+        product.setRatingCount(count);
+        product.setRatingSum(sum);
+        return product;
+    }
+
+    private Product product(Long id, Long categoryId, Set<Long> tagIds, String price, int stock, boolean active) {
+        Category category = new Category();
+        category.setId(categoryId);
+        category.setName("Category " + categoryId);
+
+        Set<Tag> tags = new HashSet<>();
+        for (Long tagId : tagIds) {
+            Tag tag = new Tag();
+            tag.setId(tagId);
+            tag.setName("Tag " + tagId);
+            tags.add(tag);
+        }
+
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(new BigDecimal(price));
+        product.setStockQuantity(stock);
+        product.setActive(active);
+        product.setCategory(category);
+        product.setTags(tags);
+        return product;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ecommerce.app.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductImportReaderTest {
+
+    private List<ProductImportReader.Record> read(String text, ProductImportReader.Format format) throws IOException {
+        List<ProductImportReader.Record> records = new ArrayList<>();
+        try (ProductImportReader reader = ProductImportReader.open(
+                new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), format, new ObjectMapper())) {
+            reader.forEachRemaining(records::add);
+        }
+        return records;
+    }
+
+    @Test
+    void testCsvQuotesLineBreaksAndHeaderNames() throws IOException {
+        List<ProductImportReader.Record> records = read(
+                "﻿SKU,Name,sale_price\r\n" +
+                "A-1,\"Sofa, \"\"large\"\"\",10\r\n" +
+                "\r\n" +
+                "A-2,\"Two\nlines\",\n" +
+                "A-3,x,1,extra\n",
+                ProductImportReader.Format.CSV);
+
+        assertEquals(3, records.size());
+        assertEquals("Sofa, \"large\"", records.get(0).getValues().get("name"));
+        assertEquals("10", records.get(0).getValues().get("saleprice"));
+        assertEquals(2, records.get(0).getLine());
+
+        assertEquals("Two\nlines", records.get(1).getValues().get("name"));
+        assertEquals(4, records.get(1).getLine());
+
+        assertNull(records.get(2).getValues());
+        assertEquals(6, records.get(2).getLine());
+        assertNotNull(records.get(2).getError());
+    }
+
+    @Test
+    void testCsvUnterminatedQuoteFails() {
+        assertThrows(UncheckedIOException.class,
+                () -> read("sku,name\nA-1,\"open\n", ProductImportReader.Format.CSV));
+    }
+
+    @Test
+    void testNdjsonArraysAndBadLines() throws IOException {
+        List<ProductImportReader.Record> records = read(
+                "{\"sku\":\"A-1\",\"stock_quantity\":3,\"tags\":[\"oak\",\"sale\"]}\n" +
+                "\n" +
+                "{not json}\n" +
+                "[1,2]\n",
+                ProductImportReader.Format.NDJSON);
+
+        assertEquals(3, records.size());
+        assertEquals("3", records.get(0).getValues().get("stockquantity"));
+        assertEquals(List.of("oak", "sale"), records.get(0).getValues().get("tags"));
+        assertEquals(3, records.get(1).getLine());
+        assertNotNull(records.get(1).getError());
+        assertNotNull(records.get(2).getError());
+    }
+
+    @Test
+    void testFormatDetection() {
+        assertEquals(ProductImportReader.Format.CSV, ProductImportReader.Format.detect("feed.CSV", null));
+        assertEquals(ProductImportReader.Format.NDJSON,
+                ProductImportReader.Format.detect("feed", "application/x-ndjson"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ProductImportReader.Format.detect("feed.xlsx", "application/octet-stream"));
+    }
+}
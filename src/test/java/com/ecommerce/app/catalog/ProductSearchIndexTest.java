@@ -0,0 +1,77 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.model.Category;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(null);
+        index.index(product(1L, "Oak Dining Table", "Solid oak table", "Tables", "wood"));
+        index.index(product(2L, "Walnut Side Table", "Compact side table", "Tables", "walnut"));
+        index.index(product(3L, "Leather Sofa", "Three seat sofa with oak legs", "Sofas", "leather"));
+    }
+
+    @Test
+    void testNameMatchRanksAboveDescriptionMatch() {
+        assertEquals(List.of(1L, 3L), index.search("oak"));
+    }
+
+    @Test
+    void testAllTermsMustMatch() {
+        assertEquals(List.of(2L), index.search("walnut table"));
+        assertTrue(index.search("walnut sofa").isEmpty());
+    }
+
+    @Test
+    void testPrefixMatch() {
+        assertEquals(List.of(3L), index.search("leat"));
+    }
+
+    @Test
+    void testReindexReplacesOldTerms() {
+        index.index(product(3L, "Fabric Sofa", "Three seat sofa", "Sofas", "fabric"));
+        assertTrue(index.search("leather").isEmpty());
+        assertEquals(List.of(3L), index.search("fabric"));
+    }
+
+    @Test
+    void testRemove() {
+        index.remove(1L);
+        assertEquals(List.of(3L), index.search("oak"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testBlankQuery() {
+        assertTrue(index.search("  ").isEmpty());
+        assertTrue(index.search(null).isEmpty());
+    }
+
+    private Product product(Long id, String name, String description, String categoryName, String tagName) {
+        Category category = new Category();
+        category.setName(categoryName);
+
+        Tag tag = new Tag();
+        tag.setName(tagName);
+
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setCategory(category);
+        product.setTags(Set.of(tag));
+        return product;
+    }
+}
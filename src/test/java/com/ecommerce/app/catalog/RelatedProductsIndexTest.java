@@ -0,0 +1,92 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.event.ProductChangedEvent;
+import com.ecommerce.app.model.Category;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelatedProductsIndexTest {
+
+    // Furniture(1) > Seating(2), Furniture(1) > Tables(3)
+    private final CategoryTree tree = CategoryTree.of(List.of(
+            new CategoryTree.Row(1L, "Furniture", null),
+            new CategoryTree.Row(2L, "Seating", 1L),
+            new CategoryTree.Row(3L, "Tables", 1L)));
+
+    private RelatedProductsIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RelatedProductsIndex(null, null, null, 3);
+        index.load(List.of(
+                product(1L, 2L, Set.of(10L, 11L), true),
+                product(2L, 2L, Set.of(10L), true),
+                product(3L, 3L, Set.of(10L, 11L), true),
+                product(4L, 3L, Set.of(), true),
+                product(5L, 2L, Set.of(10L, 11L), false)), tree);
+    }
+
+    @Test
+    void testNeighboursAreRankedByWeightedOverlap() {
+        // Same category and a tag beats both tags in a sibling category, which beats the parent alone
+        assertEquals(List.of(2L, 3L, 4L), index.related(1L, 10));
+        assertEquals(List.of(3L, 2L, 1L), index.related(4L, 10));
+        assertEquals(List.of(2L), index.related(1L, 1));
+    }
+
+    @Test
+    void testInactiveAndUnknownProductsHaveNoNeighbours() {
+        assertTrue(index.related(5L, 10).isEmpty());
+        assertTrue(index.related(99L, 10).isEmpty());
+        assertFalse(index.related(2L, 10).contains(5L));
+    }
+
+    @Test
+    void testChangesOutsideTheFeaturesLeaveListsAlone() {
+        // Would need the repository if it reloaded the product
+        index.onProductChanged(ProductChangedEvent.countersChanged(1L));
+
+        index.update(1L, product(1L, 2L, Set.of(11L, 10L), true), tree);
+        assertEquals(List.of(2L, 3L, 4L), index.related(1L, 10));
+        assertEquals(List.of(3L, 2L, 1L), index.related(4L, 10));
+    }
+
+    @Test
+    void testUpdateReachesOtherLists() {
+        index.update(4L, product(4L, 2L, Set.of(10L, 11L), true), tree);
+        assertEquals(4L, index.related(1L, 10).get(0));
+        assertEquals(List.of(1L, 2L, 3L), index.related(4L, 10));
+        assertTrue(index.related(2L, 10).contains(4L));
+
+        index.update(3L, null, tree);
+        assertFalse(index.related(1L, 10).contains(3L));
+        assertTrue(index.related(3L, 10).isEmpty());
+    }
+
+    private Product product(Long id, Long categoryId, Set<Long> tagIds, boolean active) {
+        Category category = new Category();
+        category.setId(categoryId);
+
+        Set<Tag> tags = new HashSet<>();
+        for (Long tagId : tagIds) {
+            Tag tag = new Tag();
+            tag.setId(tagId);
+            tags.add(tag);
+        }
+
+        Product product = new Product();
+        product.setId(id);
+        product.setActive(active);
+        product.setCategory(category);
+        product.setTags(tags);
+        return product;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ecommerce.app.catalog;
+
+import com.ecommerce.app.event.OrderPlacedEvent;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.repository.OrderItemRepository;
+import com.ecommerce.app.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SuggestionIndexTest {
+
+    private ProductRepository productRepository;
+    private OrderItemRepository orderItemRepository;
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        orderItemRepository = mock(OrderItemRepository.class);
+        index = new SuggestionIndex(productRepository, orderItemRepository);
+    }
+
+    @Test
+    void testRebuildDropsProductsThatAreGone() {
+        when(productRepository.findAllWithCategoryAndTags())
+                .thenReturn(List.of(product(1L, "Oak Table"), product(2L, "Oak Chair")));
+        index.rebuild();
+        assertEquals(List.of(2L, 1L), ids("oak"));
+
+        when(productRepository.findAllWithCategoryAndTags()).thenReturn(List.of(product(1L, "Oak Table")));
+        index.rebuild();
+        assertEquals(List.of(1L), ids("oak"));
+    }
+
+    @Test
+    void testOrdersRaisePopularityBetweenRebuilds() {
+        when(productRepository.findAllWithCategoryAndTags())
+                .thenReturn(List.of(product(1L, "Oak Table"), product(2L, "Oak Chair")));
+        when(orderItemRepository.sumQuantityByProduct()).thenReturn(List.<Object[]>of(new Object[] {1L, 2L}));
+        index.rebuild();
+        assertEquals(List.of(1L, 2L), ids("oak"));
+
+        index.onOrderPlaced(new OrderPlacedEvent(7L, List.of(2L), List.of(3)));
+        assertEquals(List.of(2L, 1L), ids("oak"));
+        assertEquals(4, index.suggest("oak chair", 1).get(0).getWeight());
+    }
+
+    private List<Long> ids(String prefix) {
+        return index.suggest(prefix, SuggestionIndex.MAX_SUGGESTIONS).stream()
+                .map(Suggestion::getId)
+                .collect(Collectors.toList());
+    }
+
+    private Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setActive(true);
+        return product;
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.app.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductComparisonDTOTest {
+
+    private ProductDTO product(long id, String price, int stock, TagDTO... tags) {
+        return ProductDTO.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(new BigDecimal(price))
+                .stockQuantity(stock)
+                .category(CategoryDTO.builder().id(1L).name("Chairs").build())
+                .images(List.of())
+                .tags(List.of(tags))
+                .ratingCount(0)
+                .averageRating(0.0)
+                .active(true)
+                .build();
+    }
+
+    @Test
+    void testRowsAreAlignedWithColumns() {
+        TagDTO oak = TagDTO.builder().id(1L).name("oak").build();
+        TagDTO outdoor = TagDTO.builder().id(2L).name("Outdoor").build();
+        ProductComparisonDTO comparison = ProductComparisonDTO.of(List.of(
+                product(3, "10.00", 0, oak),
+                product(7, "25.50", 4, oak, outdoor)), List.of(9L));
+
+        assertEquals(List.of(3L, 7L), comparison.getColumns().stream()
+                .map(ProductComparisonDTO.Column::getId).collect(Collectors.toList()));
+        assertEquals(List.of(9L), comparison.getMissingIds());
+
+        Map<String, ProductComparisonDTO.Row> rows = comparison.getRows().stream()
+                .collect(Collectors.toMap(ProductComparisonDTO.Row::getKey, Function.identity()));
+        assertEquals(List.of(new BigDecimal("10.00"), new BigDecimal("25.50")), rows.get("price").getValues());
+        assertEquals(List.of("Chairs", "Chairs"), rows.get("category").getValues());
+        assertEquals(List.of(false, true), rows.get("inStock").getValues());
+        assertEquals(List.of(true, true), rows.get("tag:1").getValues());
+        assertEquals(List.of(false, true), rows.get("tag:2").getValues());
+
+        // Tag rows follow the fixed rows, by name
+        List<String> keys = comparison.getRows().stream()
+                .map(ProductComparisonDTO.Row::getKey).collect(Collectors.toList());
+        assertEquals(List.of("tag:1", "tag:2"), keys.subList(keys.size() - 2, keys.size()));
+    }
+}
@@ -0,0 +1,136 @@
+package com.ecommerce.app.dto;
+
+import com.ecommerce.app.catalog.CategoryTreeIndex;
+import com.ecommerce.app.model.Category;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.ProductImage;
+import com.ecommerce.app.model.Tag;
+import com.ecommerce.app.repository.CategoryRepository;
+import com.ecommerce.app.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({ProductDTOAssembler.class, CategoryTreeIndex.class})
+class ProductDTOAssemblerTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductDTOAssembler productDTOAssembler;
+
+    @Autowired
+    private CategoryTreeIndex categoryTreeIndex;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Tag sale = new Tag();
+        sale.setName("sale");
+        entityManager.persist(sale);
+        Tag fresh = new Tag();
+        fresh.setName("new");
+        entityManager.persist(fresh);
+
+        for (int c = 0; c < 4; c++) {
+            Category category = new Category();
+            category.setName("Category " + c);
+            entityManager.persist(category);
+
+            for (int i = 0; i < 10; i++) {
+                Product product = new Product();
+                product.setName("Product " + c + "-" + i);
+                product.setPrice(new BigDecimal("10.00"));
+                product.setStockQuantity(5);
+                product.setCategory(category);
+                product.getTags().add(sale);
+                if (i % 2 == 0) {
+                    product.getTags().add(fresh);
+                }
+                entityManager.persist(product);
+
+                for (int n = 0; n < 2; n++) {
+                    ProductImage image = new ProductImage();
+                    image.setProduct(product);
+                    image.setImageUrl("/images/" + product.getName() + "-" + n + ".jpg");
+                    image.setIsPrimary(n == 1);
+                    image.setDisplayOrder(n);
+                    entityManager.persist(image);
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testStatementCountDoesNotDependOnListSize() {
+        assertEquals(3, statementsForProducts(5));
+        assertEquals(3, statementsForProducts(40));
+    }
+
+    @Test
+    void testAssociationsAreStitchedPerProduct() {
+        List<ProductDTO> dtos = productDTOAssembler.toProductDTOs(
+                productRepository.findAllWithCategory(Sort.by("name")));
+
+        ProductDTO first = dtos.get(0);
+        assertEquals("Product 0-0", first.getName());
+        assertEquals("Category 0", first.getCategory().getName());
+        assertEquals(2, first.getImages().size());
+        assertEquals("/images/Product 0-0-1.jpg", first.getImageUrl());
+        assertEquals(2, first.getTags().size());
+        assertEquals(1, dtos.get(1).getTags().size());
+    }
+
+    @Test
+    void testCategoryCountsComeFromTheTree() {
+        categoryRepository.recountProducts(LocalDateTime.now());
+        categoryTreeIndex.rebuild();
+        List<Category> categories = entityManager
+                .createQuery("SELECT c FROM Category c ORDER BY c.name", Category.class)
+                .getResultList();
+        statistics.clear();
+
+        List<CategoryDTO> dtos = productDTOAssembler.toCategoryDTOsWithProductCount(categories);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(dtos.stream().allMatch(dto -> dto.getProductCount() == 10));
+    }
+
+    // Product list, images and tags, whatever the number of products
+    private long statementsForProducts(int limit) {
+        entityManager.clear();
+        statistics.clear();
+        List<Product> products = productRepository.findAllWithCategory(Sort.by("name")).subList(0, limit);
+        List<ProductDTO> dtos = productDTOAssembler.toProductDTOs(products);
+        assertEquals(limit, dtos.size());
+        return statistics.getPrepareStatementCount();
+    }
+}
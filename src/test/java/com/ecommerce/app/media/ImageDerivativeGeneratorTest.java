@@ -0,0 +1,79 @@
+package com.ecommerce.app.media;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageDerivativeGeneratorTest {
+
+    @TempDir
+    Path root;
+
+    private MediaStorage mediaStorage;
+    private ImageDerivativeGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        mediaStorage = new MediaStorage(root.resolve("uploads"), root.resolve("static"));
+        generator = new ImageDerivativeGenerator(null, null, null, null, mediaStorage, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        generator.shutdown();
+    }
+
+    private Path image(String name, int width, int height, int type, String format) throws IOException {
+        Path file = root.resolve("uploads/products/1/" + name);
+        Files.createDirectories(file.getParent());
+        ImageIO.write(new BufferedImage(width, height, type), format, file.toFile());
+        return file;
+    }
+
+    private BufferedImage read(String url) throws IOException {
+        return ImageIO.read(mediaStorage.resolve(url).toFile());
+    }
+
+    @Test
+    void testEverySizeFitsItsBoxAndKeepsTheAspectRatio() throws IOException {
+        Map<ImageDerivativeGenerator.Size, String> urls =
+                generator.derive(image("wide.jpg", 2000, 1000, BufferedImage.TYPE_INT_RGB, "jpg"), "1/7");
+
+        assertEquals(160, read(urls.get(ImageDerivativeGenerator.Size.THUMBNAIL)).getWidth());
+        assertEquals(80, read(urls.get(ImageDerivativeGenerator.Size.THUMBNAIL)).getHeight());
+        assertEquals(480, read(urls.get(ImageDerivativeGenerator.Size.CARD)).getWidth());
+        assertEquals(1600, read(urls.get(ImageDerivativeGenerator.Size.ZOOM)).getWidth());
+        assertTrue(urls.get(ImageDerivativeGenerator.Size.CARD).matches("/media/derived/1/7-card-[0-9a-f]{16}\\.jpg"));
+    }
+
+    @Test
+    void testNamesFollowTheContent() throws IOException {
+        Path original = image("small.png", 100, 50, BufferedImage.TYPE_INT_ARGB, "png");
+        Map<ImageDerivativeGenerator.Size, String> first = generator.derive(original, "1/8");
+        assertEquals(first, generator.derive(original, "1/8"));
+
+        // Small images are not enlarged and transparency is kept
+        String zoom = first.get(ImageDerivativeGenerator.Size.ZOOM);
+        assertTrue(zoom.endsWith(".png"));
+        assertEquals(100, read(zoom).getWidth());
+    }
+
+    @Test
+    void testUnreadableFilesAreRejected() throws IOException {
+        Path text = root.resolve("uploads/products/1/notes.jpg");
+        Files.createDirectories(text.getParent());
+        Files.writeString(text, "not an image");
+
+        assertNull(generator.derive(text, "1/9"));
+    }
+}
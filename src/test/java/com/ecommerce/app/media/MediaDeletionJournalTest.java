@@ -0,0 +1,65 @@
+package com.ecommerce.app.media;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaDeletionJournalTest {
+
+    @TempDir
+    Path root;
+
+    private MediaDeletionJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        MediaStorage storage = new MediaStorage(root.resolve("uploads"), root.resolve("static"));
+        journal = new MediaDeletionJournal(null, null, storage, Duration.ofSeconds(30), 100, 5,
+                Duration.ofSeconds(30), Duration.ofMinutes(10), Duration.ofHours(6), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.shutdown();
+    }
+
+    private void file(String relative, Instant modified) throws IOException {
+        Path file = root.resolve("uploads").resolve(relative);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, relative);
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+    }
+
+    @Test
+    void testRetryDelayDoublesUpToTheMaximum() {
+        assertEquals(Duration.ofSeconds(30), journal.retryDelay(1));
+        assertEquals(Duration.ofSeconds(60), journal.retryDelay(2));
+        assertEquals(Duration.ofSeconds(240), journal.retryDelay(4));
+        assertEquals(Duration.ofMinutes(10), journal.retryDelay(6));
+        assertEquals(Duration.ofMinutes(10), journal.retryDelay(100));
+    }
+
+    @Test
+    void testOnlyOldFilesInImageDirectoriesAreScanned() throws IOException {
+        Instant now = Instant.now();
+        file("products/1/old.jpg", now.minus(Duration.ofDays(2)));
+        file("products/1/new.jpg", now);
+        file("derived/1/7-card-0123.jpg", now.minus(Duration.ofDays(2)));
+        file("exports/catalog.csv", now.minus(Duration.ofDays(2)));
+
+        List<String> urls = journal.filesOlderThan(now.minus(Duration.ofHours(1)));
+        assertEquals(2, urls.size());
+        assertTrue(urls.containsAll(List.of("/media/products/1/old.jpg", "/media/derived/1/7-card-0123.jpg")));
+    }
+}
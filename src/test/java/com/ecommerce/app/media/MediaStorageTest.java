@@ -0,0 +1,71 @@
+package com.ecommerce.app.media;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaStorageTest {
+
+    @TempDir
+    Path root;
+
+    private MediaStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new MediaStorage(root.resolve("uploads"), root.resolve("static"));
+    }
+
+    @Test
+    void testUploadsAreStoredOncePerContent() throws IOException {
+        String url = storage.storeContent(new ByteArrayResource("chair".getBytes(StandardCharsets.UTF_8)), "jpg");
+        String hash = "3d7eb3d3dab17ee509a6911e0feb928eb46e956adcada792493614bfb97a7a9c";
+        assertEquals("/media/content/3d/" + hash + ".jpg", url);
+        assertEquals("chair", Files.readString(storage.resolve(url)));
+
+        assertEquals(url, storage.storeContent(new ByteArrayResource("chair".getBytes(StandardCharsets.UTF_8)), "jpg"));
+        assertNotEquals(url, storage.storeContent(new ByteArrayResource("table".getBytes(StandardCharsets.UTF_8)), "jpg"));
+        try (Stream<Path> files = Files.walk(root.resolve("uploads"))) {
+            assertEquals(2, files.filter(Files::isRegularFile).count());
+        }
+
+        // Named after the content, so its hash is not computed again
+        Path file = storage.resolve(url);
+        assertEquals(hash, storage.contentHash(file, Files.readAttributes(file, BasicFileAttributes.class)));
+
+        assertEquals(root.resolve("static/images/products/1/old.jpg"), storage.resolve("/images/products/1/old.jpg"));
+        assertTrue(storage.delete(url));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testPathsOutsideTheStorageAreRejected() {
+        assertNull(storage.resolve("/media/../../etc/passwd"));
+        assertNull(storage.resolve("/images/../../etc/passwd"));
+        assertNull(storage.resolveRelative("/etc/passwd"));
+        assertNull(storage.resolve("https://cdn.example.com/chair.jpg"));
+        assertThrows(IllegalArgumentException.class, () -> storage.storeContent(new ByteArrayResource(new byte[0]), "/../../x"));
+    }
+
+    @Test
+    void testContentHashFollowsTheFile() throws IOException {
+        Path file = root.resolve("uploads/notes.txt");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "first");
+        String first = storage.contentHash(file, Files.readAttributes(file, BasicFileAttributes.class));
+        assertEquals(first, storage.contentHash(file, Files.readAttributes(file, BasicFileAttributes.class)));
+
+        Files.writeString(file, "second!");
+        assertNotEquals(first, storage.contentHash(file, Files.readAttributes(file, BasicFileAttributes.class)));
+    }
+}
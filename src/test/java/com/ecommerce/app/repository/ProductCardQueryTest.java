@@ -0,0 +1,134 @@
+package com.ecommerce.app.repository;
+
+import com.ecommerce.app.dto.ProductCardDTO;
+import com.ecommerce.app.model.Category;
+import com.ecommerce.app.model.Product;
+import com.ecommerce.app.model.ProductImage;
+import com.ecommerce.app.utils.KeysetCursor;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProductCardQueryTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int c = 0; c < 3; c++) {
+            Category category = new Category();
+            category.setName("Category " + c);
+            entityManager.persist(category);
+
+            for (int i = 0; i < 20; i++) {
+                Product product = new Product();
+                product.setName("Product " + c + "-" + i);
+                product.setPrice(new BigDecimal("10.00"));
+                product.setStockQuantity(i % 4);
+                product.setCategory(category);
+                product.setRatingCount(2);
+                product.setRatingSum(7L);
+                entityManager.persist(product);
+
+                for (int n = 0; n < 3; n++) {
+                    ProductImage image = new ProductImage();
+                    image.setProduct(product);
+                    image.setImageUrl("/images/" + product.getName() + "-" + n + ".jpg");
+                    image.setIsPrimary(n == 1);
+                    image.setDisplayOrder(n);
+                    entityManager.persist(image);
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testQueryCountDoesNotGrowWithPageSize() {
+        assertEquals(3, statementsForPage(4));
+        assertEquals(3, statementsForPage(12));
+        assertEquals(3, statementsForPage(48));
+    }
+
+    @Test
+    void testCardFields() {
+        Page<ProductCardDTO> page = productRepository.findCards(PageRequest.of(0, 4, Sort.by("id")));
+        ProductCardDTO first = page.getContent().get(0);
+
+        assertEquals(60, page.getTotalElements());
+        assertEquals("Category 0", first.getCategoryName());
+        assertEquals(3.5, first.getAverageRating());
+        assertFalse(first.isInStock());
+        assertTrue(page.getContent().get(1).isInStock());
+
+        List<Object[]> images = productImageRepository.findImageUrlsByProductIds(List.of(first.getId()));
+        assertEquals("/images/Product 0-0-1.jpg", images.get(0)[1]);
+    }
+
+    @Test
+    void testKeysetWalkVisitsEveryProductOnce() {
+        KeysetCursor cursor = KeysetCursor.decode("", "name", Sort.Direction.DESC);
+        Set<Long> seen = new HashSet<>();
+        String previousName = null;
+        Slice<ProductCardDTO> slice;
+        do {
+            statistics.clear();
+            slice = productRepository.findCardsAfter(cursor, 7);
+            // One seek query per slice however deep, never a count
+            assertEquals(1, statistics.getPrepareStatementCount());
+            for (ProductCardDTO card : slice.getContent()) {
+                assertTrue(seen.add(card.getId()));
+                assertTrue(previousName == null || card.getName().compareTo(previousName) <= 0);
+                previousName = card.getName();
+            }
+            ProductCardDTO last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            // Round trip through the opaque token as a client would
+            cursor = KeysetCursor.decode(cursor.next(last.getId(), last.sortValue("name")).encode(), "id", Sort.Direction.ASC);
+        } while (slice.hasNext());
+
+        assertEquals(60, seen.size());
+    }
+
+    // Page query, count query and one image query, as ProductServiceImpl does it
+    private long statementsForPage(int size) {
+        statistics.clear();
+        Page<ProductCardDTO> page = productRepository.findCards(PageRequest.of(0, size, Sort.by("name")));
+        productImageRepository.findImageUrlsByProductIds(
+                page.getContent().stream().map(ProductCardDTO::getId).collect(Collectors.toList()));
+        assertEquals(size, page.getNumberOfElements());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.app.service.impl;
+
+import com.ecommerce.app.model.RecentlyViewed;
+import com.ecommerce.app.repository.RecentlyViewedRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RecentlyViewedServiceImplTest {
+
+    // In memory only, views recorded on the calling thread
+    private RecentlyViewedServiceImpl service(int size, int maxUsers) {
+        return new RecentlyViewedServiceImpl(null, Runnable::run, true, false, size, maxUsers, 0);
+    }
+
+    @Test
+    void testNewestFirstWithoutRepeats() {
+        RecentlyViewedServiceImpl service = service(3, 10);
+        service.recordView("alice", 1L);
+        service.recordView("alice", 2L);
+        service.recordView("alice", 3L);
+        service.recordView("alice", 1L);
+
+        assertEquals(List.of(1L, 3L, 2L), service.getRecentlyViewed("alice", 10));
+        assertEquals(List.of(1L), service.getRecentlyViewed("alice", 1));
+
+        // A full ring overwrites the oldest view
+        service.recordView("alice", 4L);
+        assertEquals(List.of(4L, 1L, 3L), service.getRecentlyViewed("alice", 10));
+        service.recordView("alice", 3L);
+        assertEquals(List.of(3L, 4L, 1L), service.getRecentlyViewed("alice", 10));
+    }
+
+    @Test
+    void testIdleUsersAreDroppedFirst() {
+        RecentlyViewedServiceImpl service = service(3, 2);
+        service.recordView("alice", 1L);
+        service.recordView("bob", 2L);
+        service.recordView("alice", 3L);
+        service.recordView("carol", 4L);
+
+        assertEquals(List.of(3L, 1L), service.getRecentlyViewed("alice", 10));
+        assertTrue(service.getRecentlyViewed("bob", 10).isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testDroppedChangedListsAreFlushedAndCapped() {
+        RecentlyViewedRepository repository = mock(RecentlyViewedRepository.class);
+        when(repository.findByUsername(any())).thenReturn(Optional.empty());
+        List<Runnable> queued = new ArrayList<>();
+        RecentlyViewedServiceImpl service = new RecentlyViewedServiceImpl(repository, queued::add,
+                true, true, 3, 1, Long.MAX_VALUE);
+
+        service.record("alice", 1L);
+        service.record("bob", 2L);
+        // Dropping alice queued a flush, dropping bob only displaced alice's pending list
+        service.record("carol", 3L);
+        assertEquals(1, queued.size());
+
+        queued.get(0).run();
+        ArgumentCaptor<Iterable<RecentlyViewed>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(repository).saveAll(saved.capture());
+        Set<String> usernames = StreamSupport.stream(saved.getValue().spliterator(), false)
+                .map(RecentlyViewed::getUsername).collect(Collectors.toSet());
+        assertEquals(Set.of("bob", "carol"), usernames);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testFailedFlushIsRetried() {
+        RecentlyViewedRepository repository = mock(RecentlyViewedRepository.class);
+        when(repository.findByUsername(any())).thenReturn(Optional.empty());
+        when(repository.saveAll(any())).thenThrow(new IllegalStateException("down")).thenReturn(List.of());
+        RecentlyViewedServiceImpl service = new RecentlyViewedServiceImpl(repository, Runnable::run,
+                true, true, 3, 10, Long.MAX_VALUE);
+
+        service.record("alice", 1L);
+        service.flush();
+        service.flush();
+
+        ArgumentCaptor<Iterable<RecentlyViewed>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(repository, times(2)).saveAll(saved.capture());
+        assertEquals("alice", saved.getAllValues().get(1).iterator().next().getUsername());
+    }
+
+    @Test
+    void testDisabledStoreRecordsNothing() {
+        RecentlyViewedServiceImpl service = new RecentlyViewedServiceImpl(null, Runnable::run, false, false, 3, 10, 0);
+        service.recordView("alice", 1L);
+        assertTrue(service.getRecentlyViewed("alice", 10).isEmpty());
+    }
+}